@@ -5,16 +5,30 @@ import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.initialization.InitializationContext;
 import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
 import com.itmo.java.basics.initialization.impl.InitializationContextImpl;
-import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.impl.GroupCommitWriter;
 import com.itmo.java.protocol.model.RespArray;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+/**
+ * Исполняет команды в нескольких однопоточных исполнителях (шардах). Команда попадает в шард по своему
+ * {@link CommandRoute}: команды одного ключа исполняются по очереди в порядке поступления, а команды
+ * разных ключей - параллельно. Команды, меняющие набор баз и таблиц, исполняются согласованно: все шарды
+ * доделывают принятые до нее команды и ждут, пока она не исполнится.
+ * <p>
+ * Команда к лениво загружаемой таблице, которая еще не загружена, ставится в шард только после загрузки таблицы,
+ * поэтому загрузку ждут лишь команды этой таблицы, а не остальные команды шарда
+ */
 public class DatabaseServer {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
 
-    private ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final ExecutorService[] shards;
     private final ExecutionEnvironment env;
 
     /**
@@ -25,25 +39,140 @@ public class DatabaseServer {
      * @throws DatabaseException если произошла ошибка инициализации
      */
     public static DatabaseServer initialize(ExecutionEnvironment env, DatabaseServerInitializer initializer) throws DatabaseException {
+        return initialize(env, initializer, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Конструктор
+     *
+     * @param env                  env для инициализации. Далее работа происходит с заполненным объектом
+     * @param initializer          готовый чейн инициализации
+     * @param commandThreadFactory создает поток, в котором исполняются команды (например, виртуальный)
+     * @throws DatabaseException если произошла ошибка инициализации
+     */
+    public static DatabaseServer initialize(ExecutionEnvironment env, DatabaseServerInitializer initializer,
+                                            ThreadFactory commandThreadFactory) throws DatabaseException {
         InitializationContext context = InitializationContextImpl.builder().executionEnvironment(env).build();
         initializer.perform(context);
-        return new DatabaseServer(env);
+        return new DatabaseServer(env, commandThreadFactory);
     }
 
-    private DatabaseServer(ExecutionEnvironment env){
+    private DatabaseServer(ExecutionEnvironment env, ThreadFactory commandThreadFactory){
         this.env = env;
+        this.shards = new ExecutorService[env.getDatabaseConfig().getExecutionShards()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = Executors.newSingleThreadExecutor(commandThreadFactory);
+        }
     }
 
     public CompletableFuture<DatabaseCommandResult> executeNextCommand(RespArray message) {
-        return CompletableFuture.supplyAsync(() -> DatabaseCommands.valueOf(message.getObjects().get(DatabaseCommandArgPositions.
-                COMMAND_NAME.getPositionIndex()).asString()).getCommand(env, message.getObjects()).execute(), executorService);
+        DatabaseCommand command;
+        try {
+            command = DatabaseCommands.valueOf(message.getObjects().get(DatabaseCommandArgPositions.
+                    COMMAND_NAME.getPositionIndex()).asString()).getCommand(env, message.getObjects());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return executeNextCommand(command);
     }
 
+    /**
+     * Исполняет команду. Результат отдается только после того, как записи команды сброшены на диск
+     * согласно {@link com.itmo.java.basics.config.DurabilityPolicy}
+     */
     public CompletableFuture<DatabaseCommandResult> executeNextCommand(DatabaseCommand command) {
-        return CompletableFuture.supplyAsync(command::execute, executorService);
+        CommandRoute route = command.getRoute();
+        if (route.isCoordinated()) {
+            return executeCoordinated(command);
+        }
+        ExecutorService shard = shards[route.shard(shards.length)];
+        CompletableFuture<Void> tableLoading = loadTable(route);
+        if (tableLoading.isDone()) {
+            return CompletableFuture.supplyAsync(() -> executeDurably(command), shard).thenCompose(Function.identity());
+        }
+        return tableLoading.exceptionally(e -> null).thenComposeAsync(loaded -> executeDurably(command), shard);
+    }
+
+    /**
+     * @return загрузка таблицы команды (см {@link com.itmo.java.basics.logic.Database#loadTable(String)}).
+     * Если базы нет, команда исполняется сразу и сама сообщает об ошибке
+     */
+    private CompletableFuture<Void> loadTable(CommandRoute route) {
+        if (route.getDatabaseName() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return env.getDatabase(route.getDatabaseName())
+                .map(database -> database.loadTable(route.getTableName()))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Ставит команду в первый шард, а в остальные - ожидание ее исполнения. Команда исполняется, когда все
+     * остальные шарды дошли до ожидания. Постановка в очереди шардов синхронизирована, чтобы две согласованные
+     * команды стояли во всех очередях в одном порядке и не ждали друг друга
+     */
+    private CompletableFuture<DatabaseCommandResult> executeCoordinated(DatabaseCommand command) {
+        CountDownLatch otherShardsPaused = new CountDownLatch(shards.length - 1);
+        CountDownLatch commandExecuted = new CountDownLatch(1);
+        synchronized (shards) {
+            for (int i = 1; i < shards.length; i++) {
+                shards[i].execute(() -> {
+                    otherShardsPaused.countDown();
+                    awaitUninterruptibly(commandExecuted);
+                });
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                awaitUninterruptibly(otherShardsPaused);
+                try {
+                    return executeDurably(command);
+                } finally {
+                    commandExecuted.countDown();
+                }
+            }, shards[0]).thenCompose(Function.identity());
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CompletableFuture<DatabaseCommandResult> executeDurably(DatabaseCommand command) {
+        DatabaseCommandResult result = command.execute();
+        return GroupCommitWriter.takePendingCommit().handle((durable, e) -> e == null ? result :
+                DatabaseCommandResult.error("IOException when try to flush command records to disk: " + e.getMessage()));
     }
 
     public ExecutionEnvironment getEnv() {
         return env;
     }
+
+    /**
+     * Дожидается выполнения уже принятых команд и закрывает файлы всех баз данных
+     *
+     * @throws DatabaseException если не удалось закрыть какую-либо из баз
+     */
+    public void close() throws DatabaseException {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        try {
+            for (ExecutorService shard : shards) {
+                shard.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        env.close();
+    }
 }
\ No newline at end of file
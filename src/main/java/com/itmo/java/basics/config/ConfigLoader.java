@@ -47,7 +47,14 @@ public class ConfigLoader {
      * Если не удалось считать из заданного файла, или какого-то конкретно значения не оказалось,
      * то используют дефолтные значения из {@link DatabaseConfig} и {@link ServerConfig}
      * <br/>
-     * Читаются: "kvs.workingPath", "kvs.host", "kvs.port" (но в конфигурационном файле допустимы и другие проперти)
+     * Читаются: "kvs.workingPath", "kvs.host", "kvs.port", "kvs.segmentReadMode" (channel или mmap),
+     * "kvs.durability" (none, interval или batch), "kvs.durability.intervalMs",
+     * "kvs.compaction.intervalMs", "kvs.compaction.minSegments", "kvs.initialization.parallelism",
+     * "kvs.tableLoading" (eager или lazy), "kvs.segment.sizeBytes", "kvs.index" (heap, off_heap, art или hash_only),
+     * "kvs.index.layout" (two_level или single_level), "kvs.table.engine" (log или sstable),
+     * "kvs.memtable.sizeBytes", "kvs.execution.shards", "kvs.server.connector" (socket, nio или virtual_threads), "kvs.server.workerThreads",
+     * "kvs.server.eventLoopThreads", "kvs.server.maxConnections", "kvs.server.maxCommandSizeBytes"
+     * (но в конфигурационном файле допустимы и другие проперти)
      */
     public DatabaseServerConfig readConfig() {
         Properties properties = new Properties();
@@ -59,22 +66,31 @@ public class ConfigLoader {
             String workingPath = properties.getProperty("kvs.workingPath");
             String host = properties.getProperty("kvs.host");
             String portStr = properties.getProperty("kvs.port");
-            DatabaseConfig databaseConfig;
-            ServerConfig serverConfig;
-            if (workingPath == null) {
-                databaseConfig = new DatabaseConfig();
-            } else {
-                databaseConfig = new DatabaseConfig(workingPath);
-            }
-            if (host == null){
-                host = ServerConfig.DEFAULT_HOST;
-            }
-            try {
-                int port = Integer.parseInt(portStr);
-                serverConfig = new ServerConfig(host, port);
-            } catch (NumberFormatException e) {
-                serverConfig = new ServerConfig(host, ServerConfig.DEFAULT_PORT);
-            }
+            DatabaseConfig databaseConfig = DatabaseConfig.builder()
+                    .workingPath(workingPath)
+                    .segmentReadMode(readEnum(SegmentReadMode.class, properties.getProperty("kvs.segmentReadMode")))
+                    .durabilityPolicy(readEnum(DurabilityPolicy.class, properties.getProperty("kvs.durability")))
+                    .durabilityIntervalMs(readLong(properties.getProperty("kvs.durability.intervalMs")))
+                    .compactionIntervalMs(readLong(properties.getProperty("kvs.compaction.intervalMs")))
+                    .compactionMinSegments((int) readLong(properties.getProperty("kvs.compaction.minSegments")))
+                    .initializationParallelism((int) readLong(properties.getProperty("kvs.initialization.parallelism")))
+                    .tableLoadingMode(readEnum(TableLoadingMode.class, properties.getProperty("kvs.tableLoading")))
+                    .segmentSizeBytes(readLong(properties.getProperty("kvs.segment.sizeBytes")))
+                    .indexMode(readEnum(IndexMode.class, properties.getProperty("kvs.index")))
+                    .indexLayout(readEnum(IndexLayout.class, properties.getProperty("kvs.index.layout")))
+                    .tableEngine(readEnum(TableEngine.class, properties.getProperty("kvs.table.engine")))
+                    .memtableSizeBytes(readLong(properties.getProperty("kvs.memtable.sizeBytes")))
+                    .executionShards((int) readLong(properties.getProperty("kvs.execution.shards")))
+                    .build();
+            ServerConfig serverConfig = ServerConfig.builder()
+                    .host(host)
+                    .port((int) readLong(portStr))
+                    .connectorMode(readEnum(ConnectorMode.class, properties.getProperty("kvs.server.connector")))
+                    .workerThreads((int) readLong(properties.getProperty("kvs.server.workerThreads")))
+                    .eventLoopThreads((int) readLong(properties.getProperty("kvs.server.eventLoopThreads")))
+                    .maxConnections((int) readLong(properties.getProperty("kvs.server.maxConnections")))
+                    .maxCommandSizeBytes((int) readLong(properties.getProperty("kvs.server.maxCommandSizeBytes")))
+                    .build();
             return DatabaseServerConfig.builder()
                     .dbConfig(databaseConfig)
                     .serverConfig(serverConfig)
@@ -86,4 +102,32 @@ public class ConfigLoader {
                     .build();
         }
     }
+
+    /**
+     * @return число или 0, если проперти не задана или задана неправильно
+     */
+    private static long readLong(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return значение перечисления без учета регистра или null, если проперти не задана или задана неправильно
+     */
+    private static <E extends Enum<E>> E readEnum(Class<E> enumClass, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(enumClass, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
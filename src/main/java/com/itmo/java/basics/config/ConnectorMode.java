@@ -0,0 +1,20 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Как сервер обслуживает клиентские соединения
+ */
+public enum ConnectorMode {
+    /**
+     * Блокирующие сокеты, по потоку из пула на каждого клиента
+     */
+    SOCKET,
+    /**
+     * Блокирующие сокеты, по виртуальному потоку на каждого клиента. Команды сервера тоже исполняются
+     * в виртуальном потоке. Нужна Java 21
+     */
+    VIRTUAL_THREADS,
+    /**
+     * Неблокирующие каналы: несколько потоков с {@link java.nio.channels.Selector} обслуживают все соединения
+     */
+    NIO
+}
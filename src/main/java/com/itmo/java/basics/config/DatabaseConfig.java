@@ -1,20 +1,161 @@
 package com.itmo.java.basics.config;
 
-import java.nio.file.Paths;
+import lombok.Builder;
 
 public class DatabaseConfig {
     public static final String DEFAULT_WORKING_PATH = "db_files";
+    public static final SegmentReadMode DEFAULT_SEGMENT_READ_MODE = SegmentReadMode.CHANNEL;
+    public static final DurabilityPolicy DEFAULT_DURABILITY_POLICY = DurabilityPolicy.NONE;
+    public static final long DEFAULT_DURABILITY_INTERVAL_MS = 100;
+    public static final long DEFAULT_COMPACTION_INTERVAL_MS = 60000;
+    public static final int DEFAULT_COMPACTION_MIN_SEGMENTS = 4;
+    public static final int DEFAULT_INITIALIZATION_PARALLELISM = 1;
+    public static final TableLoadingMode DEFAULT_TABLE_LOADING_MODE = TableLoadingMode.EAGER;
+    public static final long DEFAULT_SEGMENT_SIZE_BYTES = 100000;
+    public static final IndexMode DEFAULT_INDEX_MODE = IndexMode.HEAP;
+    public static final IndexLayout DEFAULT_INDEX_LAYOUT = IndexLayout.TWO_LEVEL;
+    public static final TableEngine DEFAULT_TABLE_ENGINE = TableEngine.LOG;
+    public static final long DEFAULT_MEMTABLE_SIZE_BYTES = 1024 * 1024;
+    public static final int DEFAULT_EXECUTION_SHARDS = Runtime.getRuntime().availableProcessors();
     private final String workingPath;
+    private final SegmentReadMode segmentReadMode;
+    private final DurabilityPolicy durabilityPolicy;
+    private final long durabilityIntervalMs;
+    private final long compactionIntervalMs;
+    private final int compactionMinSegments;
+    private final int initializationParallelism;
+    private final TableLoadingMode tableLoadingMode;
+    private final long segmentSizeBytes;
+    private final IndexMode indexMode;
+    private final IndexLayout indexLayout;
+    private final TableEngine tableEngine;
+    private final long memtableSizeBytes;
+    private final int executionShards;
+
+    /**
+     * Незаданные (null или неположительные) параметры заменяются значениями по умолчанию.
+     * Исключение - размер memtable: незаданный означает, что у журнальных таблиц memtable нет
+     */
+    @Builder
+    public DatabaseConfig(String workingPath, SegmentReadMode segmentReadMode, DurabilityPolicy durabilityPolicy,
+                          long durabilityIntervalMs, long compactionIntervalMs, int compactionMinSegments,
+                          int initializationParallelism, TableLoadingMode tableLoadingMode, long segmentSizeBytes,
+                          IndexMode indexMode, IndexLayout indexLayout, TableEngine tableEngine,
+                          long memtableSizeBytes, int executionShards) {
+        this.workingPath = workingPath == null ? DEFAULT_WORKING_PATH : workingPath;
+        this.segmentReadMode = segmentReadMode == null ? DEFAULT_SEGMENT_READ_MODE : segmentReadMode;
+        this.durabilityPolicy = durabilityPolicy == null ? DEFAULT_DURABILITY_POLICY : durabilityPolicy;
+        this.durabilityIntervalMs = durabilityIntervalMs <= 0 ? DEFAULT_DURABILITY_INTERVAL_MS : durabilityIntervalMs;
+        this.compactionIntervalMs = compactionIntervalMs <= 0 ? DEFAULT_COMPACTION_INTERVAL_MS : compactionIntervalMs;
+        this.compactionMinSegments = compactionMinSegments <= 0 ? DEFAULT_COMPACTION_MIN_SEGMENTS : compactionMinSegments;
+        this.initializationParallelism = initializationParallelism <= 0
+                ? DEFAULT_INITIALIZATION_PARALLELISM : initializationParallelism;
+        this.tableLoadingMode = tableLoadingMode == null ? DEFAULT_TABLE_LOADING_MODE : tableLoadingMode;
+        this.segmentSizeBytes = segmentSizeBytes <= 0 ? DEFAULT_SEGMENT_SIZE_BYTES : segmentSizeBytes;
+        this.indexMode = indexMode == null ? DEFAULT_INDEX_MODE : indexMode;
+        if (this.indexMode == IndexMode.HASH_ONLY) {
+            this.indexLayout = IndexLayout.SINGLE_LEVEL;
+        } else {
+            this.indexLayout = indexLayout == null ? DEFAULT_INDEX_LAYOUT : indexLayout;
+        }
+        this.tableEngine = tableEngine == null ? DEFAULT_TABLE_ENGINE : tableEngine;
+        this.memtableSizeBytes = Math.max(0, memtableSizeBytes);
+        this.executionShards = executionShards <= 0 ? DEFAULT_EXECUTION_SHARDS : executionShards;
+    }
 
     public DatabaseConfig(String workingPath) {
-        this.workingPath = workingPath;
+        this(workingPath, null, null, 0, 0, 0, 0, null, 0, null, null, null, 0, 0);
     }
 
     public DatabaseConfig(){
-        this.workingPath = DEFAULT_WORKING_PATH;
+        this(null);
     }
 
     public String getWorkingPath() {
         return workingPath;
     }
+
+    public SegmentReadMode getSegmentReadMode() {
+        return segmentReadMode;
+    }
+
+    public DurabilityPolicy getDurabilityPolicy() {
+        return durabilityPolicy;
+    }
+
+    public long getDurabilityIntervalMs() {
+        return durabilityIntervalMs;
+    }
+
+    public long getCompactionIntervalMs() {
+        return compactionIntervalMs;
+    }
+
+    /**
+     * @return сколько новых read-only сегментов таблицы должно накопиться, чтобы запустить их сжатие;
+     * для {@link TableEngine#SSTABLE} - сколько подряд идущих сегментов одного яруса сливается в один
+     */
+    public int getCompactionMinSegments() {
+        return compactionMinSegments;
+    }
+
+    /**
+     * @return сколько потоков используется при инициализации сервера (1 - последовательная инициализация)
+     */
+    public int getInitializationParallelism() {
+        return initializationParallelism;
+    }
+
+    public TableLoadingMode getTableLoadingMode() {
+        return tableLoadingMode;
+    }
+
+    /**
+     * @return размер, после достижения которого сегмент становится read-only. Под новые сегменты место выделяется заранее
+     */
+    public long getSegmentSizeBytes() {
+        return segmentSizeBytes;
+    }
+
+    public IndexMode getIndexMode() {
+        return indexMode;
+    }
+
+    /**
+     * @return устройство индекса таблицы. При {@link IndexMode#HASH_ONLY} всегда {@link IndexLayout#SINGLE_LEVEL}
+     */
+    public IndexLayout getIndexLayout() {
+        return indexLayout;
+    }
+
+    /**
+     * @return способ хранения для таблиц, создаваемых без явного указания
+     */
+    public TableEngine getTableEngine() {
+        return tableEngine;
+    }
+
+    /**
+     * @return примерный объем данных в memtable журнальной таблицы, после которого она сбрасывается на диск.
+     * 0 - memtable и журнала изменений нет, записи сразу дописываются в сегменты
+     */
+    public long getMemtableSizeBytes() {
+        return memtableSizeBytes;
+    }
+
+    /**
+     * @return объем memtable таблицы {@link TableEngine#SSTABLE}. Без memtable такая таблица писать не может,
+     * поэтому при незаданном размере используется {@link #DEFAULT_MEMTABLE_SIZE_BYTES}
+     */
+    public long getSortedMemtableSizeBytes() {
+        return memtableSizeBytes > 0 ? memtableSizeBytes : DEFAULT_MEMTABLE_SIZE_BYTES;
+    }
+
+    /**
+     * @return сколько однопоточных исполнителей команд у сервера. Команды распределяются между ними
+     * по базе, таблице и ключу
+     */
+    public int getExecutionShards() {
+        return executionShards;
+    }
 }
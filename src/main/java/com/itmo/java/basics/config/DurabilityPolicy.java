@@ -0,0 +1,21 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Когда записи сегментов сбрасываются на диск (fsync)
+ */
+public enum DurabilityPolicy {
+    /**
+     * Записи не сбрасываются явно, команда завершается сразу после записи в файл
+     */
+    NONE,
+    /**
+     * Записи сбрасываются раз в заданное количество миллисекунд,
+     * команда завершается после сброса пачки, в которую попала ее запись
+     */
+    INTERVAL,
+    /**
+     * Пачка записей сбрасывается сразу, как только завершился предыдущий сброс,
+     * команда завершается после сброса ее пачки
+     */
+    BATCH
+}
@@ -0,0 +1,15 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Как устроен индекс таблицы
+ */
+public enum IndexLayout {
+    /**
+     * Индекс таблицы хранит сегмент ключа, а смещение записи ищется в индексе сегмента
+     */
+    TWO_LEVEL,
+    /**
+     * Индекс таблицы хранит положение записи (сегмент, смещение, длину), у сегментов своих индексов нет
+     */
+    SINGLE_LEVEL
+}
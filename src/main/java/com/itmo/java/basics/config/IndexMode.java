@@ -0,0 +1,25 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Где хранятся индексы таблиц и сегментов
+ */
+public enum IndexMode {
+    /**
+     * {@link java.util.HashMap} в куче
+     */
+    HEAP,
+    /**
+     * Хеш-таблица с открытой адресацией вне кучи: ключи хранятся байтами, значения упакованы в long
+     */
+    OFF_HEAP,
+    /**
+     * Адаптивное префиксное дерево в куче: общие префиксы ключей хранятся один раз, ключи можно обходить по порядку
+     * и по префиксу. Индексы сегментов при этом остаются {@link java.util.HashMap}
+     */
+    ART,
+    /**
+     * Вне кучи хранятся только 64-битные отпечатки ключей и положения записей (16 байт на ключ),
+     * совпадение ключа проверяется чтением записи с диска. Только с {@link IndexLayout#SINGLE_LEVEL}
+     */
+    HASH_ONLY
+}
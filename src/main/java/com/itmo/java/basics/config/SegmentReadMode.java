@@ -0,0 +1,16 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Способ чтения записей из сегментов
+ */
+public enum SegmentReadMode {
+    /**
+     * Позиционное чтение через общий {@link java.nio.channels.FileChannel} сегмента
+     */
+    CHANNEL,
+    /**
+     * Сегменты, ставшие read-only, один раз отображаются в память, и записи декодируются прямо из отображения.
+     * Активный сегмент по-прежнему читается через канал
+     */
+    MMAP
+}
@@ -1,18 +1,60 @@
 package com.itmo.java.basics.config;
 
-import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Getter;
 
 /**
- * Какой хост и какой порт будет слушать наш сервер
+ * Какой хост и какой порт будет слушать наш сервер и сколько клиентов он обслуживает одновременно
  */
 @Getter
-@AllArgsConstructor
 public class ServerConfig {
 
     public static final String DEFAULT_HOST = "localhost";
     public static final int DEFAULT_PORT = 8080;
+    public static final ConnectorMode DEFAULT_CONNECTOR_MODE = ConnectorMode.SOCKET;
+    public static final int DEFAULT_WORKER_THREADS = 16;
+    public static final int DEFAULT_EVENT_LOOP_THREADS = 2;
+    public static final int DEFAULT_MAX_CONNECTIONS = 1024;
+    public static final int DEFAULT_MAX_COMMAND_SIZE_BYTES = 16 * 1024 * 1024;
 
     private final String host;
     private final int port;
+    private final ConnectorMode connectorMode;
+    /**
+     * Сколько потоков обслуживания клиентов держится наготове, даже если клиентов меньше ({@link ConnectorMode#SOCKET})
+     */
+    private final int workerThreads;
+    /**
+     * Сколько потоков с селектором делят между собой все соединения ({@link ConnectorMode#NIO})
+     */
+    private final int eventLoopThreads;
+    /**
+     * Сколько клиентов обслуживается одновременно. Остальным соединениям сервер отказывает
+     */
+    private final int maxConnections;
+    /**
+     * Сколько байт может занимать одна команда ({@link ConnectorMode#NIO}). Соединение, приславшее команду
+     * больше или объявившее такой размер массива или bulk строки, закрывается
+     */
+    private final int maxCommandSizeBytes;
+
+    /**
+     * Незаданные (null или неположительные) параметры заменяются значениями по умолчанию.
+     * Потоков наготове держится не больше, чем допускается соединений
+     */
+    @Builder
+    public ServerConfig(String host, int port, ConnectorMode connectorMode, int workerThreads, int eventLoopThreads,
+                        int maxConnections, int maxCommandSizeBytes) {
+        this.host = host == null ? DEFAULT_HOST : host;
+        this.port = port <= 0 ? DEFAULT_PORT : port;
+        this.connectorMode = connectorMode == null ? DEFAULT_CONNECTOR_MODE : connectorMode;
+        this.eventLoopThreads = eventLoopThreads <= 0 ? DEFAULT_EVENT_LOOP_THREADS : eventLoopThreads;
+        this.maxConnections = maxConnections <= 0 ? DEFAULT_MAX_CONNECTIONS : maxConnections;
+        this.maxCommandSizeBytes = maxCommandSizeBytes <= 0 ? DEFAULT_MAX_COMMAND_SIZE_BYTES : maxCommandSizeBytes;
+        this.workerThreads = Math.min(workerThreads <= 0 ? DEFAULT_WORKER_THREADS : workerThreads, this.maxConnections);
+    }
+
+    public ServerConfig(String host, int port) {
+        this(host, port, null, 0, 0, 0, 0);
+    }
 }
@@ -0,0 +1,16 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Способ хранения данных таблицы. Выбирается при создании таблицы и не меняется
+ */
+public enum TableEngine {
+    /**
+     * Записи дописываются в сегменты-журналы, положение каждого ключа хранится в индексе в памяти
+     */
+    LOG,
+    /**
+     * Записи копятся в отсортированной таблице в памяти (memtable) и сбрасываются в неизменяемые отсортированные
+     * сегменты (SSTable). В памяти хранятся только разреженные индексы и фильтры Блума сегментов
+     */
+    SSTABLE
+}
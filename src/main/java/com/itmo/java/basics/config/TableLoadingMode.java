@@ -0,0 +1,16 @@
+package com.itmo.java.basics.config;
+
+/**
+ * Когда при старте сервера строятся индексы существующих таблиц
+ */
+public enum TableLoadingMode {
+    /**
+     * Все таблицы индексируются до того, как сервер начнет принимать команды
+     */
+    EAGER,
+    /**
+     * При старте регистрируются только имена таблиц. Сегменты таблицы индексируются при первом обращении к ней
+     * или фоновым потоком прогрева
+     */
+    LAZY
+}
@@ -0,0 +1,67 @@
+package com.itmo.java.basics.connector;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики одного клиентского соединения. Пишет их поток соединения, читать можно из любого потока
+ */
+public class ConnectionMetrics {
+    private final String remoteAddress;
+    private final long connectedAtMillis;
+    private final AtomicLong commands = new AtomicLong();
+    private final AtomicLong failedCommands = new AtomicLong();
+    private final AtomicLong commandNanos = new AtomicLong();
+
+    /**
+     * @param remoteAddress адрес клиента
+     */
+    public ConnectionMetrics(String remoteAddress) {
+        this.remoteAddress = remoteAddress;
+        this.connectedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Учитывает исполненную команду соединения
+     *
+     * @param nanos   сколько времени прошло от чтения команды до записи ответа
+     * @param success успешно ли исполнилась команда
+     */
+    public void recordCommand(long nanos, boolean success) {
+        commands.incrementAndGet();
+        commandNanos.addAndGet(nanos);
+        if (!success) {
+            failedCommands.incrementAndGet();
+        }
+    }
+
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public long getConnectedAtMillis() {
+        return connectedAtMillis;
+    }
+
+    public long getCommands() {
+        return commands.get();
+    }
+
+    public long getFailedCommands() {
+        return failedCommands.get();
+    }
+
+    /**
+     * @return среднее время команды в микросекундах (0, если команд не было)
+     */
+    public long getAverageCommandMicros() {
+        long count = commands.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(commandNanos.get() / count);
+    }
+
+    @Override
+    public String toString() {
+        return remoteAddress + " commands=" + getCommands() + " failed=" + getFailedCommands()
+                + " avgMicros=" + getAverageCommandMicros();
+    }
+}
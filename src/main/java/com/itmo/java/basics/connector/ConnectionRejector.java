@@ -0,0 +1,63 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.protocol.RespWriter;
+import com.itmo.java.protocol.model.RespError;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отказывает блокирующим сокетам сверх ограничения числа соединений: отвечает ошибкой и закрывает соединение.
+ * Ответ пишется в своем потоке, а не в принимающем соединения, поэтому клиент, который не читает ответ,
+ * не останавливает прием остальных. Если отказов ждет больше {@link #MAX_PENDING_REJECTIONS},
+ * соединение закрывается без ответа
+ */
+class ConnectionRejector implements Closeable {
+    static final byte[] TOO_MANY_CONNECTIONS = "Too many connections".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_PENDING_REJECTIONS = 128;
+
+    private final ThreadPoolExecutor rejectionWriter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING_REJECTIONS), runnable -> {
+        Thread thread = new Thread(runnable, "connection-rejector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Ставит в очередь ответ клиенту, которому отказано, и закрытие его сокета
+     */
+    void reject(Socket clientSocket) {
+        try {
+            rejectionWriter.execute(() -> writeErrorAndClose(clientSocket));
+        } catch (RejectedExecutionException e) {
+            close(clientSocket);
+        }
+    }
+
+    @Override
+    public void close() {
+        rejectionWriter.shutdownNow();
+    }
+
+    private static void writeErrorAndClose(Socket clientSocket) {
+        try (clientSocket) {
+            new RespWriter(clientSocket.getOutputStream()).write(new RespError(TOO_MANY_CONNECTIONS));
+        } catch (IOException e) {
+            // клиент уже отключился, отказывать некому
+        }
+    }
+
+    private static void close(Socket clientSocket) {
+        try {
+            clientSocket.close();
+        } catch (IOException e) {
+            // соединение уже закрыто
+        }
+    }
+}
@@ -2,11 +2,12 @@ package com.itmo.java.basics.connector;
 
 import com.itmo.java.basics.DatabaseServer;
 import com.itmo.java.basics.config.ConfigLoader;
-import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.ConnectorMode;
 import com.itmo.java.basics.config.DatabaseServerConfig;
 import com.itmo.java.basics.config.ServerConfig;
 import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
 import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
 import com.itmo.java.basics.initialization.impl.SegmentInitializer;
@@ -15,28 +16,49 @@ import com.itmo.java.basics.resp.CommandReader;
 import com.itmo.java.protocol.RespReader;
 import com.itmo.java.protocol.RespWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Класс, который предоставляет доступ к серверу через сокеты
+ * Класс, который предоставляет доступ к серверу через сокеты.
+ * <p>
+ * Каждый клиент обслуживается своим потоком из пула, поэтому долго молчащий клиент не задерживает остальных.
+ * Одновременно обслуживается не больше {@link ServerConfig#getMaxConnections()} клиентов, остальным сразу
+ * отвечается ошибкой и соединение закрывается
  */
-public class JavaSocketServerConnector implements Closeable {
+public class JavaSocketServerConnector implements ServerConnector {
+    private static final long IDLE_WORKER_KEEP_ALIVE_SECONDS = 60;
 
     /**
-     * Экзекьютор для выполнения ClientTask
+     * Экзекьютор для выполнения ClientTask. Потоки сверх {@link ServerConfig#getWorkerThreads()}
+     * создаются под новых клиентов и завершаются, если простаивают
      */
-    private final ExecutorService clientIOWorkers = Executors.newSingleThreadExecutor();
+    private final ThreadPoolExecutor clientIOWorkers;
 
     private final ServerSocket serverSocket;
     private final ExecutorService connectionAcceptorExecutor = Executors.newSingleThreadExecutor();
+    private final ConnectionRejector rejector = new ConnectionRejector();
 
     private final DatabaseServer server;
+    private final Set<ConnectionMetrics> activeConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong rejectedConnections = new AtomicLong();
 
     /**
      * Стартует сервер. По аналогии с сокетом открывает коннекшн в конструкторе.
@@ -44,20 +66,58 @@ public class JavaSocketServerConnector implements Closeable {
     public JavaSocketServerConnector(DatabaseServer databaseServer, ServerConfig config) throws IOException {
         this.serverSocket = new ServerSocket(config.getPort());
         this.server = databaseServer;
+        this.clientIOWorkers = new ThreadPoolExecutor(config.getWorkerThreads(), config.getMaxConnections(),
+                IDLE_WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>());
     }
 
     /**
-     * Начинает слушать заданный порт, начинает аксептить клиентские сокеты. На каждый из них начинает клиентскую таску
+     * Начинает слушать заданный порт, начинает аксептить клиентские сокеты. На каждый из них начинает клиентскую таску.
+     * Если свободных потоков не осталось (обслуживается максимум клиентов), отказывает клиенту
      */
+    @Override
     public void start() {
         connectionAcceptorExecutor.submit(() -> {
             while (true) {
                 Socket clientSocket = serverSocket.accept();
-                clientIOWorkers.submit(new ClientTask(clientSocket, server));
+                ConnectionMetrics metrics = new ConnectionMetrics(String.valueOf(clientSocket.getRemoteSocketAddress()));
+                activeConnections.add(metrics);
+                try {
+                    clientIOWorkers.execute(new ClientTask(clientSocket, server, metrics,
+                            () -> activeConnections.remove(metrics)));
+                    acceptedConnections.incrementAndGet();
+                } catch (RejectedExecutionException e) {
+                    activeConnections.remove(metrics);
+                    rejectedConnections.incrementAndGet();
+                    rejector.reject(clientSocket);
+                }
             }
         });
     }
 
+    /**
+     * @return счетчики соединений, которые обслуживаются сейчас
+     */
+    @Override
+    public Collection<ConnectionMetrics> getActiveConnections() {
+        return Collections.unmodifiableSet(activeConnections);
+    }
+
+    /**
+     * @return сколько соединений было принято с момента старта
+     */
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    /**
+     * @return скольким соединениям было отказано из-за ограничения числа клиентов
+     */
+    @Override
+    public long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
     /**
      * Закрывает все, что нужно ¯\_(ツ)_/¯
      */
@@ -66,6 +126,7 @@ public class JavaSocketServerConnector implements Closeable {
         System.out.println("Stopping socket connector");
         connectionAcceptorExecutor.shutdownNow();
         clientIOWorkers.shutdownNow();
+        rejector.close();
         if (serverSocket != null) {
             try {
                 serverSocket.close();
@@ -78,9 +139,20 @@ public class JavaSocketServerConnector implements Closeable {
 
     public static void main(String[] args) throws Exception {
         DatabaseServerConfig config = new ConfigLoader().readConfig();
+        ThreadFactory commandThreadFactory = config.getServerConfig().getConnectorMode() == ConnectorMode.VIRTUAL_THREADS
+                ? VirtualThreads.threadFactory() : Executors.defaultThreadFactory();
         DatabaseServer server = DatabaseServer.initialize(new ExecutionEnvironmentImpl(config.getDbConfig()),
-                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))));
-        JavaSocketServerConnector connector = new JavaSocketServerConnector(server, config.getServerConfig());
+                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))),
+                commandThreadFactory);
+        ServerConnector connector = ServerConnector.create(server, config.getServerConfig());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            connector.close();
+            try {
+                server.close();
+            } catch (DatabaseException e) {
+                throw new RuntimeException("DatabaseException when try to close database server", e);
+            }
+        }));
         connector.start();
     }
 
@@ -90,18 +162,35 @@ public class JavaSocketServerConnector implements Closeable {
     static class ClientTask implements Runnable, Closeable {
         private final Socket client;
         private final DatabaseServer server;
+        private final ConnectionMetrics metrics;
+        private final Runnable onClose;
 
         /**
          * @param client клиентский сокет
          * @param server сервер, на котором исполняется задача
          */
         public ClientTask(Socket client, DatabaseServer server) {
+            this(client, server, new ConnectionMetrics(String.valueOf(client.getRemoteSocketAddress())), () -> {
+            });
+        }
+
+        /**
+         * @param client  клиентский сокет
+         * @param server  сервер, на котором исполняется задача
+         * @param metrics счетчики соединения
+         * @param onClose вызывается один раз, когда соединение закрыто
+         */
+        public ClientTask(Socket client, DatabaseServer server, ConnectionMetrics metrics, Runnable onClose) {
             this.client = client;
             this.server = server;
+            this.metrics = metrics;
+            this.onClose = onClose;
         }
 
         /**
          * Исполняет задачи из одного клиентского сокета, пока клиент не отсоединился или текущий поток не был прерван (interrupted).
+         * Ответы буферизуются и уходят одним пакетом без задержки (TCP_NODELAY): иначе алгоритм Нейгла ждет
+         * подтверждения предыдущего пакета ответа, а клиент откладывает подтверждение, пока ждет остаток ответа.
          * Для кажной из задач:
          * 1. Читает из сокета команду с помощью {@link CommandReader}
          * 2. Исполняет ее на сервере
@@ -110,14 +199,23 @@ public class JavaSocketServerConnector implements Closeable {
         @Override
         public void run() {
             try (CommandReader commandReader = new CommandReader(new RespReader(client.getInputStream()), server.getEnv());
-            RespWriter respWriter = new RespWriter(client.getOutputStream())) {
+            RespWriter respWriter = new RespWriter(new BufferedOutputStream(client.getOutputStream()))) {
+                client.setTcpNoDelay(true);
                 while (commandReader.hasNextCommand()) {
+                    long startNanos = System.nanoTime();
                     CompletableFuture<DatabaseCommandResult> commandResult = server.executeNextCommand(commandReader.readCommand());
-                    respWriter.write(commandResult.get().serialize());
+                    DatabaseCommandResult result = commandResult.get();
+                    respWriter.write(result.serialize());
+                    metrics.recordCommand(System.nanoTime() - startNanos, result.isSuccess());
                 }
                 close();
             } catch (Exception e) {
                 close();
+                if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                    // коннектор остановлен: ожидание ответа и чтение сокета в виртуальном потоке прерываются вместе с ним
+                    Thread.currentThread().interrupt();
+                    return;
+                }
                 throw new RuntimeException("When try to read, write or execute command", e);
             }
         }
@@ -131,6 +229,8 @@ public class JavaSocketServerConnector implements Closeable {
                 client.close();
             } catch (IOException e){
                 throw new RuntimeException("IOException when try to close client connection", e);
+            } finally {
+                onClose.run();
             }
         }
     }
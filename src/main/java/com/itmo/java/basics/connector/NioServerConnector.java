@@ -0,0 +1,414 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.ServerConfig;
+import com.itmo.java.basics.console.DatabaseCommand;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.resp.CommandReader;
+import com.itmo.java.protocol.RespBufferParser;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс, который предоставляет доступ к серверу через неблокирующие каналы.
+ * <p>
+ * Принятые соединения по кругу раздаются {@link ServerConfig#getEventLoopThreads()} потокам, у каждого из которых
+ * свой {@link Selector}. Поток читает из готовых каналов то, что пришло, разбирает команды
+ * с помощью {@link RespBufferParser} и отдает целые команды {@link DatabaseServer}. Молчащее соединение не занимает
+ * ни потока, ни буфера: буфер чтения общий на поток, а свой буфер у соединения появляется, только если
+ * команда пришла не целиком.
+ * <p>
+ * Команды одного соединения исполняются по очереди: следующая разбирается, когда ответ на предыдущую
+ * полностью записан в канал, а пока ответ не записан, канал не читается. Одновременно обслуживается
+ * не больше {@link ServerConfig#getMaxConnections()} клиентов, остальным сразу отвечается ошибкой
+ * и соединение закрывается.
+ * <p>
+ * Соединение, приславшее команду больше {@link ServerConfig#getMaxCommandSizeBytes()}, закрывается. Так же
+ * закрывается соединение, на котором разбор или обработка упали, а поток продолжает обслуживать остальные каналы
+ */
+public class NioServerConnector implements ServerConnector {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_CONNECTION_BUFFER_SIZE = 4 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService connectionAcceptorExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService eventLoopExecutor;
+    private final EventLoop[] eventLoops;
+    private final int maxConnections;
+    private final int maxCommandSizeBytes;
+
+    private final DatabaseServer server;
+    private final Set<ConnectionMetrics> activeConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong rejectedConnections = new AtomicLong();
+
+    /**
+     * Стартует сервер. По аналогии с сокетом открывает коннекшн в конструкторе.
+     */
+    public NioServerConnector(DatabaseServer databaseServer, ServerConfig config) throws IOException {
+        this.server = databaseServer;
+        this.maxConnections = config.getMaxConnections();
+        this.maxCommandSizeBytes = config.getMaxCommandSizeBytes();
+        this.eventLoops = new EventLoop[config.getEventLoopThreads()];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(Selector.open());
+        }
+        this.eventLoopExecutor = Executors.newFixedThreadPool(eventLoops.length);
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(config.getPort()));
+    }
+
+    /**
+     * Запускает потоки с селекторами и начинает аксептить клиентские каналы. Каждый канал отдается
+     * следующему по кругу потоку. Если обслуживается максимум клиентов, отказывает клиенту
+     */
+    @Override
+    public void start() {
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoopExecutor.submit(eventLoop);
+        }
+        connectionAcceptorExecutor.submit(() -> {
+            int nextLoop = 0;
+            while (true) {
+                SocketChannel clientChannel = serverChannel.accept();
+                if (activeConnections.size() >= maxConnections) {
+                    rejectedConnections.incrementAndGet();
+                    reject(clientChannel);
+                    continue;
+                }
+                ConnectionMetrics metrics = new ConnectionMetrics(String.valueOf(clientChannel.getRemoteAddress()));
+                activeConnections.add(metrics);
+                acceptedConnections.incrementAndGet();
+                EventLoop eventLoop = eventLoops[nextLoop];
+                nextLoop = (nextLoop + 1) % eventLoops.length;
+                eventLoop.execute(() -> eventLoop.register(clientChannel, metrics));
+            }
+        });
+    }
+
+    @Override
+    public Collection<ConnectionMetrics> getActiveConnections() {
+        return Collections.unmodifiableSet(activeConnections);
+    }
+
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    @Override
+    public long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
+    /**
+     * Отвечает ошибкой и закрывает соединение. Ответ пишется неблокирующей записью за одну попытку:
+     * в буфер нового сокета он умещается, а клиент, который не читает, не останавливает прием остальных
+     */
+    private static void reject(SocketChannel clientChannel) {
+        try (clientChannel) {
+            clientChannel.configureBlocking(false);
+            clientChannel.write(ByteBuffer.wrap(serialize(new RespError(ConnectionRejector.TOO_MANY_CONNECTIONS))));
+        } catch (IOException e) {
+            // клиент уже отключился, отказывать некому
+        }
+    }
+
+    private static byte[] serialize(RespObject object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        object.write(bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Закрывает все, что нужно ¯\_(ツ)_/¯
+     */
+    @Override
+    public void close() {
+        System.out.println("Stopping nio connector");
+        connectionAcceptorExecutor.shutdownNow();
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.execute(eventLoop::close);
+        }
+        eventLoopExecutor.shutdown();
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("IOException when try to close connection", e);
+        }
+    }
+
+    /**
+     * Поток с селектором. Все, что касается его каналов, делается только в этом потоке, другие потоки
+     * передают ему задачи через {@link #execute(Runnable)}
+     */
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        /**
+         * Общий для всех соединений потока буфер, в который читается канал, у которого нет своего буфера
+         */
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * Выполняет задачу в потоке селектора
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel, ConnectionMetrics metrics) {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new ClientConnection(this, channel, key, metrics));
+            } catch (IOException e) {
+                activeConnections.remove(metrics);
+                closeQuietly(channel);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+                    if (!selector.isOpen()) {
+                        return;
+                    }
+                    Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                    while (selectedKeys.hasNext()) {
+                        SelectionKey key = selectedKeys.next();
+                        selectedKeys.remove();
+                        ((ClientConnection) key.attachment()).onReady();
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new RuntimeException("IOException when try to select ready channels", e);
+            }
+        }
+
+        /**
+         * Закрывает все каналы потока и селектор
+         */
+        void close() {
+            if (!selector.isOpen()) {
+                return;
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((ClientConnection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                throw new RuntimeException("IOException when try to close selector", e);
+            }
+        }
+    }
+
+    /**
+     * Одно клиентское соединение. Живет в потоке своего {@link EventLoop}
+     */
+    private class ClientConnection {
+        private final EventLoop eventLoop;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ConnectionMetrics metrics;
+        /**
+         * Начало команды, которая пришла не целиком, и команды, присланные заранее. Null, если таких байтов нет.
+         * Буфер в режиме записи
+         */
+        private ByteBuffer pendingInput;
+        /**
+         * Ответ, который не поместился в канал за один раз
+         */
+        private final Queue<ByteBuffer> pendingOutput = new ArrayDeque<>();
+        private long commandStartNanos;
+        private boolean closed;
+
+        ClientConnection(EventLoop eventLoop, SocketChannel channel, SelectionKey key, ConnectionMetrics metrics) {
+            this.eventLoop = eventLoop;
+            this.channel = channel;
+            this.key = key;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Ошибка памяти тоже закрывает только это соединение: память под его буфер или команду
+         * не нашлась, а остальные каналы потока должны обслуживаться дальше
+         */
+        void onReady() {
+            try {
+                if (key.isWritable()) {
+                    writePendingOutput();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read();
+                }
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                close();
+            }
+        }
+
+        private void read() throws IOException {
+            if (pendingInput != null) {
+                if (!pendingInput.hasRemaining()) {
+                    pendingInput.flip();
+                    pendingInput = grow(pendingInput, nextCapacity(pendingInput.capacity()));
+                }
+                if (channel.read(pendingInput) < 0) {
+                    close();
+                    return;
+                }
+                processPendingInput();
+                return;
+            }
+            ByteBuffer buffer = eventLoop.readBuffer;
+            buffer.clear();
+            if (channel.read(buffer) < 0) {
+                close();
+                return;
+            }
+            buffer.flip();
+            processCommand(buffer);
+            if (buffer.hasRemaining()) {
+                pendingInput = grow(buffer, Math.max(MIN_CONNECTION_BUFFER_SIZE, buffer.remaining() * 2));
+            }
+        }
+
+        /**
+         * Буфер заполнен началом одной команды (целые команды из него уже разобраны), поэтому он растет
+         * не больше, чем до размера самой большой команды
+         *
+         * @throws IOException если команда больше {@link ServerConfig#getMaxCommandSizeBytes()}
+         */
+        private int nextCapacity(int capacity) throws IOException {
+            if (capacity >= maxCommandSizeBytes) {
+                throw new IOException("Command is larger than " + maxCommandSizeBytes + " bytes");
+            }
+            return (int) Math.min((long) capacity * 2, maxCommandSizeBytes);
+        }
+
+        private void processPendingInput() throws IOException {
+            pendingInput.flip();
+            processCommand(pendingInput);
+            if (pendingInput.hasRemaining()) {
+                pendingInput.compact();
+            } else {
+                pendingInput = null;
+            }
+        }
+
+        /**
+         * Если в буфере есть целая команда, отдает ее серверу и перестает читать канал до записи ответа
+         */
+        private void processCommand(ByteBuffer input) throws IOException {
+            RespArray message = RespBufferParser.parseArray(input, maxCommandSizeBytes);
+            if (message == null) {
+                return;
+            }
+            DatabaseCommand command = CommandReader.toCommand(message, server.getEnv());
+            commandStartNanos = System.nanoTime();
+            key.interestOps(0);
+            server.executeNextCommand(command).whenComplete((result, e) ->
+                    eventLoop.execute(() -> onCommandExecuted(result, e)));
+        }
+
+        private void onCommandExecuted(DatabaseCommandResult result, Throwable error) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (error != null) {
+                    throw new IOException("Command execution failed", error);
+                }
+                pendingOutput.add(ByteBuffer.wrap(serialize(result.serialize())));
+                metrics.recordCommand(System.nanoTime() - commandStartNanos, result.isSuccess());
+                writePendingOutput();
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                close();
+            }
+        }
+
+        /**
+         * Пишет в канал, сколько он примет. Когда ответ записан целиком, снова читает канал
+         * и разбирает команды, присланные заранее
+         */
+        private void writePendingOutput() throws IOException {
+            while (!pendingOutput.isEmpty()) {
+                ByteBuffer output = pendingOutput.peek();
+                channel.write(output);
+                if (output.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                pendingOutput.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+            if (pendingInput != null) {
+                processPendingInput();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            key.cancel();
+            activeConnections.remove(metrics);
+            closeQuietly(channel);
+        }
+
+        /**
+         * @return буфер в режиме записи с оставшимися байтами source
+         */
+        private ByteBuffer grow(ByteBuffer source, int capacity) {
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            grown.put(source);
+            return grown;
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // соединение уже разорвано
+        }
+    }
+}
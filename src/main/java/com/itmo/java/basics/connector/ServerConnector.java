@@ -0,0 +1,58 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.ServerConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Предоставляет доступ к серверу по сети
+ */
+public interface ServerConnector extends Closeable {
+
+    /**
+     * Создает коннектор, который выбран в {@link ServerConfig#getConnectorMode()}
+     *
+     * @throws IOException           если не удалось открыть порт
+     * @throws IllegalStateException если выбраны виртуальные потоки, а JVM их не поддерживает
+     */
+    static ServerConnector create(DatabaseServer databaseServer, ServerConfig config) throws IOException {
+        switch (config.getConnectorMode()) {
+            case NIO:
+                return new NioServerConnector(databaseServer, config);
+            case VIRTUAL_THREADS:
+                return new VirtualThreadServerConnector(databaseServer, config);
+            case SOCKET:
+            default:
+                return new JavaSocketServerConnector(databaseServer, config);
+        }
+    }
+
+    /**
+     * Начинает принимать клиентов
+     */
+    void start();
+
+    /**
+     * @return счетчики соединений, которые обслуживаются сейчас
+     */
+    Collection<ConnectionMetrics> getActiveConnections();
+
+    /**
+     * @return сколько соединений было принято с момента старта
+     */
+    long getAcceptedConnections();
+
+    /**
+     * @return скольким соединениям было отказано из-за ограничения числа клиентов
+     */
+    long getRejectedConnections();
+
+    /**
+     * Перестает принимать клиентов и закрывает все соединения
+     */
+    @Override
+    void close();
+}
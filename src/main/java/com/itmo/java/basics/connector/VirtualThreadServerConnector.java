@@ -0,0 +1,103 @@
+package com.itmo.java.basics.connector;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.ServerConfig;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс, который предоставляет доступ к серверу через сокеты, обслуживая каждого клиента в своем виртуальном потоке
+ * (нужна Java 21, см {@link VirtualThreads}).
+ * <p>
+ * Клиент обслуживается тем же блокирующим {@link JavaSocketServerConnector.ClientTask}, но заблокированный
+ * на сокете виртуальный поток не занимает поток ОС, поэтому соединений может быть на порядки больше, чем
+ * потоков в пуле. Одновременно обслуживается не больше {@link ServerConfig#getMaxConnections()} клиентов,
+ * остальным сразу отвечается ошибкой и соединение закрывается
+ */
+public class VirtualThreadServerConnector implements ServerConnector {
+    private final ExecutorService clientIOWorkers = VirtualThreads.newThreadPerTaskExecutor();
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionAcceptorExecutor = Executors.newSingleThreadExecutor();
+    private final ConnectionRejector rejector = new ConnectionRejector();
+    private final int maxConnections;
+
+    private final DatabaseServer server;
+    private final Set<ConnectionMetrics> activeConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong rejectedConnections = new AtomicLong();
+
+    /**
+     * Стартует сервер. По аналогии с сокетом открывает коннекшн в конструкторе.
+     *
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    public VirtualThreadServerConnector(DatabaseServer databaseServer, ServerConfig config) throws IOException {
+        this.serverSocket = new ServerSocket(config.getPort());
+        this.server = databaseServer;
+        this.maxConnections = config.getMaxConnections();
+    }
+
+    /**
+     * Начинает слушать заданный порт, начинает аксептить клиентские сокеты. На каждый из них запускает клиентскую таску
+     * в новом виртуальном потоке. Если обслуживается максимум клиентов, отказывает клиенту
+     */
+    @Override
+    public void start() {
+        connectionAcceptorExecutor.submit(() -> {
+            while (true) {
+                Socket clientSocket = serverSocket.accept();
+                if (activeConnections.size() >= maxConnections) {
+                    rejectedConnections.incrementAndGet();
+                    rejector.reject(clientSocket);
+                    continue;
+                }
+                ConnectionMetrics metrics = new ConnectionMetrics(String.valueOf(clientSocket.getRemoteSocketAddress()));
+                activeConnections.add(metrics);
+                acceptedConnections.incrementAndGet();
+                clientIOWorkers.execute(new JavaSocketServerConnector.ClientTask(clientSocket, server, metrics,
+                        () -> activeConnections.remove(metrics)));
+            }
+        });
+    }
+
+    @Override
+    public Collection<ConnectionMetrics> getActiveConnections() {
+        return Collections.unmodifiableSet(activeConnections);
+    }
+
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    @Override
+    public long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
+    /**
+     * Закрывает все, что нужно ¯\_(ツ)_/¯
+     */
+    @Override
+    public void close() {
+        System.out.println("Stopping virtual thread connector");
+        connectionAcceptorExecutor.shutdownNow();
+        clientIOWorkers.shutdownNow();
+        rejector.close();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            throw new RuntimeException("IOException when try to close connection", e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.itmo.java.basics.connector;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Доступ к виртуальным потокам Java 21. Проект собирается и под Java 11, поэтому API вызывается через reflection:
+ * под Java 21 (профиль сборки java21) виртуальные потоки работают, под более старой JVM методы бросают
+ * {@link IllegalStateException}
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return фабрика виртуальных потоков ({@code Thread.ofVirtual().factory()})
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    public static ThreadFactory threadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Virtual threads require Java 21", e);
+        }
+    }
+
+    /**
+     * @return экзекьютор, который запускает каждую задачу в новом виртуальном потоке
+     * ({@code Executors.newVirtualThreadPerTaskExecutor()})
+     * @throws IllegalStateException если JVM не поддерживает виртуальные потоки
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Virtual threads require Java 21", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.itmo.java.basics.console;
+
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.util.Objects;
+
+/**
+ * По каким данным команда распределяется между потоками исполнения сервера. Команды с одинаковыми базой,
+ * таблицей и ключом попадают в один поток и исполняются в порядке поступления
+ */
+public final class CommandRoute {
+    /**
+     * Команда меняет набор баз данных или таблиц и исполняется, когда не исполняется ни одна другая команда
+     */
+    public static final CommandRoute COORDINATED = new CommandRoute(null, null, 0, true);
+
+    private final String databaseName;
+    private final String tableName;
+    private final int hash;
+    private final boolean coordinated;
+
+    private CommandRoute(String databaseName, String tableName, int hash, boolean coordinated) {
+        this.databaseName = databaseName;
+        this.tableName = tableName;
+        this.hash = hash;
+        this.coordinated = coordinated;
+    }
+
+    /**
+     * @param key ключ или null, если команда работает со всей таблицей
+     */
+    public static CommandRoute of(String databaseName, String tableName, ObjectKey key) {
+        int hash = Objects.hash(databaseName, tableName);
+        if (key != null) {
+            hash = 31 * hash + key.hashCode();
+        }
+        return new CommandRoute(databaseName, tableName, hash ^ (hash >>> 16), false);
+    }
+
+    public boolean isCoordinated() {
+        return coordinated;
+    }
+
+    /**
+     * @return база данных команды или null для согласованной команды
+     */
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * @return таблица команды или null для согласованной команды
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return номер потока из count потоков, в котором исполняется команда
+     */
+    public int shard(int count) {
+        return Math.floorMod(hash, count);
+    }
+}
@@ -7,4 +7,12 @@ public interface DatabaseCommand {
      * @return Сообщение о выполнении результата команды.
      */
     DatabaseCommandResult execute();
+
+    /**
+     * @return по каким данным команда распределяется между потоками исполнения сервера. По умолчанию команда
+     * исполняется согласованно ({@link CommandRoute#COORDINATED})
+     */
+    default CommandRoute getRoute() {
+        return CommandRoute.COORDINATED;
+    }
 }
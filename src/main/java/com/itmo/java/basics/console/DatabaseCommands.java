@@ -15,7 +15,8 @@ public enum DatabaseCommands {
     CREATE_DATABASE {
         @Override
         public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
-            return new CreateDatabaseCommand(env, DatabaseImpl::create, commandArgs);
+            return new CreateDatabaseCommand(env, (dbName, dbRoot) -> DatabaseImpl.create(dbName, dbRoot, env.getDatabaseConfig()),
+                    commandArgs);
         }
     },
     CREATE_TABLE {
@@ -41,6 +42,18 @@ public enum DatabaseCommands {
         public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
             return new DeleteKeyCommand(env, commandArgs);
         }
+    },
+    SCAN_KEYS {
+        @Override
+        public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+            return new ScanKeysCommand(env, commandArgs);
+        }
+    },
+    SCAN_PREFIX {
+        @Override
+        public DatabaseCommand getCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+            return new ScanPrefixCommand(env, commandArgs);
+        }
     };
 
     /**
@@ -1,5 +1,6 @@
 package com.itmo.java.basics.console.impl;
 
+import com.itmo.java.basics.config.TableEngine;
 import com.itmo.java.basics.console.DatabaseCommand;
 import com.itmo.java.basics.console.DatabaseCommandArgPositions;
 import com.itmo.java.basics.console.DatabaseCommandResult;
@@ -14,10 +15,15 @@ import java.util.List;
  * Команда для создания базы таблицы
  */
 public class CreateTableCommand implements DatabaseCommand {
+    private static final int ENGINE_POSITION = DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex() + 1;
 
     private final ExecutionEnvironment env;
     private final String databaseName;
     private final String tableName;
+    /**
+     * Способ хранения таблицы. null - способ по умолчанию из настроек
+     */
+    private final TableEngine engine;
 
     /**
      * Создает команду
@@ -26,13 +32,16 @@ public class CreateTableCommand implements DatabaseCommand {
      *
      * @param env         env
      * @param commandArgs аргументы для создания (порядок - {@link DatabaseCommandArgPositions}.
-     *                    Id команды, имя команды, имя бд, имя таблицы
-     * @throws IllegalArgumentException если передано неправильное количество аргументов
+     *                    Id команды, имя команды, имя бд, имя таблицы, необязательный способ хранения ({@link TableEngine})
+     * @throws IllegalArgumentException если передано неправильное количество аргументов или неизвестный способ хранения
      */
     public CreateTableCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
         this.env = env;
         this.databaseName = commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString();
         this.tableName = commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString();
+        this.engine = commandArgs.size() > ENGINE_POSITION
+                ? TableEngine.valueOf(commandArgs.get(ENGINE_POSITION).asString().toUpperCase())
+                : null;
     }
 
     /**
@@ -46,7 +55,11 @@ public class CreateTableCommand implements DatabaseCommand {
             if (env.getDatabase(databaseName).isEmpty()){
                 return DatabaseCommandResult.error("Not found database " + databaseName);
             }
-            env.getDatabase(databaseName).get().createTableIfNotExists(tableName);
+            if (engine == null) {
+                env.getDatabase(databaseName).get().createTableIfNotExists(tableName);
+            } else {
+                env.getDatabase(databaseName).get().createTableIfNotExists(tableName, engine);
+            }
         } catch (DatabaseException e){
             return DatabaseCommandResult.error("DatabaseException when try to create table " + tableName);
         }
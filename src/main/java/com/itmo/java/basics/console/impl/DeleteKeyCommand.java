@@ -1,11 +1,13 @@
 package com.itmo.java.basics.console.impl;
 
+import com.itmo.java.basics.console.CommandRoute;
 import com.itmo.java.basics.console.DatabaseCommand;
 import com.itmo.java.basics.console.DatabaseCommandArgPositions;
 import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.ExecutionEnvironment;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.protocol.model.RespObject;
 
 import java.util.List;
@@ -18,7 +20,7 @@ public class DeleteKeyCommand implements DatabaseCommand {
     private final ExecutionEnvironment env;
     private final String databaseName;
     private final String tableName;
-    private final String key;
+    private final ObjectKey key;
 
     /**
      * Создает команду.
@@ -34,7 +36,8 @@ public class DeleteKeyCommand implements DatabaseCommand {
         this.env = env;
         this.databaseName = commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString();
         this.tableName = commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString();
-        this.key = commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString();
+        byte[] keyBytes = commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asBytes();
+        this.key = keyBytes == null ? null : ObjectKey.wrap(keyBytes);
     }
 
     /**
@@ -59,4 +62,9 @@ public class DeleteKeyCommand implements DatabaseCommand {
             return DatabaseCommandResult.error("DatabaseException when try to delete value by key " + key + " in table " + tableName);
         }
     }
+
+    @Override
+    public CommandRoute getRoute() {
+        return CommandRoute.of(databaseName, tableName, key);
+    }
 }
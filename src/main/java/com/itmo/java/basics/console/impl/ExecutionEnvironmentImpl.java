@@ -2,20 +2,23 @@ package com.itmo.java.basics.console.impl;
 
 import com.itmo.java.basics.config.DatabaseConfig;
 import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ExecutionEnvironmentImpl implements ExecutionEnvironment {
-    Map<String, Database> databases = new HashMap<>();
+    Map<String, Database> databases = new ConcurrentHashMap<>();
     Path workingPath;
+    DatabaseConfig databaseConfig;
 
     public ExecutionEnvironmentImpl(DatabaseConfig config) {
         workingPath = Paths.get(config.getWorkingPath());
+        databaseConfig = config;
     }
 
     @Override
@@ -28,8 +31,20 @@ public class ExecutionEnvironmentImpl implements ExecutionEnvironment {
         databases.put(db.getName(), db);
     }
 
+    @Override
+    public void close() throws DatabaseException {
+        for (Database database : databases.values()) {
+            database.close();
+        }
+    }
+
     @Override
     public Path getWorkingPath() {
         return workingPath;
     }
+
+    @Override
+    public DatabaseConfig getDatabaseConfig() {
+        return databaseConfig;
+    }
 }
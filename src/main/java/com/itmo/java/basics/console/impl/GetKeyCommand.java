@@ -1,14 +1,15 @@
 package com.itmo.java.basics.console.impl;
 
+import com.itmo.java.basics.console.CommandRoute;
 import com.itmo.java.basics.console.DatabaseCommand;
 import com.itmo.java.basics.console.DatabaseCommandArgPositions;
 import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.ExecutionEnvironment;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.protocol.model.RespObject;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,7 +20,7 @@ public class GetKeyCommand implements DatabaseCommand {
     private final ExecutionEnvironment env;
     private final String databaseName;
     private final String tableName;
-    private final String key;
+    private final ObjectKey key;
     /**
      * Создает команду.
      * <br/>
@@ -34,7 +35,8 @@ public class GetKeyCommand implements DatabaseCommand {
         this.env = env;
         this.databaseName = commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString();
         this.tableName = commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString();
-        this.key = commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString();
+        byte[] keyBytes = commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asBytes();
+        this.key = keyBytes == null ? null : ObjectKey.wrap(keyBytes);
     }
 
     /**
@@ -55,4 +57,9 @@ public class GetKeyCommand implements DatabaseCommand {
             return DatabaseCommandResult.error("DatabaseException when try to get value by key " + key + " in table " + tableName);
         }
     }
+
+    @Override
+    public CommandRoute getRoute() {
+        return CommandRoute.of(databaseName, tableName, key);
+    }
 }
@@ -0,0 +1,127 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.CommandRoute;
+import com.itmo.java.basics.console.DatabaseCommand;
+import com.itmo.java.basics.console.DatabaseCommandArgPositions;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Команда постраничного обхода ключей таблицы. Каждая страница - отдельная команда, поэтому обход большой таблицы
+ * не занимает сервер надолго, а в памяти сервера не бывает больше одной страницы.
+ * <br/>
+ * Курсор - последний ключ предыдущей страницы (пустой или null - с начала). Следующая страница начинается
+ * со следующего после него ключа, поэтому обход можно продолжить и после изменений таблицы
+ */
+public abstract class ScanCommand implements DatabaseCommand {
+    /**
+     * Наибольший размер страницы
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+    /**
+     * Необязательный последний аргумент: вернуть вместе с ключами значения
+     */
+    public static final String WITH_VALUES = "WITH_VALUES";
+
+    private final ExecutionEnvironment env;
+    private final String databaseName;
+    private final String tableName;
+    private final ObjectKey cursor;
+    private final int pageSize;
+    private final boolean withValues;
+
+    /**
+     * @param commandArgs    аргументы команды
+     * @param cursorPosition номер аргумента с курсором, за ним идут размер страницы и необязательный {@link #WITH_VALUES}
+     * @throws IllegalArgumentException если размер страницы не число или не положительный, или передан лишний аргумент
+     */
+    protected ScanCommand(ExecutionEnvironment env, List<RespObject> commandArgs, int cursorPosition) {
+        this.env = env;
+        this.databaseName = commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString();
+        this.tableName = commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString();
+        this.cursor = keyOrNull(commandArgs.get(cursorPosition));
+        int requestedPageSize;
+        try {
+            requestedPageSize = Integer.parseInt(commandArgs.get(cursorPosition + 1).asString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Page size is not a number: " + commandArgs.get(cursorPosition + 1).asString(), e);
+        }
+        if (requestedPageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + requestedPageSize);
+        }
+        this.pageSize = Math.min(requestedPageSize, MAX_PAGE_SIZE);
+        if (commandArgs.size() > cursorPosition + 3
+                || commandArgs.size() == cursorPosition + 3 && !WITH_VALUES.equals(commandArgs.get(cursorPosition + 2).asString())) {
+            throw new IllegalArgumentException("Unexpected scan arguments after page size");
+        }
+        this.withValues = commandArgs.size() == cursorPosition + 3;
+    }
+
+    /**
+     * Возвращает следующую страницу
+     *
+     * @return {@link ScanPageDatabaseCommandResult} с ключами страницы и курсором следующей страницы
+     */
+    @Override
+    public DatabaseCommandResult execute() {
+        try {
+            Optional<Database> database = env.getDatabase(databaseName);
+            if (database.isEmpty()) {
+                return DatabaseCommandResult.error("Not found database " + databaseName);
+            }
+            ObjectKey from = fromInclusive();
+            if (cursor != null) {
+                ObjectKey afterCursor = cursor.successor();
+                if (from == null || afterCursor.compareTo(from) > 0) {
+                    from = afterCursor;
+                }
+            }
+            Map<ObjectKey, byte[]> page = database.get().scan(tableName, from, toExclusive(), prefix(), pageSize);
+            ObjectKey nextCursor = null;
+            if (page.size() == pageSize) {
+                for (ObjectKey key : page.keySet()) {
+                    nextCursor = key;
+                }
+            }
+            return new ScanPageDatabaseCommandResult(nextCursor, page, withValues);
+        } catch (DatabaseException e) {
+            return DatabaseCommandResult.error("DatabaseException when try to scan keys in table " + tableName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return нижняя граница ключей без учета курсора (null - без границы)
+     */
+    protected abstract ObjectKey fromInclusive();
+
+    /**
+     * @return верхняя граница ключей (null - без границы)
+     */
+    protected abstract ObjectKey toExclusive();
+
+    /**
+     * @return префикс ключей ({@link ObjectKey#EMPTY} - любые ключи)
+     */
+    protected abstract ObjectKey prefix();
+
+    /**
+     * @return ключ из байтов аргумента или null, если аргумент пустой
+     */
+    protected static ObjectKey keyOrNull(RespObject argument) {
+        byte[] bytes = argument.asBytes();
+        return bytes == null || bytes.length == 0 ? null : ObjectKey.wrap(bytes);
+    }
+
+    @Override
+    public CommandRoute getRoute() {
+        return CommandRoute.of(databaseName, tableName, null);
+    }
+}
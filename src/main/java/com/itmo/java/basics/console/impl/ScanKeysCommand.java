@@ -0,0 +1,52 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommandArgPositions;
+import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.List;
+
+/**
+ * Команда обхода ключей таблицы из диапазона [from, to)
+ */
+public class ScanKeysCommand extends ScanCommand {
+    private static final int FROM_POSITION = DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex() + 1;
+    private static final int TO_POSITION = FROM_POSITION + 1;
+    private static final int CURSOR_POSITION = TO_POSITION + 1;
+
+    private final ObjectKey from;
+    private final ObjectKey to;
+
+    /**
+     * Создает команду.
+     * <br/>
+     * Обратите внимание, что в конструкторе нет логики проверки валидности данных. Не проверяется, можно ли исполнить команду. Только формальные признаки (например, количество переданных значений или ненуловость объектов
+     *
+     * @param env         env
+     * @param commandArgs аргументы для создания.
+     *                    Id команды, имя команды, имя бд, таблицы, нижняя граница ключей (пустая - без границы),
+     *                    верхняя граница (пустая - без границы), курсор, размер страницы, необязательный {@link #WITH_VALUES}
+     * @throws IllegalArgumentException если передано неправильное количество аргументов
+     */
+    public ScanKeysCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+        super(env, commandArgs, CURSOR_POSITION);
+        this.from = keyOrNull(commandArgs.get(FROM_POSITION));
+        this.to = keyOrNull(commandArgs.get(TO_POSITION));
+    }
+
+    @Override
+    protected ObjectKey fromInclusive() {
+        return from;
+    }
+
+    @Override
+    protected ObjectKey toExclusive() {
+        return to;
+    }
+
+    @Override
+    protected ObjectKey prefix() {
+        return ObjectKey.EMPTY;
+    }
+}
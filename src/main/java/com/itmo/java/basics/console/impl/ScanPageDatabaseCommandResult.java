@@ -0,0 +1,61 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат успешной команды обхода ключей: одна страница ключей (и, если запрошены, значений) и курсор следующей страницы
+ */
+public class ScanPageDatabaseCommandResult implements DatabaseCommandResult {
+    private final ObjectKey nextCursor;
+    private final Map<ObjectKey, byte[]> entries;
+    private final boolean withValues;
+
+    /**
+     * @param nextCursor курсор следующей страницы или null, если это последняя страница
+     * @param entries    ключи и значения страницы в порядке возрастания ключей
+     * @param withValues нужно ли отдавать значения
+     */
+    public ScanPageDatabaseCommandResult(ObjectKey nextCursor, Map<ObjectKey, byte[]> entries, boolean withValues) {
+        this.nextCursor = nextCursor;
+        this.entries = entries;
+        this.withValues = withValues;
+    }
+
+    /**
+     * Курсор и ключи (со значениями), разделенные пробелом
+     */
+    @Override
+    public String getPayLoad() {
+        return serialize().asString();
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return true;
+    }
+
+    /**
+     * Сериализуется в {@link RespArray}: первым идет курсор следующей страницы ({@link RespBulkString#NULL_STRING},
+     * если страница последняя), за ним ключи, а после каждого ключа его значение, если значения запрошены
+     */
+    @Override
+    public RespObject serialize() {
+        List<RespObject> objects = new ArrayList<>(1 + entries.size() * (withValues ? 2 : 1));
+        objects.add(nextCursor == null ? RespBulkString.NULL_STRING : new RespBulkString(nextCursor.getBytes()));
+        for (Map.Entry<ObjectKey, byte[]> entry : entries.entrySet()) {
+            objects.add(new RespBulkString(entry.getKey().getBytes()));
+            if (withValues) {
+                objects.add(new RespBulkString(entry.getValue()));
+            }
+        }
+        return new RespArray(objects.toArray(new RespObject[0]));
+    }
+}
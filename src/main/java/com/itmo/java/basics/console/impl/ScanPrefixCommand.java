@@ -0,0 +1,50 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.console.DatabaseCommandArgPositions;
+import com.itmo.java.basics.console.ExecutionEnvironment;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.List;
+
+/**
+ * Команда обхода ключей таблицы с заданным префиксом
+ */
+public class ScanPrefixCommand extends ScanCommand {
+    private static final int PREFIX_POSITION = DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex() + 1;
+    private static final int CURSOR_POSITION = PREFIX_POSITION + 1;
+
+    private final ObjectKey prefix;
+
+    /**
+     * Создает команду.
+     * <br/>
+     * Обратите внимание, что в конструкторе нет логики проверки валидности данных. Не проверяется, можно ли исполнить команду. Только формальные признаки (например, количество переданных значений или ненуловость объектов
+     *
+     * @param env         env
+     * @param commandArgs аргументы для создания.
+     *                    Id команды, имя команды, имя бд, таблицы, префикс ключей, курсор, размер страницы,
+     *                    необязательный {@link #WITH_VALUES}
+     * @throws IllegalArgumentException если передано неправильное количество аргументов
+     */
+    public ScanPrefixCommand(ExecutionEnvironment env, List<RespObject> commandArgs) {
+        super(env, commandArgs, CURSOR_POSITION);
+        byte[] prefixArg = commandArgs.get(PREFIX_POSITION).asBytes();
+        this.prefix = prefixArg == null ? ObjectKey.EMPTY : ObjectKey.wrap(prefixArg);
+    }
+
+    @Override
+    protected ObjectKey fromInclusive() {
+        return null;
+    }
+
+    @Override
+    protected ObjectKey toExclusive() {
+        return null;
+    }
+
+    @Override
+    protected ObjectKey prefix() {
+        return prefix;
+    }
+}
@@ -1,11 +1,13 @@
 package com.itmo.java.basics.console.impl;
 
+import com.itmo.java.basics.console.CommandRoute;
 import com.itmo.java.basics.console.DatabaseCommand;
 import com.itmo.java.basics.console.DatabaseCommandArgPositions;
 import com.itmo.java.basics.console.DatabaseCommandResult;
 import com.itmo.java.basics.console.ExecutionEnvironment;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.protocol.model.RespObject;
 
 import java.nio.charset.StandardCharsets;
@@ -19,7 +21,7 @@ public class SetKeyCommand implements DatabaseCommand {
     private final ExecutionEnvironment env;
     private final String databaseName;
     private final String tableName;
-    private final String key;
+    private final ObjectKey key;
     private final String value;
 
     /**
@@ -36,7 +38,8 @@ public class SetKeyCommand implements DatabaseCommand {
         this.env = env;
         this.databaseName = commandArgs.get(DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex()).asString();
         this.tableName = commandArgs.get(DatabaseCommandArgPositions.TABLE_NAME.getPositionIndex()).asString();
-        this.key = commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asString();
+        byte[] keyBytes = commandArgs.get(DatabaseCommandArgPositions.KEY.getPositionIndex()).asBytes();
+        this.key = keyBytes == null ? null : ObjectKey.wrap(keyBytes);
         this.value = commandArgs.get(DatabaseCommandArgPositions.VALUE.getPositionIndex()).asString();
     }
 
@@ -60,4 +63,9 @@ public class SetKeyCommand implements DatabaseCommand {
                     tableName + " with value " + value);
         }
     }
+
+    @Override
+    public CommandRoute getRoute() {
+        return CommandRoute.of(databaseName, tableName, key);
+    }
 }
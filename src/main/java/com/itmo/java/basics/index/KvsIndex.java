@@ -1,6 +1,7 @@
 package com.itmo.java.basics.index;
 
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 public interface KvsIndex<K, V> {
     /**
@@ -18,4 +19,26 @@ public interface KvsIndex<K, V> {
      * @return {@code Optional<V>}
      */
     Optional<V> searchForKey(K key);
+
+    /**
+     * Проверяет, есть ли ключ в индексе (в том числе со значением null).
+     *
+     * @param key ключ, который нужно найти
+     * @return true, если ключ есть в индексе
+     */
+    boolean containsKey(K key);
+
+    /**
+     * Возвращает количество ключей в индексе.
+     *
+     * @return количество ключей
+     */
+    int size();
+
+    /**
+     * Обходит все записи индекса.
+     *
+     * @param action действие над ключом и значением
+     */
+    void forEach(BiConsumer<? super K, ? super V> action);
 }
@@ -0,0 +1,40 @@
+package com.itmo.java.basics.index;
+
+/**
+ * Индекс, который умеет обходить ключи по порядку, в том числе начиная с заданного ключа и по префиксу.
+ * Обход можно прервать, вернув false из {@link EntryVisitor#visit(Object, Object)}
+ */
+public interface OrderedKvsIndex<K, V> extends KvsIndex<K, V> {
+    /**
+     * Действие над записью индекса при упорядоченном обходе
+     */
+    interface EntryVisitor<K, V> {
+        /**
+         * @return {@code true} - продолжить обход, {@code false} - остановить
+         */
+        boolean visit(K key, V value);
+    }
+
+    /**
+     * Обходит все записи индекса в порядке возрастания ключей.
+     *
+     * @param visitor действие над ключом и значением
+     */
+    void forEachInOrder(EntryVisitor<? super K, ? super V> visitor);
+
+    /**
+     * Обходит в порядке возрастания записи, ключи которых не меньше указанного.
+     *
+     * @param fromInclusive нижняя граница ключей
+     * @param visitor       действие над ключом и значением
+     */
+    void forEachFrom(K fromInclusive, EntryVisitor<? super K, ? super V> visitor);
+
+    /**
+     * Обходит в порядке возрастания записи, ключи которых начинаются с указанного префикса.
+     *
+     * @param prefix  префикс ключей
+     * @param visitor действие над ключом и значением
+     */
+    void forEachWithPrefix(K prefix, EntryVisitor<? super K, ? super V> visitor);
+}
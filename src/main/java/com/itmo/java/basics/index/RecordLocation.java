@@ -0,0 +1,20 @@
+package com.itmo.java.basics.index;
+
+import com.itmo.java.basics.logic.Segment;
+
+/**
+ * Положение записи ключа в файле сегмента
+ */
+public interface RecordLocation {
+    Segment getSegment();
+
+    /**
+     * @return смещение записи в сегменте или -1, если оно неизвестно (запись об удалении или двухуровневый индекс)
+     */
+    long getOffset();
+
+    /**
+     * @return размер записи или 0, если он неизвестен (например, для записей, восстановленных при старте)
+     */
+    int getLength();
+}
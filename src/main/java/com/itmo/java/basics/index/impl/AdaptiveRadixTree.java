@@ -0,0 +1,596 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.OrderedKvsIndex;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Адаптивное префиксное дерево (ART) с ключами-байтами. Ключи сравниваются побайтно без знака.
+ * <p>
+ * Внутренние узлы бывают на 4, 16, 48 и 256 потомков и растут или сжимаются по мере добавления и удаления ключей.
+ * Общий префикс ключей поддерева хранится в узле целиком (сжатие путей), поэтому у ключей вида
+ * {@code tenant:entity:id} общая часть хранится один раз на поддерево, а не в каждой цепочке узлов.
+ * Ключ, который является префиксом других ключей, хранится в узле, где он заканчивается.
+ * <p>
+ * Лист хранит ключ целиком, поэтому массив ключа нельзя менять после добавления.
+ * Не потокобезопасен. Параллельное чтение без записи допустимо
+ *
+ * @param <V> тип значения (допускается null)
+ */
+public class AdaptiveRadixTree<V> implements OrderedKvsIndex<byte[], V> {
+    private Node<V> root;
+    private int size;
+
+    @Override
+    public void onIndexedEntityUpdated(byte[] key, V value) {
+        root = insert(root, key, 0, value);
+    }
+
+    @Override
+    public Optional<V> searchForKey(byte[] key) {
+        Leaf<V> leaf = find(key);
+        return leaf == null ? Optional.empty() : Optional.ofNullable(leaf.value);
+    }
+
+    @Override
+    public boolean containsKey(byte[] key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Удаляет ключ из дерева.
+     *
+     * @param key ключ, который нужно удалить
+     * @return {@code true} - если ключ был в дереве
+     */
+    public boolean remove(byte[] key) {
+        int sizeBefore = size;
+        root = remove(root, key, 0);
+        return size < sizeBefore;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super byte[], ? super V> action) {
+        visitAll(root, (key, value) -> {
+            action.accept(key, value);
+            return true;
+        });
+    }
+
+    @Override
+    public void forEachInOrder(EntryVisitor<? super byte[], ? super V> visitor) {
+        visitAll(root, visitor);
+    }
+
+    @Override
+    public void forEachFrom(byte[] fromInclusive, EntryVisitor<? super byte[], ? super V> visitor) {
+        visitFrom(root, fromInclusive, 0, visitor);
+    }
+
+    @Override
+    public void forEachWithPrefix(byte[] prefix, EntryVisitor<? super byte[], ? super V> visitor) {
+        Node<V> node = root;
+        int depth = 0;
+        while (node != null) {
+            if (depth >= prefix.length) {
+                visitAll(node, visitor);
+                return;
+            }
+            if (node instanceof Leaf) {
+                Leaf<V> leaf = (Leaf<V>) node;
+                if (startsWith(leaf.key, prefix)) {
+                    visitor.visit(leaf.key, leaf.value);
+                }
+                return;
+            }
+            InnerNode<V> inner = (InnerNode<V>) node;
+            int compared = Math.min(inner.prefix.length, prefix.length - depth);
+            for (int i = 0; i < compared; i++) {
+                if (inner.prefix[i] != prefix[depth + i]) {
+                    return;
+                }
+            }
+            if (depth + inner.prefix.length >= prefix.length) {
+                visitAll(inner, visitor);
+                return;
+            }
+            depth += inner.prefix.length;
+            node = inner.find(prefix[depth] & 0xFF);
+            depth++;
+        }
+    }
+
+    private Leaf<V> find(byte[] key) {
+        Node<V> node = root;
+        int depth = 0;
+        while (node != null) {
+            if (node instanceof Leaf) {
+                Leaf<V> leaf = (Leaf<V>) node;
+                return Arrays.equals(leaf.key, key) ? leaf : null;
+            }
+            InnerNode<V> inner = (InnerNode<V>) node;
+            if (prefixMismatch(inner, key, depth) < inner.prefix.length) {
+                return null;
+            }
+            depth += inner.prefix.length;
+            if (depth == key.length) {
+                return inner.terminal;
+            }
+            node = inner.find(key[depth] & 0xFF);
+            depth++;
+        }
+        return null;
+    }
+
+    /**
+     * @return узел, который должен занять место {@code node} после вставки
+     */
+    private Node<V> insert(Node<V> node, byte[] key, int depth, V value) {
+        if (node == null) {
+            size++;
+            return new Leaf<>(key, value);
+        }
+        if (node instanceof Leaf) {
+            Leaf<V> leaf = (Leaf<V>) node;
+            if (Arrays.equals(leaf.key, key)) {
+                leaf.value = value;
+                return leaf;
+            }
+            int common = depth;
+            while (common < leaf.key.length && common < key.length && leaf.key[common] == key[common]) {
+                common++;
+            }
+            InnerNode<V> split = new SmallNode<>(SmallNode.MIN_CAPACITY, Arrays.copyOfRange(key, depth, common));
+            split = attach(split, leaf, common);
+            size++;
+            return attach(split, new Leaf<>(key, value), common);
+        }
+        InnerNode<V> inner = (InnerNode<V>) node;
+        int mismatch = prefixMismatch(inner, key, depth);
+        if (mismatch < inner.prefix.length) {
+            InnerNode<V> split = new SmallNode<>(SmallNode.MIN_CAPACITY, Arrays.copyOf(inner.prefix, mismatch));
+            int innerKeyByte = inner.prefix[mismatch] & 0xFF;
+            inner.prefix = Arrays.copyOfRange(inner.prefix, mismatch + 1, inner.prefix.length);
+            split = split.add(innerKeyByte, inner);
+            size++;
+            return attach(split, new Leaf<>(key, value), depth + mismatch);
+        }
+        depth += inner.prefix.length;
+        if (depth == key.length) {
+            if (inner.terminal == null) {
+                size++;
+                inner.terminal = new Leaf<>(key, value);
+            } else {
+                inner.terminal.value = value;
+            }
+            return inner;
+        }
+        int keyByte = key[depth] & 0xFF;
+        Node<V> child = inner.find(keyByte);
+        if (child == null) {
+            size++;
+            return inner.add(keyByte, new Leaf<>(key, value));
+        }
+        Node<V> newChild = insert(child, key, depth + 1, value);
+        if (newChild != child) {
+            inner.replace(keyByte, newChild);
+        }
+        return inner;
+    }
+
+    /**
+     * Подвешивает лист к узлу, общий префикс ключей которого заканчивается на глубине {@code depth}
+     */
+    private static <V> InnerNode<V> attach(InnerNode<V> node, Leaf<V> leaf, int depth) {
+        if (depth == leaf.key.length) {
+            node.terminal = leaf;
+            return node;
+        }
+        return node.add(leaf.key[depth] & 0xFF, leaf);
+    }
+
+    /**
+     * @return узел, который должен занять место {@code node} после удаления (null, если поддерево опустело)
+     */
+    private Node<V> remove(Node<V> node, byte[] key, int depth) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof Leaf) {
+            if (Arrays.equals(((Leaf<V>) node).key, key)) {
+                size--;
+                return null;
+            }
+            return node;
+        }
+        InnerNode<V> inner = (InnerNode<V>) node;
+        if (prefixMismatch(inner, key, depth) < inner.prefix.length) {
+            return inner;
+        }
+        depth += inner.prefix.length;
+        if (depth == key.length) {
+            if (inner.terminal == null) {
+                return inner;
+            }
+            inner.terminal = null;
+            size--;
+            return collapse(inner);
+        }
+        int keyByte = key[depth] & 0xFF;
+        Node<V> child = inner.find(keyByte);
+        if (child == null) {
+            return inner;
+        }
+        Node<V> newChild = remove(child, key, depth + 1);
+        if (newChild == child) {
+            return inner;
+        }
+        if (newChild == null) {
+            return collapse(inner.remove(keyByte));
+        }
+        inner.replace(keyByte, newChild);
+        return inner;
+    }
+
+    /**
+     * Убирает узел, который больше ничего не разветвляет: без потомков его заменяет ключ, заканчивающийся в нем,
+     * с единственным потомком - сам потомок с удлиненным префиксом
+     */
+    private static <V> Node<V> collapse(InnerNode<V> inner) {
+        if (inner.count == 0) {
+            return inner.terminal;
+        }
+        if (inner.count > 1 || inner.terminal != null) {
+            return inner;
+        }
+        int keyByte = inner.next(0);
+        Node<V> child = inner.find(keyByte);
+        if (child instanceof InnerNode) {
+            InnerNode<V> innerChild = (InnerNode<V>) child;
+            byte[] prefix = Arrays.copyOf(inner.prefix, inner.prefix.length + 1 + innerChild.prefix.length);
+            prefix[inner.prefix.length] = (byte) keyByte;
+            System.arraycopy(innerChild.prefix, 0, prefix, inner.prefix.length + 1, innerChild.prefix.length);
+            innerChild.prefix = prefix;
+        }
+        return child;
+    }
+
+    private static <V> boolean visitAll(Node<V> node, EntryVisitor<? super byte[], ? super V> visitor) {
+        if (node == null) {
+            return true;
+        }
+        if (node instanceof Leaf) {
+            Leaf<V> leaf = (Leaf<V>) node;
+            return visitor.visit(leaf.key, leaf.value);
+        }
+        InnerNode<V> inner = (InnerNode<V>) node;
+        if (inner.terminal != null && !visitor.visit(inner.terminal.key, inner.terminal.value)) {
+            return false;
+        }
+        for (int keyByte = inner.next(0); keyByte >= 0; keyByte = inner.next(keyByte + 1)) {
+            if (!visitAll(inner.find(keyByte), visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Обходит ключи поддерева, не меньшие {@code from}. Все ключи поддерева совпадают с {@code from} в первых {@code depth} байтах
+     */
+    private static <V> boolean visitFrom(Node<V> node, byte[] from, int depth, EntryVisitor<? super byte[], ? super V> visitor) {
+        if (node == null) {
+            return true;
+        }
+        if (node instanceof Leaf) {
+            Leaf<V> leaf = (Leaf<V>) node;
+            return compare(leaf.key, from) < 0 || visitor.visit(leaf.key, leaf.value);
+        }
+        InnerNode<V> inner = (InnerNode<V>) node;
+        for (int i = 0; i < inner.prefix.length; i++) {
+            if (depth + i >= from.length) {
+                return visitAll(inner, visitor);
+            }
+            int difference = (inner.prefix[i] & 0xFF) - (from[depth + i] & 0xFF);
+            if (difference > 0) {
+                return visitAll(inner, visitor);
+            }
+            if (difference < 0) {
+                return true;
+            }
+        }
+        depth += inner.prefix.length;
+        if (depth >= from.length) {
+            return visitAll(inner, visitor);
+        }
+        int fromByte = from[depth] & 0xFF;
+        if (!visitFrom(inner.find(fromByte), from, depth + 1, visitor)) {
+            return false;
+        }
+        for (int keyByte = inner.next(fromByte + 1); keyByte >= 0; keyByte = inner.next(keyByte + 1)) {
+            if (!visitAll(inner.find(keyByte), visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return длина совпадающей с ключом части префикса узла
+     */
+    private static int prefixMismatch(InnerNode<?> inner, byte[] key, int depth) {
+        int i = 0;
+        while (i < inner.prefix.length && depth + i < key.length && inner.prefix[i] == key[depth + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static int compare(byte[] first, byte[] second) {
+        return Arrays.compareUnsigned(first, second);
+    }
+
+    private abstract static class Node<V> {
+    }
+
+    private static final class Leaf<V> extends Node<V> {
+        private final byte[] key;
+        private V value;
+
+        private Leaf(byte[] key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private abstract static class InnerNode<V> extends Node<V> {
+        /**
+         * Общие байты ключей поддерева после байта, по которому выбран этот узел
+         */
+        byte[] prefix;
+        /**
+         * Ключ, который заканчивается в этом узле
+         */
+        Leaf<V> terminal;
+        int count;
+
+        InnerNode(byte[] prefix) {
+            this.prefix = prefix;
+        }
+
+        abstract Node<V> find(int keyByte);
+
+        /**
+         * @return этот узел или узел большего размера, если в этом не хватило места
+         */
+        abstract InnerNode<V> add(int keyByte, Node<V> child);
+
+        abstract void replace(int keyByte, Node<V> child);
+
+        /**
+         * @return этот узел или узел меньшего размера, если потомков стало мало
+         */
+        abstract InnerNode<V> remove(int keyByte);
+
+        /**
+         * @return наименьший байт потомка, не меньший {@code fromKeyByte}, или -1
+         */
+        abstract int next(int fromKeyByte);
+
+        /**
+         * Переносит потомков и префикс в другой узел при смене размера
+         */
+        <N extends InnerNode<V>> N moveTo(N node) {
+            node.terminal = terminal;
+            for (int keyByte = next(0); keyByte >= 0; keyByte = next(keyByte + 1)) {
+                node.add(keyByte, find(keyByte));
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Узел на 4 или 16 потомков: байты потомков хранятся отсортированными
+     */
+    private static final class SmallNode<V> extends InnerNode<V> {
+        private static final int MIN_CAPACITY = 4;
+        private static final int MAX_CAPACITY = 16;
+
+        private final byte[] keys;
+        private final Node<V>[] children;
+
+        @SuppressWarnings("unchecked")
+        private SmallNode(int capacity, byte[] prefix) {
+            super(prefix);
+            this.keys = new byte[capacity];
+            this.children = (Node<V>[]) new Node<?>[capacity];
+        }
+
+        private int indexOf(int keyByte) {
+            for (int i = 0; i < count; i++) {
+                int current = keys[i] & 0xFF;
+                if (current >= keyByte) {
+                    return current == keyByte ? i : -1;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Node<V> find(int keyByte) {
+            int index = indexOf(keyByte);
+            return index < 0 ? null : children[index];
+        }
+
+        @Override
+        InnerNode<V> add(int keyByte, Node<V> child) {
+            if (count == keys.length) {
+                InnerNode<V> grown = keys.length < MAX_CAPACITY
+                        ? moveTo(new SmallNode<>(MAX_CAPACITY, prefix)) : moveTo(new Node48<>(prefix));
+                return grown.add(keyByte, child);
+            }
+            int position = 0;
+            while (position < count && (keys[position] & 0xFF) < keyByte) {
+                position++;
+            }
+            System.arraycopy(keys, position, keys, position + 1, count - position);
+            System.arraycopy(children, position, children, position + 1, count - position);
+            keys[position] = (byte) keyByte;
+            children[position] = child;
+            count++;
+            return this;
+        }
+
+        @Override
+        void replace(int keyByte, Node<V> child) {
+            children[indexOf(keyByte)] = child;
+        }
+
+        @Override
+        InnerNode<V> remove(int keyByte) {
+            int index = indexOf(keyByte);
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            children[--count] = null;
+            if (keys.length > MIN_CAPACITY && count < MIN_CAPACITY) {
+                return moveTo(new SmallNode<>(MIN_CAPACITY, prefix));
+            }
+            return this;
+        }
+
+        @Override
+        int next(int fromKeyByte) {
+            for (int i = 0; i < count; i++) {
+                if ((keys[i] & 0xFF) >= fromKeyByte) {
+                    return keys[i] & 0xFF;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Узел на 48 потомков: по байту потомка хранится номер ячейки с потомком (0 - потомка нет)
+     */
+    private static final class Node48<V> extends InnerNode<V> {
+        private static final int CAPACITY = 48;
+        private static final int SHRINK_THRESHOLD = 12;
+
+        private final byte[] slots = new byte[256];
+        @SuppressWarnings("unchecked")
+        private final Node<V>[] children = (Node<V>[]) new Node<?>[CAPACITY];
+
+        private Node48(byte[] prefix) {
+            super(prefix);
+        }
+
+        @Override
+        Node<V> find(int keyByte) {
+            int slot = slots[keyByte];
+            return slot == 0 ? null : children[slot - 1];
+        }
+
+        @Override
+        InnerNode<V> add(int keyByte, Node<V> child) {
+            if (count == CAPACITY) {
+                return moveTo(new Node256<>(prefix)).add(keyByte, child);
+            }
+            int slot = 0;
+            while (children[slot] != null) {
+                slot++;
+            }
+            children[slot] = child;
+            slots[keyByte] = (byte) (slot + 1);
+            count++;
+            return this;
+        }
+
+        @Override
+        void replace(int keyByte, Node<V> child) {
+            children[slots[keyByte] - 1] = child;
+        }
+
+        @Override
+        InnerNode<V> remove(int keyByte) {
+            children[slots[keyByte] - 1] = null;
+            slots[keyByte] = 0;
+            count--;
+            if (count <= SHRINK_THRESHOLD) {
+                return moveTo(new SmallNode<>(SmallNode.MAX_CAPACITY, prefix));
+            }
+            return this;
+        }
+
+        @Override
+        int next(int fromKeyByte) {
+            for (int keyByte = fromKeyByte; keyByte < slots.length; keyByte++) {
+                if (slots[keyByte] != 0) {
+                    return keyByte;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Узел на 256 потомков: потомок хранится прямо по своему байту
+     */
+    private static final class Node256<V> extends InnerNode<V> {
+        private static final int SHRINK_THRESHOLD = 37;
+
+        @SuppressWarnings("unchecked")
+        private final Node<V>[] children = (Node<V>[]) new Node<?>[256];
+
+        private Node256(byte[] prefix) {
+            super(prefix);
+        }
+
+        @Override
+        Node<V> find(int keyByte) {
+            return children[keyByte];
+        }
+
+        @Override
+        InnerNode<V> add(int keyByte, Node<V> child) {
+            children[keyByte] = child;
+            count++;
+            return this;
+        }
+
+        @Override
+        void replace(int keyByte, Node<V> child) {
+            children[keyByte] = child;
+        }
+
+        @Override
+        InnerNode<V> remove(int keyByte) {
+            children[keyByte] = null;
+            count--;
+            if (count <= SHRINK_THRESHOLD) {
+                return moveTo(new Node48<>(prefix));
+            }
+            return this;
+        }
+
+        @Override
+        int next(int fromKeyByte) {
+            for (int keyByte = fromKeyByte; keyByte < children.length; keyByte++) {
+                if (children[keyByte] != null) {
+                    return keyByte;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.logic.ObjectKey;
+
+/**
+ * Фильтр Блума по ключам (биты выбираются по {@link ObjectKey#hash64()}). Отвечает, что ключа точно нет, или что он может быть
+ * (ложноположительные ответы бывают с вероятностью около 1% при заполнении до заданной емкости).
+ * Не потокобезопасен: запись и чтение должны синхронизироваться снаружи
+ */
+public class BloomFilter {
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASH_FUNCTIONS = 7;
+    private static final int MIN_BITS = 64;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedKeys сколько ключей будет добавлено в фильтр
+     */
+    public BloomFilter(long expectedKeys) {
+        this(new long[(int) ((Math.max(MIN_BITS, expectedKeys * BITS_PER_KEY) + Long.SIZE - 1) / Long.SIZE)], HASH_FUNCTIONS);
+    }
+
+    /**
+     * Восстанавливает сохраненный фильтр (см. {@link #getBits()})
+     */
+    public BloomFilter(long[] bits, int hashFunctions) {
+        this.bits = bits;
+        this.bitCount = (long) bits.length * Long.SIZE;
+        this.hashFunctions = hashFunctions;
+    }
+
+    public void put(ObjectKey key) {
+        long hash = key.hash64();
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false, если ключ точно не добавлялся в фильтр
+     */
+    public boolean mightContain(ObjectKey key) {
+        long hash = key.hash64();
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((first + (long) i * second) & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return сколько ключей можно добавить, не превышая заданную вероятность ложноположительного ответа
+     */
+    public long getCapacity() {
+        return bitCount / BITS_PER_KEY;
+    }
+
+    public long[] getBits() {
+        return bits;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+}
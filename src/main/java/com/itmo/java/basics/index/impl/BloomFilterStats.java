@@ -0,0 +1,48 @@
+package com.itmo.java.basics.index.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики проверок фильтров Блума таблиц и сегментов всего сервера
+ */
+public final class BloomFilterStats {
+    private static final AtomicLong rejectedLookups = new AtomicLong();
+    private static final AtomicLong passedLookups = new AtomicLong();
+    private static final AtomicLong falsePositives = new AtomicLong();
+
+    private BloomFilterStats() {
+    }
+
+    /**
+     * Фильтр ответил, что ключа нет, и поиск по индексу и файлам не выполнялся
+     */
+    public static void recordRejected() {
+        rejectedLookups.incrementAndGet();
+    }
+
+    /**
+     * Фильтр пропустил ключ
+     */
+    public static void recordPassed() {
+        passedLookups.incrementAndGet();
+    }
+
+    /**
+     * Фильтр пропустил ключ, которого в индексе не оказалось
+     */
+    public static void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    public static long getRejectedLookups() {
+        return rejectedLookups.get();
+    }
+
+    public static long getPassedLookups() {
+        return passedLookups.get();
+    }
+
+    public static long getFalsePositives() {
+        return falsePositives.get();
+    }
+}
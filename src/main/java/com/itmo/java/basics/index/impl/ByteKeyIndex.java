@@ -0,0 +1,59 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.OrderedKvsIndex;
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс с ключами {@link ObjectKey} поверх индекса с ключами-байтами. Ключи передаются без копирования,
+ * порядок байтов совпадает с порядком {@link ObjectKey}, так что упорядоченный обход остается упорядоченным
+ */
+public class ByteKeyIndex<V> implements OrderedKvsIndex<ObjectKey, V> {
+    private final OrderedKvsIndex<byte[], V> index;
+
+    public ByteKeyIndex(OrderedKvsIndex<byte[], V> index) {
+        this.index = index;
+    }
+
+    @Override
+    public void onIndexedEntityUpdated(ObjectKey key, V value) {
+        index.onIndexedEntityUpdated(key.getBytes(), value);
+    }
+
+    @Override
+    public Optional<V> searchForKey(ObjectKey key) {
+        return index.searchForKey(key.getBytes());
+    }
+
+    @Override
+    public boolean containsKey(ObjectKey key) {
+        return index.containsKey(key.getBytes());
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super ObjectKey, ? super V> action) {
+        index.forEach((key, value) -> action.accept(ObjectKey.wrap(key), value));
+    }
+
+    @Override
+    public void forEachInOrder(EntryVisitor<? super ObjectKey, ? super V> visitor) {
+        index.forEachInOrder((key, value) -> visitor.visit(ObjectKey.wrap(key), value));
+    }
+
+    @Override
+    public void forEachFrom(ObjectKey fromInclusive, EntryVisitor<? super ObjectKey, ? super V> visitor) {
+        index.forEachFrom(fromInclusive.getBytes(), (key, value) -> visitor.visit(ObjectKey.wrap(key), value));
+    }
+
+    @Override
+    public void forEachWithPrefix(ObjectKey prefix, EntryVisitor<? super ObjectKey, ? super V> visitor) {
+        index.forEachWithPrefix(prefix.getBytes(), (key, value) -> visitor.visit(ObjectKey.wrap(key), value));
+    }
+}
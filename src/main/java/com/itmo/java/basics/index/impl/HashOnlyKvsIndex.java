@@ -0,0 +1,186 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.KvsIndex;
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс без ключей: хеш-таблица с открытой адресацией вне кучи, каждая ячейка которой -
+ * 64-битный отпечаток ключа и упакованное в long значение, то есть 16 байт на ключ независимо от длины ключа.
+ * <p>
+ * Сами ключи хранятся только на диске. Совпадение отпечатка проверяется чтением ключа записи
+ * через {@link KeyResolver}, при коллизии пробирование продолжается дальше по цепочке.
+ * Поэтому поиск существующего ключа и перезапись стоят одного дополнительного чтения ключа с диска,
+ * а {@link #forEach(BiConsumer)} читает с диска все ключи. Ошибка чтения ключа выбрасывается как {@link UncheckedIOException}.
+ * <p>
+ * null не хранится: запись null удаляет ключ из индекса.
+ * При заполнении на 3/4 таблица перестраивается целиком в таблицу вдвое больше.
+ * Не потокобезопасен. Параллельное чтение без записи допустимо
+ *
+ * @param <V> тип значения, упаковываемого в long
+ */
+public class HashOnlyKvsIndex<V> implements KvsIndex<ObjectKey, V> {
+    private static final int SLOT_LONGS = 2;
+    private static final int FINGERPRINT = 0;
+    private static final int VALUE = 1;
+    private static final long EMPTY = 0;
+    private static final long INITIAL_CAPACITY = 256;
+
+    /**
+     * Чтение ключа, которому принадлежит значение, с диска
+     */
+    public interface KeyResolver<V> {
+        ObjectKey keyOf(V value) throws IOException;
+    }
+
+    private final OffHeapKvsIndex.ValueCodec<V> codec;
+    private final KeyResolver<V> keyResolver;
+    private OffHeapLongArray table = new OffHeapLongArray(INITIAL_CAPACITY * SLOT_LONGS);
+    private long capacity = INITIAL_CAPACITY;
+    private long size;
+
+    /**
+     * @param codec упаковка значения в один long
+     */
+    public HashOnlyKvsIndex(OffHeapKvsIndex.ValueCodec<V> codec, KeyResolver<V> keyResolver) {
+        this.codec = codec;
+        this.keyResolver = keyResolver;
+    }
+
+    @Override
+    public void onIndexedEntityUpdated(ObjectKey key, V value) {
+        long fingerprint = fingerprint(key);
+        long slot = find(key, fingerprint);
+        if (slot >= 0) {
+            if (value == null) {
+                remove(slot);
+            } else {
+                table.set(slot * SLOT_LONGS + VALUE, codec.encode(value, 0));
+            }
+            return;
+        }
+        if (value == null) {
+            return;
+        }
+        if ((size + 1) * 4 > capacity * 3) {
+            grow();
+        }
+        insert(table, capacity, fingerprint, codec.encode(value, 0));
+        size++;
+    }
+
+    @Override
+    public Optional<V> searchForKey(ObjectKey key) {
+        long slot = find(key, fingerprint(key));
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(valueAt(slot));
+    }
+
+    @Override
+    public boolean containsKey(ObjectKey key) {
+        return find(key, fingerprint(key)) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super ObjectKey, ? super V> action) {
+        for (long slot = 0; slot < capacity; slot++) {
+            if (table.get(slot * SLOT_LONGS + FINGERPRINT) != EMPTY) {
+                V value = valueAt(slot);
+                action.accept(resolveKey(value), value);
+            }
+        }
+    }
+
+    /**
+     * @return номер ячейки ключа или -1, если его нет
+     */
+    private long find(ObjectKey key, long fingerprint) {
+        long mask = capacity - 1;
+        long slot = fingerprint & mask;
+        long slotFingerprint;
+        while ((slotFingerprint = table.get(slot * SLOT_LONGS + FINGERPRINT)) != EMPTY) {
+            if (slotFingerprint == fingerprint && key.equals(resolveKey(valueAt(slot)))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Удаление со сдвигом: следующие ячейки цепочки, которые можно сдвинуть ближе к своему месту, сдвигаются в дыру,
+     * поэтому отметки об удаленных ячейках не нужны
+     */
+    private void remove(long slot) {
+        long mask = capacity - 1;
+        long hole = slot;
+        long next = (hole + 1) & mask;
+        long nextFingerprint;
+        while ((nextFingerprint = table.get(next * SLOT_LONGS + FINGERPRINT)) != EMPTY) {
+            long home = nextFingerprint & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table.set(hole * SLOT_LONGS + FINGERPRINT, nextFingerprint);
+                table.set(hole * SLOT_LONGS + VALUE, table.get(next * SLOT_LONGS + VALUE));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table.set(hole * SLOT_LONGS + FINGERPRINT, EMPTY);
+        table.set(hole * SLOT_LONGS + VALUE, 0);
+        size--;
+    }
+
+    private void grow() {
+        long newCapacity = capacity * 2;
+        OffHeapLongArray newTable = new OffHeapLongArray(newCapacity * SLOT_LONGS);
+        for (long slot = 0; slot < capacity; slot++) {
+            long fingerprint = table.get(slot * SLOT_LONGS + FINGERPRINT);
+            if (fingerprint != EMPTY) {
+                insert(newTable, newCapacity, fingerprint, table.get(slot * SLOT_LONGS + VALUE));
+            }
+        }
+        table = newTable;
+        capacity = newCapacity;
+    }
+
+    private static void insert(OffHeapLongArray slots, long slotCount, long fingerprint, long value) {
+        long mask = slotCount - 1;
+        long slot = fingerprint & mask;
+        while (slots.get(slot * SLOT_LONGS + FINGERPRINT) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots.set(slot * SLOT_LONGS + FINGERPRINT, fingerprint);
+        slots.set(slot * SLOT_LONGS + VALUE, value);
+    }
+
+    private V valueAt(long slot) {
+        return codec.decode(table.get(slot * SLOT_LONGS + VALUE), 0);
+    }
+
+    private ObjectKey resolveKey(V value) {
+        try {
+            return keyResolver.keyOf(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("IOException when reading indexed key", e);
+        }
+    }
+
+    /**
+     * @return отпечаток ключа, 0 означает пустую ячейку и не используется
+     */
+    private static long fingerprint(ObjectKey key) {
+        long hash = key.hash64();
+        return hash == EMPTY ? 1 : hash;
+    }
+}
@@ -5,7 +5,13 @@ import com.itmo.java.basics.index.KvsIndex;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
+/**
+ * Индекс на {@link HashMap}. Сам не синхронизирован: таблицы меняют его только под блокировкой на запись,
+ * а читают под блокировкой на чтение, так что параллельные поиски безопасны. Значение null допустимо
+ * и отмечает удаленный ключ
+ */
 public class MapBasedKvsIndex<K, V> implements KvsIndex<K, V> {
     private final Map<K, V> index = new HashMap<>(200);
 
@@ -18,4 +24,19 @@ public class MapBasedKvsIndex<K, V> implements KvsIndex<K, V> {
     public Optional<V> searchForKey(K key) {
         return Optional.ofNullable(index.get(key));
     }
+
+    @Override
+    public boolean containsKey(K key) {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        index.forEach(action);
+    }
 }
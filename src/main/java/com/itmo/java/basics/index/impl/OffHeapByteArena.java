@@ -0,0 +1,65 @@
+package com.itmo.java.basics.index.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хранилище массивов байт вне кучи, в которое можно только дописывать.
+ * Каждый массив хранится как размер и байты и адресуется ненулевой ссылкой (номер блока и смещение в нем).
+ * Блоки растут вдвое до 1 МиБ, чтобы маленькие индексы не занимали лишнюю память
+ */
+final class OffHeapByteArena {
+    private static final int INITIAL_CHUNK_SIZE = 1 << 12;
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer currentChunk;
+
+    /**
+     * @return ссылка на сохраненные байты, всегда не 0
+     */
+    long append(byte[] bytes) {
+        int required = Integer.BYTES + bytes.length;
+        if (currentChunk == null || currentChunk.remaining() < required) {
+            int chunkSize = currentChunk == null ? INITIAL_CHUNK_SIZE : Math.min(MAX_CHUNK_SIZE, currentChunk.capacity() * 2);
+            currentChunk = ByteBuffer.allocateDirect(Math.max(chunkSize, required));
+            chunks.add(currentChunk);
+        }
+        long ref = ((long) (chunks.size() - 1) << 32 | currentChunk.position()) + 1;
+        currentChunk.putInt(bytes.length);
+        currentChunk.put(bytes);
+        return ref;
+    }
+
+    boolean equalsTo(long ref, byte[] bytes) {
+        ByteBuffer chunk = chunks.get(chunkIndex(ref));
+        int offset = chunkOffset(ref);
+        if (chunk.getInt(offset) != bytes.length) {
+            return false;
+        }
+        offset += Integer.BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            if (chunk.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    byte[] get(long ref) {
+        ByteBuffer chunk = chunks.get(chunkIndex(ref));
+        int offset = chunkOffset(ref);
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.duplicate().position(offset + Integer.BYTES).get(bytes);
+        return bytes;
+    }
+
+    private static int chunkIndex(long ref) {
+        return (int) ((ref - 1) >>> 32);
+    }
+
+    private static int chunkOffset(long ref) {
+        return (int) (ref - 1);
+    }
+}
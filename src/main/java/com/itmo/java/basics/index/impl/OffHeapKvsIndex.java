@@ -0,0 +1,209 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.KvsIndex;
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс вне кучи: хеш-таблица с открытой адресацией (линейное пробирование), каждая ячейка которой -
+ * 64-битный хеш ключа ({@link ObjectKey#hash64()}), ссылка на байты ключа в {@link OffHeapByteArena} и упакованное в один или два long значение.
+ * <p>
+ * При заполнении на 3/4 выделяется таблица вдвое больше, и старые ячейки переносятся в нее понемногу
+ * при каждой следующей вставке, поэтому вставка никогда не ждет перехеширования всей таблицы.
+ * Пока перенос не закончен, поиск смотрит обе таблицы.
+ * <p>
+ * Не потокобезопасен. Параллельное чтение без записи допустимо
+ *
+ * @param <V> тип значения, упаковываемого в long
+ */
+public class OffHeapKvsIndex<V> implements KvsIndex<ObjectKey, V> {
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+    private static final int HASH = 0;
+    private static final int KEY = 1;
+    private static final int VALUE = 2;
+    private static final long INITIAL_CAPACITY = 256;
+    private static final int MIGRATION_STEP = 16;
+
+    /**
+     * Упаковка значений индекса в long. null упаковывается самим индексом
+     */
+    public interface ValueCodec<V> {
+        /**
+         * @return сколько long занимает значение: 1 или 2
+         */
+        default int valueLongs() {
+            return 1;
+        }
+
+        /**
+         * @param part номер long, в который упаковывается значение
+         */
+        long encode(V value, int part);
+
+        /**
+         * @param second второй long значения (0, если значение занимает один long)
+         */
+        V decode(long first, long second);
+    }
+
+    private final ValueCodec<V> codec;
+    private final int slotLongs;
+    private final OffHeapByteArena keys = new OffHeapByteArena();
+    private OffHeapLongArray table;
+    private long capacity = INITIAL_CAPACITY;
+    /**
+     * Таблица, из которой еще переносятся ячейки, или null
+     */
+    private OffHeapLongArray previousTable;
+    private long previousCapacity;
+    private long migratedSlots;
+    private int size;
+
+    public OffHeapKvsIndex(ValueCodec<V> codec) {
+        this.codec = codec;
+        this.slotLongs = VALUE + codec.valueLongs();
+        this.table = new OffHeapLongArray(INITIAL_CAPACITY * slotLongs);
+    }
+
+    @Override
+    public void onIndexedEntityUpdated(ObjectKey key, V value) {
+        byte[] keyBytes = key.getBytes();
+        long hash = key.hash64();
+        long slot = find(table, capacity, hash, keyBytes);
+        if (slot >= 0) {
+            storeValue(table, slot, value);
+        } else {
+            long previousSlot = previousTable == null ? -1 : find(previousTable, previousCapacity, hash, keyBytes);
+            if (previousSlot >= 0) {
+                storeValue(previousTable, previousSlot, value);
+            } else {
+                long newSlot = -slot - 1;
+                table.set(newSlot * slotLongs + HASH, hash);
+                table.set(newSlot * slotLongs + KEY, keys.append(keyBytes));
+                storeValue(table, newSlot, value);
+                size++;
+                if (previousTable == null && (long) size * 4 >= capacity * 3) {
+                    startResize();
+                }
+            }
+        }
+        migrateStep();
+    }
+
+    @Override
+    public Optional<V> searchForKey(ObjectKey key) {
+        byte[] keyBytes = key.getBytes();
+        long hash = key.hash64();
+        long slot = find(table, capacity, hash, keyBytes);
+        if (slot >= 0) {
+            return Optional.ofNullable(loadValue(table, slot));
+        }
+        if (previousTable != null) {
+            slot = find(previousTable, previousCapacity, hash, keyBytes);
+            if (slot >= 0) {
+                return Optional.ofNullable(loadValue(previousTable, slot));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean containsKey(ObjectKey key) {
+        byte[] keyBytes = key.getBytes();
+        long hash = key.hash64();
+        return find(table, capacity, hash, keyBytes) >= 0
+                || previousTable != null && find(previousTable, previousCapacity, hash, keyBytes) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super ObjectKey, ? super V> action) {
+        forEachSlot(table, 0, capacity, action);
+        if (previousTable != null) {
+            forEachSlot(previousTable, migratedSlots, previousCapacity, action);
+        }
+    }
+
+    /**
+     * @return номер ячейки с ключом или (-номер первой пустой ячейки - 1), если ключа в таблице нет
+     */
+    private long find(OffHeapLongArray slots, long slotCount, long hash, byte[] keyBytes) {
+        long mask = slotCount - 1;
+        long slot = hash & mask;
+        while (true) {
+            long keyRef = slots.get(slot * slotLongs + KEY);
+            if (keyRef == 0) {
+                return -slot - 1;
+            }
+            if (slots.get(slot * slotLongs + HASH) == hash && keys.equalsTo(keyRef, keyBytes)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void storeValue(OffHeapLongArray slots, long slot, V value) {
+        for (int part = 0; part < codec.valueLongs(); part++) {
+            slots.set(slot * slotLongs + VALUE + part, value == null ? NULL_VALUE : codec.encode(value, part));
+        }
+    }
+
+    private V loadValue(OffHeapLongArray slots, long slot) {
+        long first = slots.get(slot * slotLongs + VALUE);
+        if (first == NULL_VALUE) {
+            return null;
+        }
+        return codec.decode(first, codec.valueLongs() > 1 ? slots.get(slot * slotLongs + VALUE + 1) : 0);
+    }
+
+    private void startResize() {
+        previousTable = table;
+        previousCapacity = capacity;
+        migratedSlots = 0;
+        capacity *= 2;
+        table = new OffHeapLongArray(capacity * slotLongs);
+    }
+
+    /**
+     * Переносит несколько ячеек старой таблицы в новую. Ключ из старой таблицы не может уже быть в новой,
+     * потому что вставка нового ключа сначала ищет его в старой таблице
+     */
+    private void migrateStep() {
+        if (previousTable == null) {
+            return;
+        }
+        long mask = capacity - 1;
+        for (int i = 0; i < MIGRATION_STEP && migratedSlots < previousCapacity; i++, migratedSlots++) {
+            long base = migratedSlots * slotLongs;
+            if (previousTable.get(base + KEY) == 0) {
+                continue;
+            }
+            long hash = previousTable.get(base + HASH);
+            long slot = hash & mask;
+            while (table.get(slot * slotLongs + KEY) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            for (int part = 0; part < slotLongs; part++) {
+                table.set(slot * slotLongs + part, previousTable.get(base + part));
+            }
+        }
+        if (migratedSlots == previousCapacity) {
+            previousTable = null;
+        }
+    }
+
+    private void forEachSlot(OffHeapLongArray slots, long from, long to, BiConsumer<? super ObjectKey, ? super V> action) {
+        for (long slot = from; slot < to; slot++) {
+            long keyRef = slots.get(slot * slotLongs + KEY);
+            if (keyRef != 0) {
+                action.accept(ObjectKey.wrap(keys.get(keyRef)), loadValue(slots, slot));
+            }
+        }
+    }
+}
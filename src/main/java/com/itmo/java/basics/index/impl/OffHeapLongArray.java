@@ -0,0 +1,39 @@
+package com.itmo.java.basics.index.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Массив long вне кучи. Делится на блоки, поэтому не ограничен размером одного {@link ByteBuffer}.
+ * Память выделяется обнуленной и освобождается вместе с массивом сборщиком мусора
+ */
+final class OffHeapLongArray {
+    private static final int CHUNK_SHIFT = 24;
+    private static final int CHUNK_LENGTH = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_LENGTH - 1;
+
+    private final LongBuffer[] chunks;
+    private final long length;
+
+    OffHeapLongArray(long length) {
+        this.length = length;
+        this.chunks = new LongBuffer[(int) ((length + CHUNK_LENGTH - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long chunkLength = Math.min(CHUNK_LENGTH, length - ((long) i << CHUNK_SHIFT));
+            chunks[i] = ByteBuffer.allocateDirect((int) chunkLength * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    long get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+
+    void set(long index, long value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    long length() {
+        return length;
+    }
+}
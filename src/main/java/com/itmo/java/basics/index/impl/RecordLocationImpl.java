@@ -0,0 +1,31 @@
+package com.itmo.java.basics.index.impl;
+
+import com.itmo.java.basics.index.RecordLocation;
+import com.itmo.java.basics.logic.Segment;
+
+public class RecordLocationImpl implements RecordLocation {
+    private final Segment segment;
+    private final long offset;
+    private final int length;
+
+    public RecordLocationImpl(Segment segment, long offset, int length) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public Segment getSegment() {
+        return segment;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+}
@@ -1,6 +1,60 @@
 package com.itmo.java.basics.index.impl;
 
+import com.itmo.java.basics.config.IndexMode;
+import com.itmo.java.basics.index.KvsIndex;
 import com.itmo.java.basics.index.SegmentOffsetInfo;
+import com.itmo.java.basics.logic.ObjectKey;
 
-public class SegmentIndex extends MapBasedKvsIndex<String, SegmentOffsetInfo> {
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+public class SegmentIndex implements KvsIndex<ObjectKey, SegmentOffsetInfo> {
+    private final KvsIndex<ObjectKey, SegmentOffsetInfo> index;
+
+    public SegmentIndex() {
+        this(IndexMode.HEAP);
+    }
+
+    public SegmentIndex(IndexMode mode) {
+        if (mode == IndexMode.OFF_HEAP || mode == IndexMode.HASH_ONLY) {
+            index = new OffHeapKvsIndex<>(new OffHeapKvsIndex.ValueCodec<>() {
+                @Override
+                public long encode(SegmentOffsetInfo value, int part) {
+                    return value.getOffset();
+                }
+
+                @Override
+                public SegmentOffsetInfo decode(long first, long second) {
+                    return new SegmentOffsetInfoImpl(first);
+                }
+            });
+        } else {
+            index = new MapBasedKvsIndex<>();
+        }
+    }
+
+    @Override
+    public void onIndexedEntityUpdated(ObjectKey key, SegmentOffsetInfo value) {
+        index.onIndexedEntityUpdated(key, value);
+    }
+
+    @Override
+    public Optional<SegmentOffsetInfo> searchForKey(ObjectKey key) {
+        return index.searchForKey(key);
+    }
+
+    @Override
+    public boolean containsKey(ObjectKey key) {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super ObjectKey, ? super SegmentOffsetInfo> action) {
+        index.forEach(action);
+    }
 }
@@ -1,6 +1,322 @@
 package com.itmo.java.basics.index.impl;
 
+import com.itmo.java.basics.config.IndexLayout;
+import com.itmo.java.basics.config.IndexMode;
+import com.itmo.java.basics.index.KvsIndex;
+import com.itmo.java.basics.index.OrderedKvsIndex;
+import com.itmo.java.basics.index.RecordLocation;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.basics.logic.Segment;
 
-public class TableIndex extends MapBasedKvsIndex<String, Segment> {
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Индекс таблицы. При {@link IndexLayout#TWO_LEVEL} хранит сегмент ключа, при {@link IndexLayout#SINGLE_LEVEL} -
+ * положение записи ключа (сегмент, смещение и размер), так что чтение не обращается к индексу сегмента
+ */
+public class TableIndex implements KvsIndex<ObjectKey, Segment> {
+    /**
+     * В {@link IndexMode#HASH_ONLY} положение записи упаковывается в один long: номер сегмента и смещение
+     */
+    private static final int PACKED_OFFSET_BITS = 40;
+    private static final long MAX_PACKED_OFFSET = (1L << PACKED_OFFSET_BITS) - 1;
+    private static final long MAX_PACKED_SEGMENT_ID = (1L << (Long.SIZE - PACKED_OFFSET_BITS - 1)) - 1;
+    /**
+     * Порядок ключей при обходе: побайтово без знака, для строковых ключей - по кодовым точкам
+     */
+    public static final Comparator<ObjectKey> KEY_ORDER = Comparator.naturalOrder();
+    /**
+     * Сегменты ключей (только при {@link IndexLayout#TWO_LEVEL})
+     */
+    private final KvsIndex<ObjectKey, Segment> index;
+    /**
+     * Положения записей ключей (только при {@link IndexLayout#SINGLE_LEVEL})
+     */
+    private final KvsIndex<ObjectKey, RecordLocation> locations;
+    /**
+     * Номера сегментов, под которыми они хранятся во внекучевом индексе
+     */
+    private final Map<Segment, Integer> segmentIds = new IdentityHashMap<>();
+    private final List<Segment> segmentsById = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    /**
+     * Ключи неупорядоченного индекса со значением не null в порядке {@link #KEY_ORDER}.
+     * Строится при первом {@link #nextKeys}, до этого null: таблица без SCAN не хранит вторую копию ключей
+     */
+    private volatile NavigableSet<ObjectKey> orderedKeys;
+
+    public TableIndex() {
+        this(IndexMode.HEAP);
+    }
+
+    public TableIndex(IndexMode mode) {
+        this(mode, IndexLayout.TWO_LEVEL);
+    }
+
+    /**
+     * @param layout устройство индекса, при {@link IndexMode#HASH_ONLY} всегда одноуровневое
+     */
+    public TableIndex(IndexMode mode, IndexLayout layout) {
+        if (mode == IndexMode.HASH_ONLY) {
+            index = null;
+            locations = new HashOnlyKvsIndex<>(new OffHeapKvsIndex.ValueCodec<>() {
+                @Override
+                public long encode(RecordLocation value, int part) {
+                    long segmentId = segmentId(value.getSegment());
+                    if (segmentId > MAX_PACKED_SEGMENT_ID || value.getOffset() > MAX_PACKED_OFFSET) {
+                        throw new IllegalStateException("Record location does not fit into hash-only index: segment "
+                                + value.getSegment().getName() + ", offset " + value.getOffset());
+                    }
+                    return segmentId << PACKED_OFFSET_BITS | value.getOffset();
+                }
+
+                @Override
+                public RecordLocation decode(long first, long second) {
+                    return new RecordLocationImpl(segmentsById.get((int) (first >>> PACKED_OFFSET_BITS)), first & MAX_PACKED_OFFSET, 0);
+                }
+            }, location -> location.getSegment().readKey(location.getOffset()));
+        } else if (layout == IndexLayout.SINGLE_LEVEL) {
+            index = null;
+            locations = mode == IndexMode.OFF_HEAP ? new OffHeapKvsIndex<>(new OffHeapKvsIndex.ValueCodec<>() {
+                @Override
+                public int valueLongs() {
+                    return 2;
+                }
+
+                @Override
+                public long encode(RecordLocation value, int part) {
+                    return part == 0 ? value.getOffset() : (long) segmentId(value.getSegment()) << 32 | value.getLength();
+                }
+
+                @Override
+                public RecordLocation decode(long first, long second) {
+                    return new RecordLocationImpl(segmentsById.get((int) (second >>> 32)), first, (int) second);
+                }
+            }) : createOnHeapIndex(mode);
+        } else {
+            locations = null;
+            index = mode == IndexMode.OFF_HEAP ? new OffHeapKvsIndex<>(new OffHeapKvsIndex.ValueCodec<>() {
+                @Override
+                public long encode(Segment value, int part) {
+                    return segmentId(value);
+                }
+
+                @Override
+                public Segment decode(long first, long second) {
+                    return segmentsById.get((int) first);
+                }
+            }) : createOnHeapIndex(mode);
+        }
+    }
+
+    private static <V> KvsIndex<ObjectKey, V> createOnHeapIndex(IndexMode mode) {
+        if (mode == IndexMode.ART) {
+            return new ByteKeyIndex<>(new AdaptiveRadixTree<>());
+        }
+        return new MapBasedKvsIndex<>();
+    }
+
+    /**
+     * При {@link IndexLayout#SINGLE_LEVEL} сегмент без положения записи сохранить нельзя, допустимо только null
+     *
+     * @throws UnsupportedOperationException если индекс хранит положения записей, а сегмент не null
+     */
+    @Override
+    public void onIndexedEntityUpdated(ObjectKey key, Segment value) {
+        if (index != null) {
+            index.onIndexedEntityUpdated(key, value);
+        } else if (value == null) {
+            locations.onIndexedEntityUpdated(key, null);
+        } else {
+            throw new UnsupportedOperationException("Single-level table index needs record location for key " + key);
+        }
+        updateOrderedKeys(key, value != null);
+    }
+
+    /**
+     * Запоминает положение последней записи ключа. Двухуровневый индекс запоминает только сегмент,
+     * одноуровневый для отметки об удалении с неизвестным смещением запоминает null
+     */
+    public void onRecordLocated(ObjectKey key, RecordLocation location) {
+        boolean present;
+        if (index != null) {
+            index.onIndexedEntityUpdated(key, location.getSegment());
+            present = location.getSegment() != null;
+        } else {
+            present = location.getOffset() >= 0;
+            locations.onIndexedEntityUpdated(key, present ? location : null);
+        }
+        updateOrderedKeys(key, present);
+    }
+
+    private void updateOrderedKeys(ObjectKey key, boolean present) {
+        NavigableSet<ObjectKey> keys = orderedKeys;
+        if (keys == null) {
+            return;
+        }
+        if (present) {
+            keys.add(key);
+        } else {
+            keys.remove(key);
+        }
+    }
+
+    @Override
+    public Optional<Segment> searchForKey(ObjectKey key) {
+        if (index != null) {
+            return index.searchForKey(key);
+        }
+        return locations.searchForKey(key).map(RecordLocation::getSegment);
+    }
+
+    /**
+     * @return положение последней записи ключа. У двухуровневого индекса смещение неизвестно (-1)
+     */
+    public Optional<RecordLocation> searchForLocation(ObjectKey key) {
+        if (index != null) {
+            return index.searchForKey(key).map(segment -> new RecordLocationImpl(segment, -1, 0));
+        }
+        return locations.searchForKey(key);
+    }
+
+    @Override
+    public boolean containsKey(ObjectKey key) {
+        return index != null ? index.containsKey(key) : locations.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return index != null ? index.size() : locations.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super ObjectKey, ? super Segment> action) {
+        if (index != null) {
+            index.forEach(action);
+        } else {
+            locations.forEach((key, location) -> action.accept(key, location == null ? null : location.getSegment()));
+        }
+    }
+
+    /**
+     * Как {@link #forEach(BiConsumer)}, но с положениями записей (у двухуровневого индекса смещение неизвестно)
+     */
+    public void forEachLocation(BiConsumer<? super ObjectKey, ? super RecordLocation> action) {
+        if (index != null) {
+            index.forEach((key, segment) -> action.accept(key, segment == null ? null : new RecordLocationImpl(segment, -1, 0)));
+        } else {
+            locations.forEach(action);
+        }
+    }
+
+    /**
+     * Возвращает следующие по порядку {@link #KEY_ORDER} ключи индекса, значения которых не null.
+     * Ключ с отметкой об удалении в последнем сегменте тоже может попасть в результат.
+     * Упорядоченный индекс ({@link com.itmo.java.basics.config.IndexMode#ART}) обходится начиная с нужного ключа,
+     * для остальных при первом вызове один раз строится упорядоченная копия ключей, которую дальше поддерживают
+     * изменения индекса, так что страница не требует обхода всего индекса.
+     * Изменения индекса не должны идти параллельно с этим методом, а сам метод можно вызывать из нескольких потоков
+     *
+     * @param fromInclusive нижняя граница ключей (null - без границы)
+     * @param toExclusive   верхняя граница ключей (null - без границы)
+     * @param prefix        префикс ключей (пустой - любые ключи)
+     * @param limit         сколько ключей вернуть не больше
+     * @return ключи по возрастанию
+     */
+    public List<ObjectKey> nextKeys(ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) {
+        ObjectKey from = fromInclusive == null || fromInclusive.compareTo(prefix) < 0 ? prefix : fromInclusive;
+        List<ObjectKey> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        if (index instanceof OrderedKvsIndex) {
+            nextKeys((OrderedKvsIndex<ObjectKey, Segment>) index, from, toExclusive, prefix, limit, result);
+            return result;
+        }
+        if (locations instanceof OrderedKvsIndex) {
+            nextKeys((OrderedKvsIndex<ObjectKey, RecordLocation>) locations, from, toExclusive, prefix, limit, result);
+            return result;
+        }
+        for (ObjectKey key : orderedKeys().tailSet(from, true)) {
+            if (result.size() >= limit || !key.startsWith(prefix) || toExclusive != null && key.compareTo(toExclusive) >= 0) {
+                break;
+            }
+            result.add(key);
+        }
+        return result;
+    }
+
+    private static <V> void nextKeys(OrderedKvsIndex<ObjectKey, V> keys, ObjectKey from, ObjectKey toExclusive, ObjectKey prefix,
+                                     int limit, List<ObjectKey> result) {
+        keys.forEachFrom(from, (key, value) -> {
+            if (!key.startsWith(prefix) || toExclusive != null && key.compareTo(toExclusive) >= 0) {
+                return false;
+            }
+            if (value != null) {
+                result.add(key);
+            }
+            return result.size() < limit;
+        });
+    }
+
+    private NavigableSet<ObjectKey> orderedKeys() {
+        NavigableSet<ObjectKey> keys = orderedKeys;
+        if (keys == null) {
+            synchronized (this) {
+                keys = orderedKeys;
+                if (keys == null) {
+                    List<ObjectKey> present = new ArrayList<>(size());
+                    forEach((key, segment) -> {
+                        if (segment != null) {
+                            present.add(key);
+                        }
+                    });
+                    present.sort(KEY_ORDER);
+                    NavigableSet<ObjectKey> built = new TreeSet<>(KEY_ORDER);
+                    built.addAll(present);
+                    orderedKeys = keys = built;
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Освобождает номера удаленных сегментов. На них не должно остаться ссылок из индекса
+     */
+    public void releaseSegments(Collection<Segment> segments) {
+        for (Segment segment : segments) {
+            Integer id = segmentIds.remove(segment);
+            if (id != null) {
+                segmentsById.set(id, null);
+                freeIds.push(id);
+            }
+        }
+    }
+
+    private int segmentId(Segment segment) {
+        Integer id = segmentIds.get(segment);
+        if (id == null) {
+            if (freeIds.isEmpty()) {
+                id = segmentsById.size();
+                segmentsById.add(segment);
+            } else {
+                id = freeIds.pop();
+                segmentsById.set(id, segment);
+            }
+            segmentIds.put(segment, id);
+        }
+        return id;
+    }
 }
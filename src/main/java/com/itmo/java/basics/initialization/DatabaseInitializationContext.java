@@ -1,6 +1,7 @@
 package com.itmo.java.basics.initialization;
 
 import com.itmo.java.basics.logic.Table;
+import com.itmo.java.basics.logic.impl.GroupCommitWriter;
 
 import java.nio.file.Path;
 import java.util.Map;
@@ -34,4 +35,11 @@ public interface DatabaseInitializationContext {
      * @param table таблица, которую нужно добавить
      */
     void addTable(Table table);
+
+    /**
+     * Возвращает групповой сброс записей на диск, общий для всех таблиц инициализируемой базы данных.
+     *
+     * @return групповой сброс записей инициализируемой базы данных
+     */
+    GroupCommitWriter getCommitWriter();
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.itmo.java.basics.initialization;
 
 import com.itmo.java.basics.index.impl.SegmentIndex;
+import com.itmo.java.basics.logic.io.SegmentFormat;
 
 import java.nio.file.Path;
 
@@ -32,4 +33,11 @@ public interface SegmentInitializationContext {
      * @return текущий размер инициализируемого сегмента
      */
     long getCurrentSize();
+
+    /**
+     * Возвращает формат записей инициализируемого сегмента.
+     *
+     * @return формат записей инициализируемого сегмента
+     */
+    SegmentFormat getFormat();
 }
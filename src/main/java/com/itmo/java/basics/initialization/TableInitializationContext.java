@@ -1,9 +1,11 @@
 package com.itmo.java.basics.initialization;
 
+import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.logic.Segment;
 
 import java.nio.file.Path;
+import java.util.List;
 
 public interface TableInitializationContext {
     /**
@@ -40,4 +42,26 @@ public interface TableInitializationContext {
      * @param segment новый сегмент
      */
     void updateCurrentSegment(Segment segment);
+
+    /**
+     * Возвращает все сегменты, которые были активными на данном этапе инициализации, в порядке их создания.
+     *
+     * @return сегменты инициализируемой таблицы
+     */
+    List<Segment> getSegments();
+
+    /**
+     * Запоминает, что при инициализации файлы таблицы пришлось исправить с потерей данных
+     * (например, обрезать поврежденный хвост сегмента). Несколько таких ошибок объединяются в одну.
+     *
+     * @param failure описание исправления
+     */
+    void addRecoveryFailure(DatabaseException failure);
+
+    /**
+     * Возвращает ошибку, накопленную {@link #addRecoveryFailure(DatabaseException)}.
+     *
+     * @return ошибка восстановления таблицы или null, если файлы таблицы исправлять не пришлось
+     */
+    DatabaseException getRecoveryFailure();
 }
@@ -1,21 +1,29 @@
 package com.itmo.java.basics.initialization.impl;
 
+import com.itmo.java.basics.config.DatabaseConfig;
 import com.itmo.java.basics.initialization.DatabaseInitializationContext;
 import com.itmo.java.basics.logic.Table;
+import com.itmo.java.basics.logic.impl.GroupCommitWriter;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DatabaseInitializationContextImpl implements DatabaseInitializationContext {
     private String dbName;
     private Path databasePath;
-    private Map<String, Table> tables = new HashMap<>();
+    private Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final GroupCommitWriter commitWriter;
 
     public DatabaseInitializationContextImpl(String dbName, Path databaseRoot) {
+        this(dbName, databaseRoot, new GroupCommitWriter(new DatabaseConfig()));
+    }
+
+    public DatabaseInitializationContextImpl(String dbName, Path databaseRoot, GroupCommitWriter commitWriter) {
         this.dbName = dbName;
         this.databasePath = Paths.get(databaseRoot.toString(), dbName);
+        this.commitWriter = commitWriter;
     }
 
     @Override
@@ -37,4 +45,9 @@ public class DatabaseInitializationContextImpl implements DatabaseInitialization
     public void addTable(Table table) {
         tables.put(table.getName(), table);
     }
+
+    @Override
+    public GroupCommitWriter getCommitWriter() {
+        return commitWriter;
+    }
 }
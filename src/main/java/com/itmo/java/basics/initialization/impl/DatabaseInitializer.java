@@ -1,24 +1,42 @@
 package com.itmo.java.basics.initialization.impl;
 
+import com.itmo.java.basics.config.TableEngine;
+import com.itmo.java.basics.config.TableLoadingMode;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.InitializationContext;
 import com.itmo.java.basics.initialization.Initializer;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.Table;
 import com.itmo.java.basics.logic.impl.DatabaseImpl;
+import com.itmo.java.basics.logic.impl.LazyTable;
+import com.itmo.java.basics.logic.impl.SortedTable;
+import com.itmo.java.basics.logic.io.TableEngineFile;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 public class DatabaseInitializer implements Initializer {
     private TableInitializer tableInitializer;
+    private final TableWarmUp tableWarmUp = new TableWarmUp();
 
     public DatabaseInitializer(TableInitializer tableInitializer) {
         this.tableInitializer = tableInitializer;
     }
 
+    /**
+     * Запускает фоновую загрузку таблиц, зарегистрированных лениво с момента прошлого вызова
+     */
+    public void startTableWarmUp() {
+        tableWarmUp.start();
+    }
+
     /**
      * Добавляет в контекст информацию об инициализируемой бд.
-     * Запускает инициализацию всех таблиц это базы
+     * Запускает инициализацию всех таблиц это базы (таблицы независимы, поэтому могут инициализироваться параллельно).
+     * В ленивом режиме только регистрирует таблицы, а индексирует их при первом обращении или при прогреве
      *
      * @param initialContext контекст с информацией об инициализируемой бд и об окружении
      * @throws DatabaseException если в контексте лежит неправильный путь к базе, невозможно прочитать содержимого папки,
@@ -31,20 +49,66 @@ public class DatabaseInitializer implements Initializer {
             throw new DatabaseException("Context has incorrect path to database");
         }
         try {
-            File[] directories = databaseDir.listFiles(File::isDirectory);
-            for (File directory : directories) {
-                TableInitializationContextImpl tableContext = new TableInitializationContextImpl(directory.getName(),
-                        initialContext.currentDbContext().getDatabasePath(), new TableIndex());
-                InitializationContextImpl newContext = InitializationContextImpl.builder()
-                        .executionEnvironment(initialContext.executionEnvironment())
-                        .currentDatabaseContext(initialContext.currentDbContext())
-                        .currentTableContext(tableContext).build();
-                tableInitializer.perform(newContext);
+            List<File> directories = Arrays.asList(databaseDir.listFiles(File::isDirectory));
+            if (initialContext.executionEnvironment().getDatabaseConfig().getTableLoadingMode() == TableLoadingMode.LAZY) {
+                for (File directory : directories) {
+                    LazyTable table = new LazyTable(directory.getName(),
+                            () -> initializeTable(initialContext, directory), tableWarmUp.getLoadExecutor());
+                    initialContext.currentDbContext().addTable(table);
+                    tableWarmUp.add(table, lastModified(directory));
+                }
+            } else {
+                ParallelInitialization.forEach(directories,
+                        directory -> initialContext.currentDbContext().addTable(initializeTable(initialContext, directory)));
             }
-            Database database = DatabaseImpl.initializeFromContext(initialContext.currentDbContext());
+            Database database = DatabaseImpl.initializeFromContext(initialContext.currentDbContext(),
+                    initialContext.executionEnvironment().getDatabaseConfig());
             initialContext.executionEnvironment().addDatabase(database);
         } catch (SecurityException e) {
             throw new DatabaseException("Can not read content of directory " + databaseDir.getAbsolutePath(), e);
         }
     }
+
+    /**
+     * Открывает таблицу тем способом хранения, который отмечен в ее директории
+     */
+    private Table initializeTable(InitializationContext initialContext, File directory) throws DatabaseException {
+        TableEngine engine;
+        try {
+            engine = TableEngineFile.read(directory.toPath());
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when reading engine of table " + directory.getName(), e);
+        }
+        if (engine == TableEngine.SSTABLE) {
+            return SortedTable.initialize(directory.getName(), initialContext.currentDbContext().getDatabasePath(),
+                    initialContext.executionEnvironment().getDatabaseConfig(),
+                    initialContext.currentDbContext().getCommitWriter());
+        }
+        return tableInitializer.initializeTable(createTableContext(initialContext, directory));
+    }
+
+    private static InitializationContext createTableContext(InitializationContext initialContext, File directory) {
+        TableInitializationContextImpl tableContext = new TableInitializationContextImpl(directory.getName(),
+                initialContext.currentDbContext().getDatabasePath(),
+                new TableIndex(initialContext.executionEnvironment().getDatabaseConfig().getIndexMode(),
+                        initialContext.executionEnvironment().getDatabaseConfig().getIndexLayout()));
+        return InitializationContextImpl.builder()
+                .executionEnvironment(initialContext.executionEnvironment())
+                .currentDatabaseContext(initialContext.currentDbContext())
+                .currentTableContext(tableContext).build();
+    }
+
+    /**
+     * @return время последнего изменения сегментов таблицы
+     */
+    private static long lastModified(File tableDir) {
+        long lastModified = tableDir.lastModified();
+        File[] files = tableDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                lastModified = Math.max(lastModified, file.lastModified());
+            }
+        }
+        return lastModified;
+    }
 }
@@ -3,9 +3,12 @@ package com.itmo.java.basics.initialization.impl;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.initialization.InitializationContext;
 import com.itmo.java.basics.initialization.Initializer;
+import com.itmo.java.basics.logic.impl.GroupCommitWriter;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 
 public class DatabaseServerInitializer implements Initializer {
     private DatabaseInitializer databaseInitializer;
@@ -17,6 +20,7 @@ public class DatabaseServerInitializer implements Initializer {
     /**
      * Если заданная в окружении директория не существует - создает ее
      * Добавляет информацию о существующих в директории базах, нацинает их инициалиализацию
+     * (параллельно, если в конфиге задан initializationParallelism больше 1)
      *
      * @param context контекст, содержащий информацию об окружении
      * @throws DatabaseException если произошла ошибка при создании директории, ее обходе или ошибка инициализации бд
@@ -30,13 +34,16 @@ public class DatabaseServerInitializer implements Initializer {
                 throw new DatabaseException("Exception when create directory of execution environment");
             }
         }
-        File[] directories = workingDir.listFiles(File::isDirectory);
-        for (File directory : directories) {
-            DatabaseInitializationContextImpl databaseContext = new DatabaseInitializationContextImpl(directory.getName(), workingPath);
-            InitializationContextImpl newContext = InitializationContextImpl.builder()
-                    .currentDatabaseContext(databaseContext)
-                    .executionEnvironment(context.executionEnvironment()).build();
-            databaseInitializer.perform(newContext);
-        }
+        List<File> directories = Arrays.asList(workingDir.listFiles(File::isDirectory));
+        ParallelInitialization.run(context.executionEnvironment().getDatabaseConfig().getInitializationParallelism(),
+                () -> ParallelInitialization.forEach(directories, directory -> {
+                    DatabaseInitializationContextImpl databaseContext = new DatabaseInitializationContextImpl(directory.getName(), workingPath,
+                            new GroupCommitWriter(context.executionEnvironment().getDatabaseConfig()));
+                    InitializationContextImpl newContext = InitializationContextImpl.builder()
+                            .currentDatabaseContext(databaseContext)
+                            .executionEnvironment(context.executionEnvironment()).build();
+                    databaseInitializer.perform(newContext);
+                }));
+        databaseInitializer.startTableWarmUp();
     }
 }
@@ -0,0 +1,121 @@
+package com.itmo.java.basics.initialization.impl;
+
+import com.itmo.java.basics.exceptions.DatabaseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Параллельный обход баз, таблиц и сегментов при инициализации.
+ * Шаги распараллеливаются, только если инициализация запущена через {@link #run(int, Action)} с parallelism > 1,
+ * иначе выполняются последовательно в текущем потоке
+ */
+final class ParallelInitialization {
+
+    @FunctionalInterface
+    interface Action {
+        void perform() throws DatabaseException;
+    }
+
+    @FunctionalInterface
+    interface ItemAction<T> {
+        void perform(T item) throws DatabaseException;
+    }
+
+    @FunctionalInterface
+    interface Step<T, R> {
+        R apply(T item) throws DatabaseException;
+    }
+
+    private ParallelInitialization() {
+    }
+
+    /**
+     * Выполняет действие в отдельном fork/join пуле из parallelism потоков (или в текущем потоке, если parallelism <= 1)
+     */
+    static void run(int parallelism, Action action) throws DatabaseException {
+        if (parallelism <= 1) {
+            action.perform();
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            DatabaseException exception = pool.submit(() -> {
+                try {
+                    action.perform();
+                    return null;
+                } catch (DatabaseException e) {
+                    return e;
+                }
+            }).get();
+            if (exception != null) {
+                throw exception;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseException("Initialization was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new DatabaseException("Exception when initialize in parallel", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Применяет шаг к каждому элементу. Внутри пула из {@link #run(int, Action)} - параллельно
+     *
+     * @return результаты в порядке исходных элементов
+     * @throws DatabaseException первая (по порядку элементов) ошибка шагов
+     */
+    static <T, R> List<R> map(List<T> items, Step<T, R> step) throws DatabaseException {
+        List<R> results = new ArrayList<>(items.size());
+        if (items.size() < 2 || !ForkJoinTask.inForkJoinPool() || ForkJoinTask.getPool() == ForkJoinPool.commonPool()) {
+            for (T item : items) {
+                results.add(step.apply(item));
+            }
+            return results;
+        }
+        List<ForkJoinTask<Object>> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            tasks.add(ForkJoinTask.adapt(() -> {
+                try {
+                    return step.apply(item);
+                } catch (DatabaseException e) {
+                    return new StepFailure(e);
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        for (ForkJoinTask<Object> task : tasks) {
+            Object result = task.join();
+            if (result instanceof StepFailure) {
+                throw ((StepFailure) result).exception;
+            }
+            @SuppressWarnings("unchecked")
+            R typedResult = (R) result;
+            results.add(typedResult);
+        }
+        return results;
+    }
+
+    /**
+     * Применяет шаг к каждому элементу. Внутри пула из {@link #run(int, Action)} - параллельно
+     */
+    static <T> void forEach(List<T> items, ItemAction<T> action) throws DatabaseException {
+        map(items, item -> {
+            action.perform(item);
+            return null;
+        });
+    }
+
+    private static final class StepFailure {
+        private final DatabaseException exception;
+
+        private StepFailure(DatabaseException exception) {
+            this.exception = exception;
+        }
+    }
+}
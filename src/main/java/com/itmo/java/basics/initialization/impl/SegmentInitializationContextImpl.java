@@ -2,6 +2,7 @@ package com.itmo.java.basics.initialization.impl;
 
 import com.itmo.java.basics.index.impl.SegmentIndex;
 import com.itmo.java.basics.initialization.SegmentInitializationContext;
+import com.itmo.java.basics.logic.io.SegmentFormat;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -9,17 +10,24 @@ import java.nio.file.Paths;
 public class SegmentInitializationContextImpl implements SegmentInitializationContext {
     private String segmentName;
     private Path segmentPath;
-    private int currentSize;
+    private long currentSize;
     private SegmentIndex index;
+    private SegmentFormat format;
 
-    public SegmentInitializationContextImpl(String segmentName, Path segmentPath, int currentSize, SegmentIndex index) {
+    public SegmentInitializationContextImpl(String segmentName, Path segmentPath, long currentSize, SegmentIndex index,
+                                            SegmentFormat format) {
         this.segmentName = segmentName;
         this.segmentPath = segmentPath;
         this.currentSize = currentSize;
         this.index = index;
+        this.format = format;
     }
 
-    public SegmentInitializationContextImpl(String segmentName, Path tablePath, int currentSize) {
+    public SegmentInitializationContextImpl(String segmentName, Path segmentPath, long currentSize, SegmentIndex index) {
+        this(segmentName, segmentPath, currentSize, index, SegmentFormat.LEGACY);
+    }
+
+    public SegmentInitializationContextImpl(String segmentName, Path tablePath, long currentSize) {
         this(segmentName, Paths.get(String.valueOf(tablePath), segmentName), currentSize, null);
     }
 
@@ -42,4 +50,9 @@ public class SegmentInitializationContextImpl implements SegmentInitializationCo
     public long getCurrentSize() {
         return currentSize;
     }
+
+    @Override
+    public SegmentFormat getFormat() {
+        return format;
+    }
 }
@@ -1,29 +1,36 @@
 package com.itmo.java.basics.initialization.impl;
 
+import com.itmo.java.basics.config.IndexMode;
 import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.index.impl.RecordLocationImpl;
 import com.itmo.java.basics.index.impl.SegmentIndex;
 import com.itmo.java.basics.index.impl.SegmentOffsetInfoImpl;
 import com.itmo.java.basics.initialization.InitializationContext;
 import com.itmo.java.basics.initialization.Initializer;
-import com.itmo.java.basics.logic.DatabaseRecord;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.basics.logic.Segment;
 import com.itmo.java.basics.logic.impl.SegmentImpl;
-import com.itmo.java.basics.logic.io.DatabaseInputStream;
+import com.itmo.java.basics.logic.io.SegmentFormat;
+import com.itmo.java.basics.logic.io.SegmentHintFile;
+import com.itmo.java.basics.logic.io.SegmentScanner;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Optional;
+import java.nio.file.StandardOpenOption;
 
 
 public class SegmentInitializer implements Initializer {
+    private static final int PREALLOCATED_CHECK_SIZE = 4096;
 
     /**
      * Добавляет в контекст информацию об инициализируемом сегменте.
-     * Составляет индекс сегмента
+     * Составляет индекс сегмента: по файлу-подсказке, если он есть и не поврежден, иначе - просмотром всех записей сегмента.
+     * Если конец сегмента недописан или не сходится контрольная сумма записи, сегмент обрезается перед этой записью,
+     * а таблица запоминает это и сообщает следующей команде
      * Обновляет инфу в индексе таблицы
      *
      * @param context контекст с информацией об инициализируемой бд и об окружении
@@ -31,33 +38,116 @@ public class SegmentInitializer implements Initializer {
      */
     @Override
     public void perform(InitializationContext context) throws DatabaseException {
+        register(context, load(context));
+    }
+
+    /**
+     * Составляет индекс сегмента, не меняя контекст таблицы (поэтому сегменты таблицы можно загружать параллельно)
+     *
+     * @param context контекст с информацией об инициализируемом сегменте
+     * @return сегмент и его индекс
+     * @throws DatabaseException если невозможно прочитать содержимое сегмента
+     */
+    LoadedSegment load(InitializationContext context) throws DatabaseException {
         Path pathToSegment = context.currentSegmentContext().getSegmentPath();
+        IndexMode indexMode = context.executionEnvironment().getDatabaseConfig().getIndexMode();
+        SegmentIndex hintIndex = new SegmentIndex(indexMode);
+        SegmentIndex segmentIndex = hintIndex;
+        SegmentFormat format;
+        long currentSize;
+        DatabaseException damagedTail = null;
         try {
-            FileInputStream segmentInput = new FileInputStream(pathToSegment.toString());
-            try (DatabaseInputStream inputStream = new DatabaseInputStream(segmentInput)) {
-                SegmentIndex segmentIndex = new SegmentIndex();
-                long currentSize = context.currentSegmentContext().getCurrentSize();
-                ArrayList<String> keyList = new ArrayList<String>();
-                Optional<DatabaseRecord> dbUnit = inputStream.readDbUnit();
-                while (dbUnit.isPresent()) {
-                    segmentIndex.onIndexedEntityUpdated(new String(dbUnit.get().getKey(), StandardCharsets.UTF_8),
-                            new SegmentOffsetInfoImpl(currentSize));
-                    keyList.add(new String(dbUnit.get().getKey(), StandardCharsets.UTF_8));
-                    currentSize += dbUnit.get().size();
-                    dbUnit = inputStream.readDbUnit();
+            currentSize = Files.size(pathToSegment);
+            boolean hintLoaded = SegmentHintFile.read(pathToSegment, currentSize, (key, offset, removed) ->
+                    hintIndex.onIndexedEntityUpdated(key, removed ? null : new SegmentOffsetInfoImpl(offset)));
+            if (hintLoaded) {
+                try (FileChannel channel = FileChannel.open(pathToSegment, StandardOpenOption.READ)) {
+                    format = SegmentFormat.detect(channel);
                 }
-                SegmentInitializationContextImpl segmentContext = new SegmentInitializationContextImpl(context.currentSegmentContext().getSegmentName(),
-                        context.currentSegmentContext().getSegmentPath(), (int) currentSize, segmentIndex);
-                Segment segment = SegmentImpl.initializeFromContext(segmentContext);
-                context.currentTableContext().updateCurrentSegment(segment);
-                for (String key : keyList) {
-                    context.currentTableContext().getTableIndex().onIndexedEntityUpdated(key, segment);
+            } else {
+                SegmentHintFile.delete(pathToSegment);
+                SegmentIndex scannedIndex = new SegmentIndex(indexMode);
+                SegmentScanner.Result result = SegmentScanner.scan(pathToSegment, (keyBytes, keyOffset, keyLength, recordOffset, removed) ->
+                        scannedIndex.onIndexedEntityUpdated(ObjectKey.copyOf(keyBytes, keyOffset, keyLength),
+                                removed ? null : new SegmentOffsetInfoImpl(recordOffset)));
+                if (result.getValidSize() < currentSize) {
+                    if (!isPreallocatedTail(pathToSegment, result.getValidSize())) {
+                        truncate(pathToSegment, result.getValidSize());
+                        damagedTail = new DatabaseException("Segment " + pathToSegment + " has a damaged record at offset "
+                                + result.getValidSize() + ", the segment was truncated there");
+                    }
+                    currentSize = result.getValidSize();
                 }
-            } catch (IOException e) {
-                throw new DatabaseException("IOException when read segment " + context.currentSegmentContext().getSegmentName());
+                format = result.getFormat();
+                segmentIndex = scannedIndex;
             }
-        } catch (FileNotFoundException e) {
-            throw new DatabaseException("FileNotFoundException when try to read file " + pathToSegment, e);
+        } catch (NoSuchFileException e) {
+            throw new DatabaseException("NoSuchFileException when try to read file " + pathToSegment, e);
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when read segment " + context.currentSegmentContext().getSegmentName(), e);
+        }
+        SegmentInitializationContextImpl segmentContext = new SegmentInitializationContextImpl(context.currentSegmentContext().getSegmentName(),
+                context.currentSegmentContext().getSegmentPath(), currentSize, segmentIndex, format);
+        Segment segment = SegmentImpl.initializeFromContext(segmentContext,
+                context.executionEnvironment().getDatabaseConfig(), context.currentDbContext().getCommitWriter());
+        return new LoadedSegment(segment, segmentIndex, damagedTail);
+    }
+
+    /**
+     * @return true, если после целых записей идет только заранее выделенное (заполненное нулями) место
+     */
+    private static boolean isPreallocatedTail(Path pathToSegment, long validSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathToSegment, StandardOpenOption.READ)) {
+            ByteBuffer tail = ByteBuffer.allocate(PREALLOCATED_CHECK_SIZE);
+            int read;
+            do {
+                read = channel.read(tail, validSize + tail.position());
+            } while (read > 0 && tail.hasRemaining());
+            for (int i = 0; i < tail.position(); i++) {
+                if (tail.get(i) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Отрезает недописанный или поврежденный (например, при падении посреди записи) хвост сегмента
+     */
+    private static void truncate(Path pathToSegment, long validSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathToSegment, StandardOpenOption.WRITE)) {
+            channel.truncate(validSize);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Добавляет загруженный сегмент в контекст таблицы и обновляет индекс таблицы его ключами.
+     * Размер восстановленных записей неизвестен, у отметок об удалении из подсказки неизвестно и смещение
+     */
+    void register(InitializationContext context, LoadedSegment loadedSegment) {
+        context.currentTableContext().updateCurrentSegment(loadedSegment.segment);
+        if (loadedSegment.damagedTail != null) {
+            context.currentTableContext().addRecoveryFailure(loadedSegment.damagedTail);
+        }
+        loadedSegment.segmentIndex.forEach((key, offsetInfo) ->
+                context.currentTableContext().getTableIndex().onRecordLocated(key,
+                        new RecordLocationImpl(loadedSegment.segment, offsetInfo == null ? -1 : offsetInfo.getOffset(), 0)));
+    }
+
+    static final class LoadedSegment {
+        private final Segment segment;
+        private final SegmentIndex segmentIndex;
+        /**
+         * Что было обрезано в конце сегмента при загрузке (null, если сегмент целый)
+         */
+        private final DatabaseException damagedTail;
+
+        private LoadedSegment(Segment segment, SegmentIndex segmentIndex, DatabaseException damagedTail) {
+            this.segment = segment;
+            this.segmentIndex = segmentIndex;
+            this.damagedTail = damagedTail;
         }
     }
 }
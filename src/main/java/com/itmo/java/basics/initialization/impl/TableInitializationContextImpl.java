@@ -1,17 +1,22 @@
 package com.itmo.java.basics.initialization.impl;
 
+import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.TableInitializationContext;
 import com.itmo.java.basics.logic.Segment;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TableInitializationContextImpl implements TableInitializationContext {
     private String tableName;
     private Path databasePath;
     private TableIndex tableIndex;
     private Segment curSegment;
+    private final List<Segment> segments = new ArrayList<>();
+    private DatabaseException recoveryFailure;
 
     public TableInitializationContextImpl(String tableName, Path databasePath, TableIndex tableIndex) {
         this.tableName = tableName;
@@ -42,5 +47,25 @@ public class TableInitializationContextImpl implements TableInitializationContex
     @Override
     public void updateCurrentSegment(Segment segment) {
         this.curSegment = segment;
+        this.segments.add(segment);
+    }
+
+    @Override
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    @Override
+    public void addRecoveryFailure(DatabaseException failure) {
+        if (recoveryFailure == null) {
+            recoveryFailure = failure;
+        } else {
+            recoveryFailure.addSuppressed(failure);
+        }
+    }
+
+    @Override
+    public DatabaseException getRecoveryFailure() {
+        return recoveryFailure;
     }
 }
\ No newline at end of file
@@ -5,9 +5,14 @@ import com.itmo.java.basics.initialization.InitializationContext;
 import com.itmo.java.basics.initialization.Initializer;
 import com.itmo.java.basics.logic.Table;
 import com.itmo.java.basics.logic.impl.TableImpl;
+import com.itmo.java.basics.logic.io.SegmentFilterFile;
+import com.itmo.java.basics.logic.io.SegmentHintFile;
+import com.itmo.java.basics.logic.io.WriteAheadLog;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class TableInitializer implements Initializer {
     private SegmentInitializer segmentInitializer;
@@ -18,7 +23,8 @@ public class TableInitializer implements Initializer {
 
     /**
      * Добавляет в контекст информацию об инициализируемой таблице.
-     * Запускает инициализацию всех сегментов в порядке их создания (из имени)
+     * Запускает инициализацию всех сегментов: индексы сегментов могут строиться параллельно,
+     * но в таблицу сегменты добавляются в порядке их создания (из имени), чтобы более поздняя запись перекрывала раннюю
      *
      * @param context контекст с информацией об инициализируемой бд, окружении, таблицы
      * @throws DatabaseException если в контексте лежит неправильный путь к таблице, невозможно прочитать содержимого папки,
@@ -26,25 +32,44 @@ public class TableInitializer implements Initializer {
      */
     @Override
     public void perform(InitializationContext context) throws DatabaseException {
+        context.currentDbContext().addTable(initializeTable(context));
+    }
+
+    /**
+     * Индексирует сегменты таблицы, не добавляя ее в контекст базы
+     *
+     * @param context контекст с информацией об инициализируемой бд, окружении, таблицы
+     * @return проиндексированная таблица
+     * @throws DatabaseException если в контексте лежит неправильный путь к таблице, невозможно прочитать содержимого папки,
+     *                           или если возникла ошибка ошибка дочерних инициализаторов
+     */
+    Table initializeTable(InitializationContext context) throws DatabaseException {
         File tableDir = new File(String.valueOf(context.currentTableContext().getTablePath()));
         if (!tableDir.exists()) {
             throw new DatabaseException("Context has incorrect path to table");
         }
         try {
-            File[] files = tableDir.listFiles();
+            File[] files = tableDir.listFiles(file ->
+                    !SegmentHintFile.isHintFile(file.getName()) && !SegmentFilterFile.isFilterFile(file.getName())
+                            && !WriteAheadLog.isLogFile(file.getName()));
             Arrays.sort(files);
+            List<InitializationContext> segmentContexts = new ArrayList<>(files.length);
             for (File file : files) {
                 SegmentInitializationContextImpl segmentContext = new SegmentInitializationContextImpl(file.getName(),
                         context.currentTableContext().getTablePath(), 0);
-                InitializationContextImpl newContext = InitializationContextImpl.builder()
+                segmentContexts.add(InitializationContextImpl.builder()
                         .executionEnvironment(context.executionEnvironment())
                         .currentDatabaseContext(context.currentDbContext())
                         .currentTableContext(context.currentTableContext())
-                        .currentSegmentContext(segmentContext).build();
-                segmentInitializer.perform(newContext);
+                        .currentSegmentContext(segmentContext).build());
+            }
+            List<SegmentInitializer.LoadedSegment> loadedSegments =
+                    ParallelInitialization.map(segmentContexts, segmentInitializer::load);
+            for (int i = 0; i < segmentContexts.size(); i++) {
+                segmentInitializer.register(segmentContexts.get(i), loadedSegments.get(i));
             }
-            Table table = TableImpl.initializeFromContext(context.currentTableContext());
-            context.currentDbContext().addTable(table);
+            return TableImpl.initializeFromContext(context.currentTableContext(),
+                    context.executionEnvironment().getDatabaseConfig(), context.currentDbContext().getCommitWriter());
         } catch (SecurityException e) {
             throw new DatabaseException("Can not read content of directory " + tableDir.getAbsolutePath(), e);
         }
@@ -0,0 +1,69 @@
+package com.itmo.java.basics.initialization.impl;
+
+import com.itmo.java.basics.logic.impl.LazyTable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Фоновый прогрев лениво загружаемых таблиц.
+ * Таблицы загружаются по убыванию приоритета (времени последнего изменения их сегментов), то есть сначала самые свежие.
+ * Таблицу, к которой обратились до прогрева, загружает отдельный поток из {@link #getLoadExecutor()},
+ * не дожидаясь очереди прогрева
+ */
+class TableWarmUp {
+    private final List<PendingTable> pendingTables = new ArrayList<>();
+    private final ExecutorService loadExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "table-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @return исполнитель, в котором таблицы загружаются при первом обращении
+     */
+    Executor getLoadExecutor() {
+        return loadExecutor;
+    }
+
+    /**
+     * Добавляет таблицу в очередь прогрева
+     */
+    synchronized void add(LazyTable table, long priority) {
+        pendingTables.add(new PendingTable(table, priority));
+    }
+
+    /**
+     * Запускает поток, загружающий все добавленные таблицы, и очищает очередь.
+     * Ошибка загрузки таблицы остается в таблице и сообщается при обращении к ней
+     */
+    synchronized void start() {
+        if (pendingTables.isEmpty()) {
+            return;
+        }
+        List<PendingTable> tables = new ArrayList<>(pendingTables);
+        pendingTables.clear();
+        tables.sort(Comparator.comparingLong((PendingTable pendingTable) -> pendingTable.priority).reversed());
+        Thread thread = new Thread(() -> {
+            for (PendingTable pendingTable : tables) {
+                pendingTable.table.warmUp();
+            }
+        }, "table-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static final class PendingTable {
+        private final LazyTable table;
+        private final long priority;
+
+        private PendingTable(LazyTable table, long priority) {
+            this.table = table;
+            this.priority = priority;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.itmo.java.basics.logic;
 
+import com.itmo.java.basics.config.TableEngine;
 import com.itmo.java.basics.exceptions.DatabaseException;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface Database {
     /**
@@ -20,6 +23,15 @@ public interface Database {
      */
     void createTableIfNotExists(String tableName) throws DatabaseException;
 
+    /**
+     * Создает таблицу с указанным именем и способом хранения, если это имя еще не занято.
+     *
+     * @param tableName имя таблицы
+     * @param engine    способ хранения таблицы
+     * @throws DatabaseException если таблица с данным именем уже существует или если произошла ошибка ввода-вывода
+     */
+    void createTableIfNotExists(String tableName, TableEngine engine) throws DatabaseException;
+
     /**
      * Записывает значение в указанную таблицу по переданному ключу.
      *
@@ -28,7 +40,7 @@ public interface Database {
      * @param objectValue значение, которое нужно записать
      * @throws DatabaseException если указанная таблица не была найдена или если произошла ошибка ввода-вывода
      */
-    void write(String tableName, String objectKey, byte[] objectValue) throws DatabaseException;
+    void write(String tableName, ObjectKey objectKey, byte[] objectValue) throws DatabaseException;
 
     /**
      * Считывает значение из указанной таблицы по заданному ключу.
@@ -38,7 +50,33 @@ public interface Database {
      * @return значение, которое находится по ключу
      * @throws DatabaseException если не была найдена указанная таблица, или произошла ошибка ввода-вывода
      */
-    Optional<byte[]> read(String tableName, String objectKey) throws DatabaseException;
+    Optional<byte[]> read(String tableName, ObjectKey objectKey) throws DatabaseException;
+
+    void delete(String tableName, ObjectKey objectKey) throws DatabaseException;
 
-    void delete(String tableName, String objectKey) throws DatabaseException;
+    /**
+     * Возвращает страницу ключей указанной таблицы со значениями (см {@link Table#scan(ObjectKey, ObjectKey, ObjectKey, int)}).
+     *
+     * @param tableName таблица, ключи которой нужно обойти
+     * @throws DatabaseException если не была найдена указанная таблица, или произошла ошибка ввода-вывода
+     */
+    Map<ObjectKey, byte[]> scan(String tableName, ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) throws DatabaseException;
+
+    /**
+     * Начинает загрузку таблицы, если она загружается лениво и еще не загружена.
+     *
+     * @param tableName таблица, к которой будет обращение
+     * @return future, которое завершается, когда к таблице можно обращаться без ожидания загрузки.
+     * Ошибка загрузки сообщается при обращении к таблице. Завершенное future, если таблица загружена или ее нет
+     */
+    default CompletableFuture<Void> loadTable(String tableName) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Закрывает все таблицы базы данных.
+     *
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    void close() throws DatabaseException;
 }
\ No newline at end of file
@@ -1,9 +1,9 @@
 package com.itmo.java.basics.logic;
 
 public interface DatabaseCache {
-    byte[] get(String key);
+    byte[] get(ObjectKey key);
 
-    void set(String key, byte[] value);
+    void set(ObjectKey key, byte[] value);
 
-    void delete(String key);
+    void delete(ObjectKey key);
 }
@@ -0,0 +1,137 @@
+package com.itmo.java.basics.logic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Ключ записи - неизменяемая последовательность байтов (для строковых ключей - UTF-8).
+ * <p>
+ * Ключ приходит байтами из протокола и в том же виде пишется на диск и хранится в индексах, так что на пути
+ * запроса он не перекодируется. 64-битный хеш считается один раз при создании ключа. Ключи сравниваются
+ * побайтово без знака: для UTF-8 это порядок кодовых точек
+ */
+public final class ObjectKey implements Comparable<ObjectKey> {
+    /**
+     * Пустой ключ - префикс любого ключа
+     */
+    public static final ObjectKey EMPTY = new ObjectKey(new byte[0]);
+
+    private final byte[] bytes;
+    private final long hash;
+    /**
+     * Строковое представление, декодируется при первом обращении
+     */
+    private String string;
+
+    private ObjectKey(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = hash(bytes);
+    }
+
+    /**
+     * @return ключ из байтов UTF-8 строки
+     */
+    public static ObjectKey of(String key) {
+        ObjectKey objectKey = new ObjectKey(key.getBytes(StandardCharsets.UTF_8));
+        objectKey.string = key;
+        return objectKey;
+    }
+
+    /**
+     * Создает ключ без копирования массива. Массив после этого изменять нельзя
+     */
+    public static ObjectKey wrap(byte[] bytes) {
+        return new ObjectKey(bytes);
+    }
+
+    /**
+     * @return ключ из копии части массива
+     */
+    public static ObjectKey copyOf(byte[] bytes, int offset, int length) {
+        return new ObjectKey(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    /**
+     * @return байты ключа. Массив не копируется, изменять его нельзя
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return длина ключа в байтах
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * @return 64-битный хеш байтов ключа (FNV-1a с перемешиванием из MurmurHash3)
+     */
+    public long hash64() {
+        return hash;
+    }
+
+    /**
+     * @return {@code true} - если ключ начинается с байтов префикса
+     */
+    public boolean startsWith(ObjectKey prefix) {
+        return prefix.bytes.length <= bytes.length
+                && Arrays.equals(bytes, 0, prefix.bytes.length, prefix.bytes, 0, prefix.bytes.length);
+    }
+
+    /**
+     * @return наименьший ключ, который больше этого
+     */
+    public ObjectKey successor() {
+        return new ObjectKey(Arrays.copyOf(bytes, bytes.length + 1));
+    }
+
+    @Override
+    public int compareTo(ObjectKey other) {
+        return Arrays.compareUnsigned(bytes, other.bytes);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ObjectKey)) {
+            return false;
+        }
+        ObjectKey otherKey = (ObjectKey) other;
+        return hash == otherKey.hash && Arrays.equals(bytes, otherKey.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * @return ключ, декодированный из UTF-8
+     */
+    @Override
+    public String toString() {
+        String decoded = string;
+        if (decoded == null) {
+            decoded = new String(bytes, StandardCharsets.UTF_8);
+            string = decoded;
+        }
+        return decoded;
+    }
+
+    private static long hash(byte[] bytes) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte keyByte : bytes) {
+            hash = (hash ^ (keyByte & 0xFF)) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,5 +1,7 @@
 package com.itmo.java.basics.logic;
 
+import com.itmo.java.basics.index.RecordLocation;
+
 import java.io.IOException;
 import java.util.Optional;
 
@@ -26,7 +28,17 @@ public interface Segment {
      * @return {@code true} - если значение записалось, {@code false} - если нет
      * @throws IOException если произошла ошибка ввода-вывода.
      */
-    boolean write(String objectKey, byte[] objectValue) throws IOException;
+    boolean write(ObjectKey objectKey, byte[] objectValue) throws IOException;
+
+    /**
+     * Записывает значение по указанному ключу в сегмент и возвращает положение записи.
+     *
+     * @param objectKey ключ, по которому нужно записать значение
+     * @param objectValue значение, которое нужно записать
+     * @return положение записи или {@link Optional#empty()}, если сегмент открыт только на чтение
+     * @throws IOException если произошла ошибка ввода-вывода.
+     */
+    Optional<RecordLocation> writeRecord(ObjectKey objectKey, byte[] objectValue) throws IOException;
 
     /**
      * Считывает значение из сегмента по переданному ключу.
@@ -35,7 +47,25 @@ public interface Segment {
      * @return значение, которое находится по ключу
      * @throws IOException если произошла ошибка ввода-вывода
      */
-    Optional<byte[]> read(String objectKey) throws IOException;
+    Optional<byte[]> read(ObjectKey objectKey) throws IOException;
+
+    /**
+     * Считывает значение записи, положение которой уже известно (без поиска по индексу сегмента).
+     *
+     * @param location положение записи в этом сегменте
+     * @return значение записи или {@link Optional#empty()}, если это отметка об удалении
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    Optional<byte[]> read(RecordLocation location) throws IOException;
+
+    /**
+     * Считывает ключ записи, начинающейся по указанному смещению.
+     *
+     * @param offset смещение записи в сегменте
+     * @return ключ записи
+     * @throws IOException если произошла ошибка ввода-вывода или по смещению нет записи
+     */
+    ObjectKey readKey(long offset) throws IOException;
 
     /**
      * Возвращает {@code true} - если данный сегмент открыт только на чтение, {@code false} - если данный сегмент открыт на чтение и запись.
@@ -44,5 +74,36 @@ public interface Segment {
      */
     boolean isReadOnly();
 
-    boolean delete(String objectKey) throws IOException;
+    /**
+     * Делает сегмент read-only, даже если он еще не заполнен, и сбрасывает его записи на диск.
+     * Вызывается, когда появляется более новый сегмент.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    void seal() throws IOException;
+
+    /**
+     * Записывает в сегмент отметку об удалении значения по указанному ключу.
+     *
+     * @param objectKey ключ, значение по которому нужно удалить
+     * @return {@code true} - если отметка записалась, {@code false} - если сегмент открыт только на чтение
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    boolean delete(ObjectKey objectKey) throws IOException;
+
+    /**
+     * Записывает в сегмент отметку об удалении значения по указанному ключу и возвращает положение отметки.
+     *
+     * @param objectKey ключ, значение по которому нужно удалить
+     * @return положение отметки или {@link Optional#empty()}, если сегмент открыт только на чтение
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    Optional<RecordLocation> deleteRecord(ObjectKey objectKey) throws IOException;
+
+    /**
+     * Освобождает файловые ресурсы сегмента. После закрытия сегмент может быть открыт повторно при следующем обращении.
+     *
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    void close() throws IOException;
 }
\ No newline at end of file
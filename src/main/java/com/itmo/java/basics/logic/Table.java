@@ -2,6 +2,7 @@ package com.itmo.java.basics.logic;
 
 import com.itmo.java.basics.exceptions.DatabaseException;
 
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -28,7 +29,7 @@ public interface Table {
      * @param objectValue значение, которое нужно записать
      * @throws DatabaseException если произошла ошибка ввода-вывода
      */
-    void write(String objectKey, byte[] objectValue) throws DatabaseException;
+    void write(ObjectKey objectKey, byte[] objectValue) throws DatabaseException;
 
     /**
      * Считывает значение из таблицы по заданному ключу.
@@ -37,8 +38,36 @@ public interface Table {
      * @return значение, которое находится по ключу
      * @throws DatabaseException если произошла ошибка ввода-вывода
      */
-    Optional<byte[]> read(String objectKey) throws DatabaseException;
+    Optional<byte[]> read(ObjectKey objectKey) throws DatabaseException;
 
-    void delete(String objectKey) throws DatabaseException;
+    void delete(ObjectKey objectKey) throws DatabaseException;
+
+    /**
+     * Возвращает страницу существующих ключей таблицы со значениями в порядке возрастания ключей
+     * (побайтово, см {@link ObjectKey#compareTo(ObjectKey)}). Удаленные ключи пропускаются.
+     *
+     * @param fromInclusive нижняя граница ключей (null - с самого начала)
+     * @param toExclusive верхняя граница ключей (null - без границы)
+     * @param prefix префикс ключей (пустой ключ - любые ключи)
+     * @param limit сколько ключей вернуть не больше
+     * @return ключи и значения в порядке возрастания ключей
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    Map<ObjectKey, byte[]> scan(ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) throws DatabaseException;
+
+    /**
+     * Переписывает актуальные записи read-only сегментов в новые сегменты и удаляет файлы старых.
+     * Ничего не делает, если новых read-only сегментов накопилось меньше порога из настроек.
+     *
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    void compact() throws DatabaseException;
+
+    /**
+     * Закрывает все открытые файлы сегментов таблицы.
+     *
+     * @throws DatabaseException если произошла ошибка ввода-вывода
+     */
+    void close() throws DatabaseException;
 }
 
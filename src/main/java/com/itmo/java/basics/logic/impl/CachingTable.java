@@ -2,16 +2,28 @@ package com.itmo.java.basics.logic.impl;
 
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.logic.DatabaseCache;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.basics.logic.Table;
 
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Таблица с кешем значений. Чтения не блокируются, а изменение одного ключа вместе с обновлением кеша
+ * идет под блокировкой его части, чтобы кеш обновлялся в том же порядке, что и таблица
+ */
 public class CachingTable implements Table {
+    private static final int WRITE_LOCK_STRIPES = 64;
+
     private final DatabaseCache cache = new DatabaseCacheImpl();
+    private final Object[] writeLocks = new Object[WRITE_LOCK_STRIPES];
     private final TableImpl table;
 
     public CachingTable(TableImpl table) {
         this.table = table;
+        for (int i = 0; i < WRITE_LOCK_STRIPES; i++) {
+            writeLocks[i] = new Object();
+        }
     }
 
     @Override
@@ -20,13 +32,21 @@ public class CachingTable implements Table {
     }
 
     @Override
-    public void write(String objectKey, byte[] objectValue) throws DatabaseException {
-        table.write(objectKey, objectValue);
-        cache.set(objectKey, objectValue);
+    public void write(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        if (objectKey == null) {
+            throw new DatabaseException("ObjectKey is null");
+        }
+        synchronized (writeLock(objectKey)) {
+            table.write(objectKey, objectValue);
+            cache.set(objectKey, objectValue);
+        }
     }
 
     @Override
-    public Optional<byte[]> read(String objectKey) throws DatabaseException {
+    public Optional<byte[]> read(ObjectKey objectKey) throws DatabaseException {
+        if (objectKey == null) {
+            throw new DatabaseException("ObjectKey is null");
+        }
         byte[] objectValue = cache.get(objectKey);
         if (objectValue != null) {
             return Optional.of(objectValue);
@@ -36,8 +56,33 @@ public class CachingTable implements Table {
     }
 
     @Override
-    public void delete(String objectKey) throws DatabaseException {
-        table.delete(objectKey);
-        cache.delete(objectKey);
+    public void delete(ObjectKey objectKey) throws DatabaseException {
+        if (objectKey == null) {
+            throw new DatabaseException("ObjectKey is null");
+        }
+        synchronized (writeLock(objectKey)) {
+            table.delete(objectKey);
+            cache.delete(objectKey);
+        }
+    }
+
+    @Override
+    public Map<ObjectKey, byte[]> scan(ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) throws DatabaseException {
+        return table.scan(fromInclusive, toExclusive, prefix, limit);
+    }
+
+    @Override
+    public void compact() throws DatabaseException {
+        table.compact();
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        table.close();
+    }
+
+    private Object writeLock(ObjectKey objectKey) {
+        int hash = objectKey.hashCode();
+        return writeLocks[(hash ^ (hash >>> 16)) & (WRITE_LOCK_STRIPES - 1)];
     }
 }
@@ -1,34 +1,76 @@
 package com.itmo.java.basics.logic.impl;
 
 import com.itmo.java.basics.logic.DatabaseCache;
+import com.itmo.java.basics.logic.ObjectKey;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-public class DatabaseCacheImpl extends LinkedHashMap<String, byte[]> implements DatabaseCache {
+/**
+ * LRU кеш значений таблицы. Команды с разными ключами одной таблицы исполняются в разных потоках сервера,
+ * а чтение меняет порядок записей, поэтому кеш разбит на части по хешу ключа, и каждая часть синхронизируется
+ * отдельно: обращения к разным ключам почти не ждут друг друга. Вытесняется самая старая запись своей части
+ */
+public class DatabaseCacheImpl implements DatabaseCache {
     private static final int CAPACITY = 5000;
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
 
     public DatabaseCacheImpl() {
-        super(CAPACITY, 1f, true);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(CAPACITY / STRIPES);
+        }
     }
 
     @Override
-    protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
-        return size() > CAPACITY;
+    public byte[] get(ObjectKey key) {
+        return stripeFor(key).get(key);
     }
 
     @Override
-    public byte[] get(String key) {
-        return super.get(key);
+    public void set(ObjectKey key, byte[] value) {
+        stripeFor(key).set(key, value);
     }
 
     @Override
-    public void set(String key, byte[] value) {
-        super.put(key, value);
+    public void delete(ObjectKey key) {
+        stripeFor(key).delete(key);
     }
 
-    @Override
-    public void delete(String key) {
-        super.remove(key);
+    private Stripe stripeFor(ObjectKey key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Часть кеша: записи в порядке обращений, от самой давней к последней
+     */
+    private static final class Stripe {
+        private final Map<ObjectKey, byte[]> entries;
+        private final int capacity;
+
+        Stripe(int capacity) {
+            this.entries = new LinkedHashMap<>(capacity, 1f, true);
+            this.capacity = capacity;
+        }
+
+        synchronized byte[] get(ObjectKey key) {
+            return entries.get(key);
+        }
+
+        synchronized void set(ObjectKey key, byte[] value) {
+            entries.put(key, value);
+            if (entries.size() > capacity) {
+                Iterator<ObjectKey> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        synchronized void delete(ObjectKey key) {
+            entries.remove(key);
+        }
     }
 }
@@ -1,25 +1,47 @@
 package com.itmo.java.basics.logic.impl;
 
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableEngine;
 import com.itmo.java.basics.exceptions.DatabaseException;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.DatabaseInitializationContext;
 import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.basics.logic.Table;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseImpl implements Database {
     private String dbName;
     private Path databasePath;
-    private Map<String, Table> tables = new HashMap<>();
+    private Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final DatabaseConfig config;
+    private final GroupCommitWriter commitWriter;
+    /**
+     * Ошибки фонового сжатия по именам таблиц, еще не переданные клиенту
+     */
+    private final Map<String, DatabaseException> compactionFailures = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segment-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public static Database create(String dbName, Path databaseRoot) throws DatabaseException {
+        return create(dbName, databaseRoot, new DatabaseConfig());
+    }
+
+    public static Database create(String dbName, Path databaseRoot, DatabaseConfig config) throws DatabaseException {
         if (dbName == null || databaseRoot == null) {
             throw new DatabaseException("dbName is null or databaseRoot is null");
         }
@@ -29,21 +51,29 @@ public class DatabaseImpl implements Database {
         } catch (IOException e) {
             throw new DatabaseException("IO exception when creating database " + dbName + " with path " + PathToDatabase.toString(), e);
         }
-        return new DatabaseImpl(dbName, PathToDatabase);
+        return new DatabaseImpl(dbName, PathToDatabase, config, new GroupCommitWriter(config));
     }
 
     public static Database initializeFromContext(DatabaseInitializationContext context) {
-        return new DatabaseImpl(context);
+        return initializeFromContext(context, new DatabaseConfig());
     }
 
-    private DatabaseImpl(DatabaseInitializationContext context) {
-        this(context.getDbName(), context.getDatabasePath());
-        this.tables = context.getTables();
+    public static Database initializeFromContext(DatabaseInitializationContext context, DatabaseConfig config) {
+        return new DatabaseImpl(context, config);
     }
 
-    private DatabaseImpl(String dbName, Path databaseRoot) {
+    private DatabaseImpl(DatabaseInitializationContext context, DatabaseConfig config) {
+        this(context.getDbName(), context.getDatabasePath(), config, context.getCommitWriter());
+        this.tables = new ConcurrentHashMap<>(context.getTables());
+    }
+
+    private DatabaseImpl(String dbName, Path databaseRoot, DatabaseConfig config, GroupCommitWriter commitWriter) {
         this.dbName = dbName;
         this.databasePath = databaseRoot;
+        this.config = config;
+        this.commitWriter = commitWriter;
+        compactor.scheduleWithFixedDelay(this::compactTables, config.getCompactionIntervalMs(),
+                config.getCompactionIntervalMs(), TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -53,40 +83,102 @@ public class DatabaseImpl implements Database {
 
     @Override
     public void createTableIfNotExists(String tableName) throws DatabaseException {
+        createTableIfNotExists(tableName, config.getTableEngine());
+    }
+
+    @Override
+    public void createTableIfNotExists(String tableName, TableEngine engine) throws DatabaseException {
         if (tableName == null) {
             throw new DatabaseException("tableName is null");
         }
         if (tables.containsKey(tableName)) {
             throw new DatabaseException("Table with name " + tableName + " already exists");
         }
-        Table newTable = TableImpl.create(tableName, databasePath, new TableIndex());
+        Table newTable = engine == TableEngine.SSTABLE
+                ? SortedTable.create(tableName, databasePath, config, commitWriter)
+                : TableImpl.create(tableName, databasePath, new TableIndex(config.getIndexMode(), config.getIndexLayout()), config, commitWriter);
         tables.put(tableName, newTable);
     }
 
     @Override
-    public void write(String tableName, String objectKey, byte[] objectValue) throws DatabaseException {
-        Table table = tables.get(tableName);
-        if (table == null) {
-            throw new DatabaseException("Table with name " + tableName + " not found");
-        }
+    public void write(String tableName, ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        Table table = getTable(tableName);
         table.write(objectKey, objectValue);
     }
 
     @Override
-    public Optional<byte[]> read(String tableName, String objectKey) throws DatabaseException {
-        Table table = tables.get(tableName);
-        if (table == null) {
-            throw new DatabaseException("Table with name " + tableName + " not found");
-        }
+    public Optional<byte[]> read(String tableName, ObjectKey objectKey) throws DatabaseException {
+        Table table = getTable(tableName);
         return table.read(objectKey);
     }
 
     @Override
-    public void delete(String tableName, String objectKey) throws DatabaseException {
+    public void delete(String tableName, ObjectKey objectKey) throws DatabaseException {
+        Table table = getTable(tableName);
+        table.delete(objectKey);
+    }
+
+    @Override
+    public Map<ObjectKey, byte[]> scan(String tableName, ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) throws DatabaseException {
+        Table table = getTable(tableName);
+        return table.scan(fromInclusive, toExclusive, prefix, limit);
+    }
+
+    @Override
+    public CompletableFuture<Void> loadTable(String tableName) {
+        Table table = tableName == null ? null : tables.get(tableName);
+        if (!(table instanceof LazyTable) || ((LazyTable) table).isLoaded()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return ((LazyTable) table).loadAsync().thenApply(loadedTable -> null);
+    }
+
+    @Override
+    public void close() throws DatabaseException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            for (Table table : tables.values()) {
+                table.close();
+            }
+        } finally {
+            commitWriter.close();
+        }
+    }
+
+    /**
+     * @return таблица с этим именем
+     * @throws DatabaseException если таблицы нет или ее последнее фоновое сжатие завершилось ошибкой,
+     *                           которая еще не была передана клиенту. Ошибка сжатия передается один раз
+     */
+    private Table getTable(String tableName) throws DatabaseException {
         Table table = tables.get(tableName);
         if (table == null) {
             throw new DatabaseException("Table with name " + tableName + " not found");
         }
-        table.delete(objectKey);
+        DatabaseException compactionFailure = compactionFailures.remove(tableName);
+        if (compactionFailure != null) {
+            throw compactionFailure;
+        }
+        return table;
+    }
+
+    /**
+     * Фоновое сжатие сегментов всех таблиц базы. Ошибка сжатия запоминается и передается следующей команде
+     * к этой таблице, сжатие повторяется в следующий раз
+     */
+    private void compactTables() {
+        for (Table table : tables.values()) {
+            try {
+                table.compact();
+            } catch (DatabaseException e) {
+                compactionFailures.put(table.getName(), new DatabaseException("DatabaseException when compacting table "
+                        + table.getName() + " in database " + dbName, e));
+            }
+        }
     }
 }
@@ -0,0 +1,155 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.DurabilityPolicy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Групповой сброс на диск дозаписей в сегменты, общий для всех таблиц одной базы данных.
+ * <p>
+ * Сегмент пишет запись в свой канал (в page cache), после чего регистрирует канал здесь.
+ * Все каналы, в которые писали с момента прошлого сброса, сбрасываются одним {@link FileChannel#force(boolean)}
+ * на пачку, после чего завершаются ожидания всех записей пачки.
+ * Ожидание последней записи текущего потока можно забрать через {@link #takePendingCommit()}.
+ */
+public class GroupCommitWriter implements Closeable {
+    private static final ThreadLocal<CompletableFuture<Void>> PENDING_COMMIT = new ThreadLocal<>();
+    private static final CompletableFuture<Void> DURABLE = CompletableFuture.completedFuture(null);
+
+    private final DurabilityPolicy policy;
+    private final Set<FileChannel> dirtyChannels = new LinkedHashSet<>();
+    private List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private final ExecutorService flusher;
+
+    public GroupCommitWriter(DatabaseConfig config) {
+        this.policy = config.getDurabilityPolicy();
+        switch (policy) {
+            case BATCH:
+                flusher = Executors.newSingleThreadExecutor(GroupCommitWriter::newFlusherThread);
+                break;
+            case INTERVAL:
+                ScheduledExecutorService scheduledFlusher = Executors.newSingleThreadScheduledExecutor(GroupCommitWriter::newFlusherThread);
+                scheduledFlusher.scheduleWithFixedDelay(this::flush, config.getDurabilityIntervalMs(),
+                        config.getDurabilityIntervalMs(), TimeUnit.MILLISECONDS);
+                flusher = scheduledFlusher;
+                break;
+            default:
+                flusher = null;
+        }
+    }
+
+    /**
+     * Забирает ожидание сброса последней записи, сделанной текущим потоком.
+     *
+     * @return future, которое завершается, когда запись попала на диск. Завершенное future, если записей не было
+     */
+    public static CompletableFuture<Void> takePendingCommit() {
+        CompletableFuture<Void> pendingCommit = PENDING_COMMIT.get();
+        if (pendingCommit == null) {
+            return DURABLE;
+        }
+        PENDING_COMMIT.remove();
+        return pendingCommit;
+    }
+
+    /**
+     * Регистрирует канал, в который только что была дописана запись, в текущей пачке.
+     *
+     * @param channel канал сегмента
+     */
+    public void registerAppend(FileChannel channel) {
+        if (policy == DurabilityPolicy.NONE) {
+            return;
+        }
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        synchronized (this) {
+            dirtyChannels.add(channel);
+            waiters.add(commit);
+            if (policy == DurabilityPolicy.BATCH && !flushScheduled) {
+                flushScheduled = true;
+                flusher.execute(this::flush);
+            }
+        }
+        PENDING_COMMIT.set(commit);
+    }
+
+    /**
+     * Сбрасывает канал на диск перед его закрытием. Ожидания записей в этот канал завершатся со следующей пачкой.
+     *
+     * @param channel канал сегмента, который будет закрыт
+     * @throws IOException если не удалось сбросить канал
+     */
+    public void release(FileChannel channel) throws IOException {
+        if (policy == DurabilityPolicy.NONE) {
+            return;
+        }
+        synchronized (this) {
+            dirtyChannels.remove(channel);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Сбрасывает последнюю пачку и останавливает поток сброса
+     */
+    @Override
+    public void close() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flush() {
+        List<FileChannel> channels;
+        List<CompletableFuture<Void>> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (waiters.isEmpty() && dirtyChannels.isEmpty()) {
+                return;
+            }
+            channels = new ArrayList<>(dirtyChannels);
+            dirtyChannels.clear();
+            batch = waiters;
+            waiters = new ArrayList<>();
+        }
+        try {
+            for (FileChannel channel : channels) {
+                try {
+                    channel.force(false);
+                } catch (ClosedChannelException e) {
+                    // канал уже сброшен в release перед закрытием
+                }
+            }
+            batch.forEach(commit -> commit.complete(null));
+        } catch (IOException e) {
+            batch.forEach(commit -> commit.completeExceptionally(e));
+        }
+    }
+
+    private static Thread newFlusherThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "group-commit-flusher");
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,187 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.basics.logic.Table;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Таблица, сегменты которой индексируются при первом обращении.
+ * Таблица загружается в фоне ({@link #loadAsync()}), и ее загрузку ждут только обращения к ней самой.
+ * Обращения к уже загруженной таблице идут без блокировок
+ */
+public class LazyTable implements Table {
+    private final String tableName;
+    private final TableLoader loader;
+    private final Executor loadExecutor;
+    private volatile Table table;
+    /**
+     * Загрузка, которая идет или уже завершилась (в том числе с ошибкой). null, пока загрузка не начиналась
+     */
+    private CompletableFuture<Table> loading;
+    private boolean closed = false;
+
+    /**
+     * Загружает таблицу с диска
+     */
+    @FunctionalInterface
+    public interface TableLoader {
+        Table load() throws DatabaseException;
+    }
+
+    /**
+     * @param loadExecutor в каком исполнителе загружается таблица при первом обращении
+     */
+    public LazyTable(String tableName, TableLoader loader, Executor loadExecutor) {
+        this.tableName = tableName;
+        this.loader = loader;
+        this.loadExecutor = loadExecutor;
+    }
+
+    /**
+     * @return true, если сегменты таблицы уже проиндексированы
+     */
+    public boolean isLoaded() {
+        return table != null;
+    }
+
+    /**
+     * Начинает загрузку таблицы в исполнителе загрузки, если она еще не начиналась
+     *
+     * @return загрузка таблицы. Завершается с {@link DatabaseException}, если таблица закрыта или не загрузилась
+     */
+    public CompletableFuture<Table> loadAsync() {
+        CompletableFuture<Table> newLoading;
+        synchronized (this) {
+            if (loading != null) {
+                return loading;
+            }
+            if (closed) {
+                return CompletableFuture.failedFuture(new DatabaseException("Table " + tableName + " is closed"));
+            }
+            newLoading = new CompletableFuture<>();
+            loading = newLoading;
+        }
+        loadExecutor.execute(() -> completeLoading(newLoading));
+        return newLoading;
+    }
+
+    /**
+     * Дожидается загрузки таблицы, начиная ее, если нужно. Ошибка загрузки сообщается один раз:
+     * следующее обращение загружает таблицу заново
+     *
+     * @return загруженная таблица
+     * @throws DatabaseException если таблица уже закрыта или произошла ошибка при ее инициализации
+     */
+    public Table load() throws DatabaseException {
+        Table loadedTable = table;
+        if (loadedTable != null) {
+            return loadedTable;
+        }
+        CompletableFuture<Table> currentLoading = loadAsync();
+        try {
+            return currentLoading.join();
+        } catch (CompletionException e) {
+            synchronized (this) {
+                if (loading == currentLoading) {
+                    loading = null;
+                }
+            }
+            if (e.getCause() instanceof DatabaseException) {
+                throw (DatabaseException) e.getCause();
+            }
+            throw new DatabaseException("Exception when loading table " + tableName, e.getCause());
+        }
+    }
+
+    /**
+     * Загружает таблицу в текущем потоке, если ее загрузка еще не начиналась и таблица не закрыта.
+     * Ошибка загрузки не бросается, а сохраняется: о ней сообщит следующее обращение к таблице
+     */
+    public void warmUp() {
+        CompletableFuture<Table> newLoading;
+        synchronized (this) {
+            if (loading != null || closed) {
+                return;
+            }
+            newLoading = new CompletableFuture<>();
+            loading = newLoading;
+        }
+        completeLoading(newLoading);
+    }
+
+    @Override
+    public String getName() {
+        return tableName;
+    }
+
+    @Override
+    public void write(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        load().write(objectKey, objectValue);
+    }
+
+    @Override
+    public Optional<byte[]> read(ObjectKey objectKey) throws DatabaseException {
+        return load().read(objectKey);
+    }
+
+    @Override
+    public void delete(ObjectKey objectKey) throws DatabaseException {
+        load().delete(objectKey);
+    }
+
+    @Override
+    public Map<ObjectKey, byte[]> scan(ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) throws DatabaseException {
+        return load().scan(fromInclusive, toExclusive, prefix, limit);
+    }
+
+    /**
+     * Незагруженную таблицу не сжимает, чтобы не загружать ее ради сжатия
+     */
+    @Override
+    public void compact() throws DatabaseException {
+        Table loadedTable = table;
+        if (loadedTable != null) {
+            loadedTable.compact();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws DatabaseException {
+        closed = true;
+        if (table != null) {
+            table.close();
+        }
+    }
+
+    /**
+     * Загружает таблицу вне монитора. Если таблицу закрыли, пока она загружалась, она сразу закрывается
+     */
+    private void completeLoading(CompletableFuture<Table> newLoading) {
+        Table loadedTable;
+        try {
+            loadedTable = loader.load();
+        } catch (DatabaseException | RuntimeException e) {
+            newLoading.completeExceptionally(e);
+            return;
+        }
+        synchronized (this) {
+            if (!closed) {
+                table = loadedTable;
+                newLoading.complete(loadedTable);
+                return;
+            }
+        }
+        try {
+            loadedTable.close();
+            newLoading.completeExceptionally(new DatabaseException("Table " + tableName + " is closed"));
+        } catch (DatabaseException e) {
+            newLoading.completeExceptionally(e);
+        }
+    }
+}
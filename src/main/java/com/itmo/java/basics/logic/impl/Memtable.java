@@ -0,0 +1,108 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.index.impl.TableIndex;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.basics.logic.io.EntryIterator;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Последние изменения таблицы в памяти, упорядоченные по {@link TableIndex#KEY_ORDER}.
+ * Повторные записи одного ключа заменяют друг друга, поэтому на диск попадает только последнее значение.
+ * Значение null - отметка об удалении
+ */
+public class Memtable {
+    /**
+     * Примерные накладные расходы на одну запись, кроме ключа и значения
+     */
+    private static final long ENTRY_OVERHEAD = 64;
+    private final NavigableMap<ObjectKey, byte[]> entries = new TreeMap<>(TableIndex.KEY_ORDER);
+    private long sizeBytes = 0;
+
+    /**
+     * @param objectValue значение или null для отметки об удалении
+     */
+    public void put(ObjectKey objectKey, byte[] objectValue) {
+        boolean replaced = entries.containsKey(objectKey);
+        byte[] previous = entries.put(objectKey, objectValue);
+        if (replaced) {
+            sizeBytes -= entrySize(objectKey, previous);
+        }
+        sizeBytes += entrySize(objectKey, objectValue);
+    }
+
+    /**
+     * @return {@code true} - если в памяти есть значение или отметка об удалении ключа
+     */
+    public boolean containsKey(ObjectKey objectKey) {
+        return entries.containsKey(objectKey);
+    }
+
+    /**
+     * @return значение ключа или null, если ключ удален (или его нет, см {@link #containsKey(ObjectKey)})
+     */
+    public byte[] get(ObjectKey objectKey) {
+        return entries.get(objectKey);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return примерный объем занятой памяти в байтах
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * @return записи, начиная с заданного ключа (null - с начала), в порядке возрастания ключей
+     */
+    public NavigableMap<ObjectKey, byte[]> tailMap(ObjectKey fromInclusive) {
+        return Collections.unmodifiableNavigableMap(fromInclusive == null ? entries : entries.tailMap(fromInclusive, true));
+    }
+
+    /**
+     * @return обход записей, начиная с заданного ключа (null - с начала)
+     */
+    public EntryIterator iterator(ObjectKey fromInclusive) {
+        Iterator<Map.Entry<ObjectKey, byte[]>> iterator = tailMap(fromInclusive).entrySet().iterator();
+        return new EntryIterator() {
+            private Map.Entry<ObjectKey, byte[]> current;
+
+            @Override
+            public boolean next() {
+                current = iterator.hasNext() ? iterator.next() : null;
+                return current != null;
+            }
+
+            @Override
+            public ObjectKey key() {
+                return current.getKey();
+            }
+
+            @Override
+            public byte[] value() {
+                return current.getValue();
+            }
+        };
+    }
+
+    public void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    private static long entrySize(ObjectKey objectKey, byte[] objectValue) {
+        return ENTRY_OVERHEAD + objectKey.length() + (objectValue == null ? 0 : objectValue.length);
+    }
+}
@@ -1,58 +1,171 @@
 package com.itmo.java.basics.logic.impl;
 
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.IndexLayout;
+import com.itmo.java.basics.config.SegmentReadMode;
 import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.index.RecordLocation;
 import com.itmo.java.basics.index.SegmentOffsetInfo;
+import com.itmo.java.basics.index.impl.BloomFilter;
+import com.itmo.java.basics.index.impl.BloomFilterStats;
+import com.itmo.java.basics.index.impl.RecordLocationImpl;
 import com.itmo.java.basics.index.impl.SegmentIndex;
 import com.itmo.java.basics.index.impl.SegmentOffsetInfoImpl;
 import com.itmo.java.basics.initialization.SegmentInitializationContext;
-import com.itmo.java.basics.logic.DatabaseRecord;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.basics.logic.Segment;
-import com.itmo.java.basics.logic.io.DatabaseInputStream;
+import com.itmo.java.basics.logic.WritableDatabaseRecord;
 import com.itmo.java.basics.logic.io.DatabaseOutputStream;
+import com.itmo.java.basics.logic.io.SegmentFilterFile;
+import com.itmo.java.basics.logic.io.SegmentFormat;
+import com.itmo.java.basics.logic.io.SegmentHintFile;
+import com.itmo.java.basics.logic.io.SegmentScanner;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Optional;
 
+/**
+ * Сегмент журнальной таблицы. Дописывает в него один поток, а читать можно параллельно с дозаписью:
+ * записи читаются позиционно до уже записанного смещения, индекс активного сегмента меняется и читается
+ * под его монитором, а у read-only сегмента индекс больше не меняется и читается без блокировок
+ */
 public class SegmentImpl implements Segment {
-    private final static int MAX_SIZE = 100000;
-    private SegmentIndex segmentIndex = new SegmentIndex();
+    private final static int APPEND_BUFFER_SIZE = 8192;
+    private final static int READ_AHEAD_SIZE = 512;
+    private final static int SIZE_OF_INT = 4;
+    private final static int REMOVED_OBJECT_SIZE = -1;
+    /**
+     * Индекс ключей сегмента. При {@link IndexLayout#SINGLE_LEVEL} его нет: положения записей хранит индекс таблицы
+     */
+    private SegmentIndex segmentIndex;
     private Path pathToSegment;
     private String segmentName;
-    private long curOffset = 0;
+    private volatile long curOffset = 0;
+    /**
+     * В старый формат не дописываем, поэтому сегмент старого формата сразу read-only
+     */
+    private SegmentFormat format = SegmentFormat.current();
+    private volatile boolean sealed = false;
+    /**
+     * Были ли дозаписи с момента открытия сегмента (тогда подсказку нужно переписать)
+     */
+    private boolean appendedSinceOpen = false;
+    /**
+     * Канал для дозаписи после последней записи. Открывается при первой записи и закрывается, когда сегмент становится read-only.
+     * При открытии файл расширяется до размера сегмента, чтобы дозапись не меняла размер файла,
+     * а когда сегмент становится read-only, незанятый хвост отрезается
+     */
+    private FileChannel appendChannel;
+    private DatabaseOutputStream appendStream;
+    /**
+     * Канал для позиционного чтения, общий для всех читателей сегмента
+     */
+    private volatile FileChannel readChannel;
+    /**
+     * Отображение read-only сегмента в память (только в режиме {@link SegmentReadMode#MMAP})
+     */
+    private volatile MappedByteBuffer mapping;
+    /**
+     * Фильтр Блума по ключам сегмента. Строится (или читается с диска), когда сегмент становится read-only
+     */
+    private volatile BloomFilter filter;
+    private final DatabaseConfig config;
+    private final GroupCommitWriter commitWriter;
 
     public static Segment create(String segmentName, Path tableRootPath) throws DatabaseException {
+        DatabaseConfig config = new DatabaseConfig();
+        return create(segmentName, tableRootPath, config, new GroupCommitWriter(config));
+    }
+
+    public static Segment create(String segmentName, Path tableRootPath, DatabaseConfig config,
+                                 GroupCommitWriter commitWriter) throws DatabaseException {
         Path pathToSegment = Paths.get(tableRootPath.toString(), segmentName);
+        SegmentFormat format = SegmentFormat.current();
         try {
-            Files.createFile(pathToSegment);
+            Files.write(pathToSegment, format.header(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
         } catch (IOException e) {
             throw new DatabaseException("IO exception when creating segment " + segmentName + " with path " + pathToSegment.toString(), e);
         }
-        return new SegmentImpl(segmentName, pathToSegment);
+        SegmentImpl segment = new SegmentImpl(segmentName, pathToSegment, config, commitWriter);
+        segment.curOffset = format.getHeaderSize();
+        return segment;
     }
 
-    private SegmentImpl(String segmentName, Path pathToSegment) {
+    private SegmentImpl(String segmentName, Path pathToSegment, DatabaseConfig config, GroupCommitWriter commitWriter) {
         this.pathToSegment = pathToSegment;
         this.segmentName = segmentName;
+        this.config = config;
+        this.commitWriter = commitWriter;
+        this.segmentIndex = config.getIndexLayout() == IndexLayout.SINGLE_LEVEL ? null : new SegmentIndex(config.getIndexMode());
     }
 
-    private SegmentImpl(SegmentInitializationContext context){
-        this(context.getSegmentName(), context.getSegmentPath());
-        this.segmentIndex = context.getIndex();
+    private SegmentImpl(SegmentInitializationContext context, DatabaseConfig config, GroupCommitWriter commitWriter){
+        this(context.getSegmentName(), context.getSegmentPath(), config, commitWriter);
+        if (segmentIndex != null) {
+            this.segmentIndex = context.getIndex();
+        }
         this.curOffset = context.getCurrentSize();
+        this.format = context.getFormat();
     }
 
     public static Segment initializeFromContext(SegmentInitializationContext context) {
-        return new SegmentImpl(context);
+        DatabaseConfig config = new DatabaseConfig();
+        return initializeFromContext(context, config, new GroupCommitWriter(config));
+    }
+
+    public static Segment initializeFromContext(SegmentInitializationContext context, DatabaseConfig config,
+                                                GroupCommitWriter commitWriter) {
+        return new SegmentImpl(context, config, commitWriter);
+    }
+
+    /**
+     * Номер нового сегмента: текущее время в миллисекундах, но строго больше номера предыдущего сегмента таблицы,
+     * поэтому имена не совпадают, даже если сегменты создаются чаще раза в миллисекунду
+     *
+     * @param lastSegmentId номер последнего созданного сегмента таблицы
+     */
+    static long nextSegmentId(long lastSegmentId) {
+        return Math.max(System.currentTimeMillis(), lastSegmentId + 1);
+    }
+
+    static String createSegmentName(String tableName, long segmentId) {
+        return tableName + "_" + segmentId;
+    }
+
+    /**
+     * @return номер сегмента из его имени (в том числе имени сегмента, полученного сжатием) или -1, если имя другого вида
+     */
+    static long parseSegmentId(String tableName, String segmentName) {
+        String prefix = tableName + "_";
+        if (!segmentName.startsWith(prefix)) {
+            return -1;
+        }
+        int idEnd = segmentName.indexOf('_', prefix.length());
+        try {
+            return Long.parseLong(segmentName.substring(prefix.length(), idEnd < 0 ? segmentName.length() : idEnd));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
-    static String createSegmentName(String tableName) {
-        return tableName + "_" + System.currentTimeMillis();
+    /**
+     * Имя сегмента, полученного сжатием. При сортировке оно идет сразу после самого нового из сжатых сегментов,
+     * но раньше всех сегментов, созданных после него
+     *
+     * @param newestCompactedName имя самого нового из сжимаемых сегментов
+     * @param part                номер сегмента среди результатов сжатия
+     */
+    static String createCompactedSegmentName(String newestCompactedName, int part) {
+        return newestCompactedName + "_" + part;
     }
 
     @Override
@@ -61,54 +174,396 @@ public class SegmentImpl implements Segment {
     }
 
     @Override
-    public boolean write(String objectKey, byte[] objectValue) throws IOException {
+    public boolean write(ObjectKey objectKey, byte[] objectValue) throws IOException {
+        return writeRecord(objectKey, objectValue).isPresent();
+    }
+
+    @Override
+    public Optional<RecordLocation> writeRecord(ObjectKey objectKey, byte[] objectValue) throws IOException {
         if (isReadOnly()) {
-            return false;
-        }
-        try (DatabaseOutputStream outputStream = new DatabaseOutputStream(new FileOutputStream(pathToSegment.toString(), true))) {
-            int writtenBytes;
-            if (objectValue == null) {
-                writtenBytes = outputStream.write(new SetDatabaseRecord(objectKey.length(), objectKey.getBytes(StandardCharsets.UTF_8), -1, new byte[]{}));
-            } else {
-                writtenBytes = outputStream.write(new SetDatabaseRecord(objectKey.length(), objectKey.getBytes(StandardCharsets.UTF_8), objectValue.length, objectValue));
-            }
-            segmentIndex.onIndexedEntityUpdated(objectKey, new SegmentOffsetInfoImpl(curOffset));
-            curOffset += writtenBytes;
-            return true;
+            return Optional.empty();
         }
+        int writtenBytes;
+        if (objectValue == null) {
+            writtenBytes = append(new SetDatabaseRecord(objectKey.length(), objectKey.getBytes(), -1, new byte[]{}));
+        } else {
+            writtenBytes = append(new SetDatabaseRecord(objectKey.length(), objectKey.getBytes(), objectValue.length, objectValue));
+        }
+        RecordLocation location = new RecordLocationImpl(this, curOffset, writtenBytes);
+        updateIndex(objectKey, new SegmentOffsetInfoImpl(curOffset));
+        curOffset += writtenBytes;
+        sealIfFull();
+        return Optional.of(location);
     }
 
+    /**
+     * @throws IllegalStateException если у сегмента нет своего индекса ({@link IndexLayout#SINGLE_LEVEL})
+     */
     @Override
-    public Optional<byte[]> read(String objectKey) throws IOException {
-        try (DatabaseInputStream inputStream = new DatabaseInputStream(new FileInputStream(pathToSegment.toString()))) {
-            Optional<SegmentOffsetInfo> offset = segmentIndex.searchForKey(objectKey);
-            if (offset.isEmpty()) {
+    public Optional<byte[]> read(ObjectKey objectKey) throws IOException {
+        if (segmentIndex == null) {
+            throw new IllegalStateException("Segment " + segmentName + " has no index, records must be read by location");
+        }
+        BloomFilter segmentFilter = filter;
+        if (segmentFilter != null) {
+            if (!segmentFilter.mightContain(objectKey)) {
+                BloomFilterStats.recordRejected();
                 return Optional.empty();
             }
-            long skippedBytes = inputStream.skip(offset.get().getOffset());
-            if (skippedBytes != offset.get().getOffset()) {
-                throw new IOException("Skipped " + skippedBytes + "bytes, when must skipped " + offset.get().getOffset());
+            BloomFilterStats.recordPassed();
+        }
+        Optional<SegmentOffsetInfo> offset = searchIndex(objectKey);
+        if (offset.isEmpty()) {
+            if (segmentFilter != null && !segmentIndex.containsKey(objectKey)) {
+                BloomFilterStats.recordFalsePositive();
+            }
+            return Optional.empty();
+        }
+        return read(new RecordLocationImpl(this, offset.get().getOffset(), 0));
+    }
+
+    /**
+     * Если размер записи известен, она читается одним позиционным чтением, иначе - с упреждающим чтением заголовка
+     */
+    @Override
+    public Optional<byte[]> read(RecordLocation location) throws IOException {
+        long offset = location.getOffset() + format.getRecordPrefixSize();
+        ByteBuffer mappedSegment = mapping();
+        if (mappedSegment != null) {
+            return readValue(mappedSegment, offset);
+        }
+        int recordSize = location.getLength() - format.getRecordPrefixSize();
+        if (recordSize > 0) {
+            ByteBuffer record = ByteBuffer.allocate(recordSize);
+            if (readFully(readChannel(), record, offset) < recordSize) {
+                throw new IOException("Unexpected end of segment when reading record at offset " + offset);
             }
-            Optional<DatabaseRecord> databaseRecord = inputStream.readDbUnit();
-            return databaseRecord.map(DatabaseRecord::getValue);
+            return readValue(record, 0);
         }
+        return readValue(readChannel(), offset);
+    }
+
+    @Override
+    public ObjectKey readKey(long offset) throws IOException {
+        long keySizeOffset = offset + format.getRecordPrefixSize();
+        ByteBuffer mappedSegment = mapping();
+        if (mappedSegment != null) {
+            int position = (int) keySizeOffset;
+            if (position + SIZE_OF_INT > mappedSegment.limit()
+                    || mappedSegment.getInt(position) < 0 || position + SIZE_OF_INT + mappedSegment.getInt(position) > mappedSegment.limit()) {
+                throw new IOException("Unexpected end of segment when reading key at offset " + offset);
+            }
+            byte[] key = new byte[mappedSegment.getInt(position)];
+            ByteBuffer view = mappedSegment.duplicate();
+            view.position(position + SIZE_OF_INT);
+            view.get(key);
+            return ObjectKey.wrap(key);
+        }
+        FileChannel channel = readChannel();
+        ByteBuffer head = ByteBuffer.allocate(READ_AHEAD_SIZE);
+        int headSize = readFully(channel, head, keySizeOffset);
+        int keySize = headSize < SIZE_OF_INT ? -1 : head.getInt(0);
+        if (keySize < 0) {
+            throw new IOException("Unexpected end of segment when reading key at offset " + offset);
+        }
+        if (headSize >= SIZE_OF_INT + keySize) {
+            return ObjectKey.copyOf(head.array(), SIZE_OF_INT, keySize);
+        }
+        ByteBuffer key = ByteBuffer.allocate(keySize);
+        if (readFully(channel, key, keySizeOffset + SIZE_OF_INT) < keySize) {
+            throw new IOException("Unexpected end of segment when reading key at offset " + offset);
+        }
+        return ObjectKey.wrap(key.array());
     }
 
     @Override
     public boolean isReadOnly() {
-        return curOffset >= MAX_SIZE;
+        return sealed || curOffset >= config.getSegmentSizeBytes() || format != SegmentFormat.current();
     }
 
+    /**
+     * Канал чтения остается открытым: сегмент могут читать, пока он становится read-only
+     */
     @Override
-    public boolean delete(String objectKey) throws IOException {
-        if (segmentIndex.searchForKey(objectKey).isEmpty()) {
-            return false;
+    public void seal() throws IOException {
+        sealed = true;
+        if (appendChannel != null) {
+            appendStream.flush();
+            appendChannel.force(false);
+            closeAppendChannel();
         }
-        try (DatabaseOutputStream outputStream = new DatabaseOutputStream(new FileOutputStream(pathToSegment.toString(), true))) {
-            int writtenBytes = outputStream.write(new RemoveDatabaseRecord(objectKey.length(), objectKey.getBytes(StandardCharsets.UTF_8)));
-            segmentIndex.onIndexedEntityUpdated(objectKey, null);
-            curOffset += writtenBytes;
-            return true;
+        trimPreallocated();
+        writeReadOnlyFiles();
+    }
+
+    @Override
+    public boolean delete(ObjectKey objectKey) throws IOException {
+        return deleteRecord(objectKey).isPresent();
+    }
+
+    @Override
+    public Optional<RecordLocation> deleteRecord(ObjectKey objectKey) throws IOException {
+        if (isReadOnly()) {
+            return Optional.empty();
+        }
+        int writtenBytes = append(new RemoveDatabaseRecord(objectKey.length(), objectKey.getBytes()));
+        RecordLocation location = new RecordLocationImpl(this, curOffset, writtenBytes);
+        updateIndex(objectKey, null);
+        curOffset += writtenBytes;
+        sealIfFull();
+        return Optional.of(location);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeAppendChannel();
+        } finally {
+            synchronized (this) {
+                mapping = null;
+                if (readChannel != null) {
+                    readChannel.close();
+                    readChannel = null;
+                }
+            }
+        }
+    }
+
+    private void closeAppendChannel() throws IOException {
+        if (appendChannel != null) {
+            try {
+                appendStream.flush();
+                commitWriter.release(appendChannel);
+            } finally {
+                appendChannel.close();
+                appendChannel = null;
+                appendStream = null;
+            }
+        }
+    }
+
+    /**
+     * Запоминает смещение записи ключа в индексе сегмента, если он есть
+     *
+     * @param offsetInfo смещение записи или null для отметки об удалении
+     */
+    private void updateIndex(ObjectKey objectKey, SegmentOffsetInfo offsetInfo) {
+        if (segmentIndex == null) {
+            return;
         }
+        synchronized (segmentIndex) {
+            segmentIndex.onIndexedEntityUpdated(objectKey, offsetInfo);
+        }
+    }
+
+    /**
+     * Индекс активного сегмента ищется под его монитором, а read-only сегмента - без блокировки.
+     * Последнее изменение индекса видно после чтения volatile {@link #curOffset} или {@link #sealed}
+     */
+    private Optional<SegmentOffsetInfo> searchIndex(ObjectKey objectKey) {
+        if (isReadOnly()) {
+            return segmentIndex.searchForKey(objectKey);
+        }
+        synchronized (segmentIndex) {
+            return segmentIndex.searchForKey(objectKey);
+        }
+    }
+
+    private int append(WritableDatabaseRecord record) throws IOException {
+        if (appendChannel == null) {
+            appendChannel = FileChannel.open(pathToSegment, StandardOpenOption.WRITE);
+            if (appendChannel.size() < config.getSegmentSizeBytes()) {
+                appendChannel.write(ByteBuffer.allocate(1), config.getSegmentSizeBytes() - 1);
+            }
+            appendChannel.position(curOffset);
+            appendStream = new DatabaseOutputStream(new BufferedOutputStream(Channels.newOutputStream(appendChannel), APPEND_BUFFER_SIZE), format);
+        }
+        int writtenBytes = appendStream.write(record);
+        appendStream.flush();
+        commitWriter.registerAppend(appendChannel);
+        appendedSinceOpen = true;
+        return writtenBytes;
+    }
+
+    /**
+     * Канал переоткрывается, если его закрыло прерывание одного из читающих потоков
+     */
+    private FileChannel readChannel() throws IOException {
+        FileChannel channel = readChannel;
+        if (channel == null || !channel.isOpen()) {
+            synchronized (this) {
+                if (readChannel == null || !readChannel.isOpen()) {
+                    readChannel = FileChannel.open(pathToSegment, StandardOpenOption.READ);
+                }
+                channel = readChannel;
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Отображает сегмент в память при первом чтении после того, как он стал read-only.
+     * Java не дает явно снять отображение, поэтому при закрытии сегмента ссылка просто сбрасывается,
+     * и память освобождается сборщиком мусора.
+     *
+     * @return отображение сегмента или null, если сегмент читается через канал
+     */
+    private ByteBuffer mapping() throws IOException {
+        if (config.getSegmentReadMode() != SegmentReadMode.MMAP || !isReadOnly() || curOffset > Integer.MAX_VALUE) {
+            return null;
+        }
+        MappedByteBuffer mappedSegment = mapping;
+        if (mappedSegment == null) {
+            synchronized (this) {
+                if (mapping == null) {
+                    mapping = readChannel().map(FileChannel.MapMode.READ_ONLY, 0, curOffset);
+                }
+                mappedSegment = mapping;
+            }
+        }
+        return mappedSegment;
+    }
+
+    /**
+     * Декодирует запись (см {@link DatabaseOutputStream#write(WritableDatabaseRecord)}) прямо из отображения сегмента
+     * (или из буфера, в который запись уже прочитана целиком).
+     * Смещение указывает на размер ключа, то есть уже после контрольной суммы записи.
+     * Использует только абсолютные операции, поэтому отображение может разделяться между потоками.
+     */
+    private static Optional<byte[]> readValue(ByteBuffer mappedSegment, long offset) throws IOException {
+        int position = (int) offset;
+        if (position + SIZE_OF_INT > mappedSegment.limit()) {
+            return Optional.empty();
+        }
+        int valueSizePosition = position + SIZE_OF_INT + mappedSegment.getInt(position);
+        if (valueSizePosition + SIZE_OF_INT > mappedSegment.limit()) {
+            throw new IOException("Unexpected end of segment when reading record at offset " + offset);
+        }
+        int valueSize = mappedSegment.getInt(valueSizePosition);
+        if (valueSize == REMOVED_OBJECT_SIZE) {
+            return Optional.empty();
+        }
+        int valuePosition = valueSizePosition + SIZE_OF_INT;
+        if (valuePosition + valueSize > mappedSegment.limit()) {
+            throw new IOException("Unexpected end of segment when reading record at offset " + offset);
+        }
+        byte[] value = new byte[valueSize];
+        ByteBuffer view = mappedSegment.duplicate();
+        view.position(valuePosition);
+        view.get(value);
+        return Optional.of(value);
+    }
+
+    /**
+     * Декодирует запись (см {@link DatabaseOutputStream#write(WritableDatabaseRecord)}) позиционным чтением.
+     * Смещение указывает на размер ключа, то есть уже после контрольной суммы записи.
+     * Заголовок и начало значения читаются одним запросом, остаток значения (если не поместился) - вторым.
+     *
+     * @return значение записи или {@link Optional#empty()}, если по смещению лежит отметка об удалении или конец файла
+     */
+    private static Optional<byte[]> readValue(FileChannel channel, long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(READ_AHEAD_SIZE);
+        int headSize = readFully(channel, head, offset);
+        if (headSize < SIZE_OF_INT) {
+            return Optional.empty();
+        }
+        int keySize = head.getInt(0);
+        int valueSizePosition = SIZE_OF_INT + keySize;
+        int valueSize;
+        if (headSize >= valueSizePosition + SIZE_OF_INT) {
+            valueSize = head.getInt(valueSizePosition);
+        } else {
+            ByteBuffer valueSizeBuffer = ByteBuffer.allocate(SIZE_OF_INT);
+            if (readFully(channel, valueSizeBuffer, offset + valueSizePosition) < SIZE_OF_INT) {
+                throw new IOException("Unexpected end of segment when reading record at offset " + offset);
+            }
+            valueSize = valueSizeBuffer.getInt(0);
+        }
+        if (valueSize == REMOVED_OBJECT_SIZE) {
+            return Optional.empty();
+        }
+        byte[] value = new byte[valueSize];
+        int valuePosition = valueSizePosition + SIZE_OF_INT;
+        int prefetched = Math.max(0, Math.min(valueSize, headSize - valuePosition));
+        if (prefetched > 0) {
+            head.position(valuePosition);
+            head.get(value, 0, prefetched);
+        }
+        if (prefetched < valueSize) {
+            ByteBuffer rest = ByteBuffer.wrap(value, prefetched, valueSize - prefetched);
+            if (readFully(channel, rest, offset + valuePosition + prefetched) < valueSize - prefetched) {
+                throw new IOException("Unexpected end of segment when reading record at offset " + offset);
+            }
+        }
+        return Optional.of(value);
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position() - start);
+            if (read == -1) {
+                break;
+            }
+        }
+        return buffer.position() - start;
+    }
+
+    private void sealIfFull() throws IOException {
+        if (isReadOnly()) {
+            closeAppendChannel();
+            trimPreallocated();
+            writeReadOnlyFiles();
+        }
+    }
+
+    /**
+     * Отрезает заранее выделенное, но не занятое записями место в конце файла
+     */
+    private void trimPreallocated() throws IOException {
+        if (format == SegmentFormat.current() && Files.size(pathToSegment) > curOffset) {
+            try (FileChannel channel = FileChannel.open(pathToSegment, StandardOpenOption.WRITE)) {
+                channel.truncate(curOffset);
+            }
+        }
+    }
+
+    /**
+     * Записывает подсказку для быстрой инициализации и фильтр Блума, если их нет или сегмент менялся после их записи.
+     * Неустаревший фильтр читается с диска.
+     * Сегмент без своего индекса для подсказки заново просматривает свой файл, а фильтр не строит:
+     * чтения по положению записи его не используют
+     */
+    private void writeReadOnlyFiles() throws IOException {
+        boolean stale = appendedSinceOpen;
+        if (stale || Files.notExists(SegmentHintFile.pathFor(pathToSegment))) {
+            SegmentHintFile.write(pathToSegment, curOffset, segmentIndex != null ? segmentIndex : scanIndex());
+        }
+        if (segmentIndex == null) {
+            appendedSinceOpen = false;
+            return;
+        }
+        if (stale || filter == null) {
+            BloomFilter segmentFilter = stale ? null : SegmentFilterFile.read(pathToSegment, curOffset);
+            if (segmentFilter == null) {
+                segmentFilter = new BloomFilter(segmentIndex.size());
+                BloomFilter newFilter = segmentFilter;
+                segmentIndex.forEach((key, offsetInfo) -> newFilter.put(key));
+                SegmentFilterFile.write(pathToSegment, curOffset, segmentFilter);
+            }
+            filter = segmentFilter;
+        }
+        appendedSinceOpen = false;
+    }
+
+    /**
+     * @return временный индекс сегмента, составленный просмотром его записей
+     */
+    private SegmentIndex scanIndex() throws IOException {
+        SegmentIndex scannedIndex = new SegmentIndex(config.getIndexMode());
+        SegmentScanner.scan(pathToSegment, (keyBytes, keyOffset, keyLength, recordOffset, removed) ->
+                scannedIndex.onIndexedEntityUpdated(ObjectKey.copyOf(keyBytes, keyOffset, keyLength),
+                        removed ? null : new SegmentOffsetInfoImpl(recordOffset)));
+        return scannedIndex;
     }
 }
@@ -0,0 +1,486 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableEngine;
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.basics.logic.Table;
+import com.itmo.java.basics.logic.io.EntryIterator;
+import com.itmo.java.basics.logic.io.MergingEntryIterator;
+import com.itmo.java.basics.logic.io.SortedSegmentFile;
+import com.itmo.java.basics.logic.io.TableEngineFile;
+import com.itmo.java.basics.logic.io.WriteAheadLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Таблица на отсортированных сегментах ({@link TableEngine#SSTABLE}).
+ * <p>
+ * Изменения пишутся в журнал {@link WriteAheadLog} и в отсортированную таблицу в памяти (memtable).
+ * Когда memtable вырастает до {@link DatabaseConfig#getSortedMemtableSizeBytes()}, она сбрасывается в новый
+ * неизменяемый {@link SortedSegmentFile}, а журнал очищается. Ключ ищется в memtable, затем в сегментах
+ * от новых к старым. Когда подряд накапливается {@link DatabaseConfig#getCompactionMinSegments()} сегментов
+ * одного яруса (близкого размера), они сливаются в один сегмент следующего яруса, см. {@link #compact()}.
+ * <p>
+ * Память таблицы ограничена размером memtable, разреженными индексами и фильтрами Блума сегментов
+ * и не зависит от числа ключей в сегментах.
+ * <p>
+ * Чтения идут параллельно друг с другом и с записью в журнал, изменения делает один поток под {@link #appendLock}.
+ * Memtable и список сегментов меняются под записью {@link #stateLock}, а читаются под ней же на чтение
+ */
+public class SortedTable implements Table {
+    /**
+     * Отмечает отсутствующий ключ в {@link #find(ObjectKey)}, чтобы отличить его от отметки об удалении (null)
+     */
+    private static final byte[] NOT_FOUND = new byte[0];
+
+    /**
+     * Изменения таблицы делает один поток за раз
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /**
+     * Защищает memtable и список сегментов от изменения во время чтения
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private final String tableName;
+    private final Path pathToTable;
+    private final DatabaseConfig config;
+    private final WriteAheadLog writeAheadLog;
+    /**
+     * Последние значения ключей, еще не сброшенные в сегменты
+     */
+    private final Memtable memtable = new Memtable();
+    /**
+     * Сегменты от старых к новым
+     */
+    private final List<SortedSegmentFile> segments;
+    private long lastSegmentId;
+
+    private SortedTable(String tableName, Path pathToTable, DatabaseConfig config, GroupCommitWriter commitWriter,
+                        List<SortedSegmentFile> segments) throws IOException {
+        this.tableName = tableName;
+        this.pathToTable = pathToTable;
+        this.config = config;
+        this.segments = segments;
+        this.lastSegmentId = segments.isEmpty() ? -1 : segmentId(tableName, segments.get(segments.size() - 1).getName());
+        this.writeAheadLog = WriteAheadLog.open(Paths.get(pathToTable.toString(), WriteAheadLog.FILE_NAME), commitWriter,
+                memtable::put);
+    }
+
+    /**
+     * Создает директорию новой таблицы и отмечает в ней способ хранения
+     *
+     * @throws DatabaseException если не удалось создать директорию или файлы таблицы
+     */
+    public static Table create(String tableName, Path pathToDatabaseRoot, DatabaseConfig config,
+                               GroupCommitWriter commitWriter) throws DatabaseException {
+        Path pathToTable = Paths.get(pathToDatabaseRoot.toString(), tableName);
+        try {
+            Files.createDirectory(pathToTable);
+            TableEngineFile.write(pathToTable, TableEngine.SSTABLE);
+            return new SortedTable(tableName, pathToTable, config, commitWriter, new ArrayList<>());
+        } catch (IOException e) {
+            throw new DatabaseException("IO exception when creating table " + tableName + " with path " + pathToTable.toString(), e);
+        }
+    }
+
+    /**
+     * Открывает существующую таблицу: читает индексы сегментов и восстанавливает memtable из журнала.
+     * Недописанные сегменты (после сбоя посреди сброса или слияния) удаляются
+     *
+     * @throws DatabaseException если файлы таблицы не удалось прочитать
+     */
+    public static Table initialize(String tableName, Path pathToDatabaseRoot, DatabaseConfig config,
+                                   GroupCommitWriter commitWriter) throws DatabaseException {
+        Path pathToTable = Paths.get(pathToDatabaseRoot.toString(), tableName);
+        File[] files = pathToTable.toFile().listFiles();
+        if (files == null) {
+            throw new DatabaseException("Can not read content of directory " + pathToTable);
+        }
+        List<SortedSegmentFile> segments = new ArrayList<>();
+        try {
+            for (File file : files) {
+                if (SortedSegmentFile.isTempFile(file.getName())) {
+                    Files.deleteIfExists(file.toPath());
+                } else if (SortedSegmentFile.isSegmentFile(file.getName())) {
+                    segments.add(SortedSegmentFile.open(file.toPath()));
+                }
+            }
+            segments.sort(Comparator.comparingLong((SortedSegmentFile segment) -> segmentId(tableName, segment.getName()))
+                    .thenComparingLong(segment -> mergeGeneration(tableName, segment.getName())));
+            return new SortedTable(tableName, pathToTable, config, commitWriter, segments);
+        } catch (IOException e) {
+            for (SortedSegmentFile segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            throw new DatabaseException("IOException when initializing table " + tableName + " with path " + pathToTable, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return tableName;
+    }
+
+    @Override
+    public void write(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        if (objectKey == null) {
+            throw new DatabaseException("ObjectKey is null");
+        }
+        appendLock.lock();
+        try {
+            append(objectKey, objectValue);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<byte[]> read(ObjectKey objectKey) throws DatabaseException {
+        if (objectKey == null) {
+            throw new DatabaseException("ObjectKey is null");
+        }
+        byte[] value;
+        stateLock.readLock().lock();
+        try {
+            value = find(objectKey);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        return value == NOT_FOUND ? Optional.empty() : Optional.ofNullable(value);
+    }
+
+    @Override
+    public void delete(ObjectKey objectKey) throws DatabaseException {
+        if (objectKey == null) {
+            throw new DatabaseException("ObjectKey is null");
+        }
+        appendLock.lock();
+        try {
+            byte[] value = find(objectKey);
+            if (value == NOT_FOUND || value == null) {
+                throw new DatabaseException("Key " + objectKey + " not found in table " + tableName);
+            }
+            append(objectKey, null);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<ObjectKey, byte[]> scan(ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) throws DatabaseException {
+        Map<ObjectKey, byte[]> page = new LinkedHashMap<>();
+        if (limit <= 0) {
+            return page;
+        }
+        ObjectKey from = fromInclusive == null || fromInclusive.compareTo(prefix) < 0 ? prefix : fromInclusive;
+        stateLock.readLock().lock();
+        try {
+            List<EntryIterator> sources = new ArrayList<>();
+            sources.add(memtable.iterator(from));
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                sources.add(segments.get(i).iterator(from));
+            }
+            EntryIterator entries = new MergingEntryIterator(sources);
+            while (page.size() < limit && entries.next()) {
+                ObjectKey key = entries.key();
+                if (!key.startsWith(prefix) || toExclusive != null && key.compareTo(toExclusive) >= 0) {
+                    break;
+                }
+                if (entries.value() != null) {
+                    page.put(key, entries.value());
+                }
+            }
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when scanning keys of table " + tableName, e);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Сливает сегменты по ярусам. Ярус сегмента - его поколение слияния: сброшенная memtable лежит в ярусе 0,
+     * а слияние сегментов яруса g дает сегмент яруса g + 1, поэтому сегменты одного яруса собраны примерно
+     * из одинакового числа memtable и близки по размеру. Когда подряд набирается
+     * {@link DatabaseConfig#getCompactionMinSegments()} сегментов одного яруса, сливаются только они,
+     * и каждая запись переписывается не чаще раза на ярус, а не при каждом слиянии всей таблицы.
+     * <p>
+     * Под блокировками таблицы только выбираются сливаемые сегменты и подменяются результатом, сами сегменты
+     * неизменяемы и читаются параллельно с обычными запросами. Новый сегмент сбрасывается на диск вместе
+     * с директорией до удаления старых, поэтому после сбоя на любом шаге удаленные ключи не появляются снова.
+     */
+    @Override
+    public void compact() throws DatabaseException {
+        while (true) {
+            List<SortedSegmentFile> run;
+            boolean includesOldest;
+            appendLock.lock();
+            try {
+                run = findTierRun();
+                if (run.isEmpty()) {
+                    return;
+                }
+                includesOldest = run.get(0) == segments.get(0);
+            } finally {
+                appendLock.unlock();
+            }
+            mergeRun(run, includesOldest);
+        }
+    }
+
+    /**
+     * @return самые новые подряд идущие сегменты одного яруса, если их не меньше
+     * {@link DatabaseConfig#getCompactionMinSegments()} (но не меньше двух), иначе пустой список
+     */
+    private List<SortedSegmentFile> findTierRun() {
+        int minRunLength = Math.max(2, config.getCompactionMinSegments());
+        int runEnd = segments.size();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            long tier = mergeGeneration(tableName, segments.get(i).getName());
+            if (i > 0 && mergeGeneration(tableName, segments.get(i - 1).getName()) == tier) {
+                continue;
+            }
+            if (runEnd - i >= minRunLength) {
+                return new ArrayList<>(segments.subList(i, runEnd));
+            }
+            runEnd = i;
+        }
+        return List.of();
+    }
+
+    /**
+     * Сливает подряд идущие сегменты в один сегмент следующего яруса на их месте. Отметки об удалении
+     * отбрасываются, только если среди сливаемых есть самый старый сегмент: иначе они должны скрывать
+     * значения в более старых. В этом случае старые сегменты удаляются от самого старого к новому
+     * со сбросом директории после каждого, чтобы после сбоя не осталось значения без отметки об удалении
+     */
+    private void mergeRun(List<SortedSegmentFile> run, boolean dropTombstones) throws DatabaseException {
+        SortedSegmentFile newest = run.get(run.size() - 1);
+        Path mergedPath = Paths.get(pathToTable.toString(), createSegmentName(segmentId(tableName, newest.getName()),
+                mergeGeneration(tableName, newest.getName()) + 1));
+        List<EntryIterator> sources = new ArrayList<>();
+        long expectedEntries = 0;
+        for (int i = run.size() - 1; i >= 0; i--) {
+            sources.add(run.get(i).iterator(null));
+            expectedEntries += run.get(i).getEntryCount();
+        }
+        EntryIterator entries = new MergingEntryIterator(sources);
+        if (dropTombstones) {
+            entries = withoutTombstones(entries);
+        }
+        SortedSegmentFile merged = null;
+        try {
+            if (SortedSegmentFile.write(mergedPath, entries, expectedEntries) > 0) {
+                merged = SortedSegmentFile.open(mergedPath);
+            } else {
+                Files.delete(mergedPath);
+            }
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when merging segments of table " + tableName, e);
+        }
+        appendLock.lock();
+        stateLock.writeLock().lock();
+        try {
+            int runStart = segments.indexOf(run.get(0));
+            segments.subList(runStart, runStart + run.size()).clear();
+            if (merged != null) {
+                segments.add(runStart, merged);
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+            appendLock.unlock();
+        }
+        for (SortedSegmentFile segment : run) {
+            try {
+                segment.delete();
+                if (dropTombstones) {
+                    SortedSegmentFile.syncDirectory(pathToTable);
+                }
+            } catch (IOException e) {
+                throw new DatabaseException("IOException when deleting merged segment " + segment.getName() + " of table " + tableName, e);
+            }
+        }
+    }
+
+    /**
+     * Закрывает журнал и сегменты. Memtable не сбрасывается: при следующем открытии она восстанавливается из журнала
+     */
+    @Override
+    public void close() throws DatabaseException {
+        appendLock.lock();
+        stateLock.writeLock().lock();
+        try {
+            try {
+                writeAheadLog.close();
+            } catch (IOException e) {
+                throw new DatabaseException("IOException when closing write-ahead log of table " + tableName, e);
+            }
+            for (SortedSegmentFile segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    throw new DatabaseException("IOException when closing segment " + segment.getName() + " of table " + tableName, e);
+                }
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Вызывается под {@link #appendLock} или под {@link #stateLock} на чтение
+     *
+     * @return значение ключа, null для удаленного ключа или {@link #NOT_FOUND}, если ключа в таблице нет
+     */
+    private byte[] find(ObjectKey objectKey) throws DatabaseException {
+        if (memtable.containsKey(objectKey)) {
+            return memtable.get(objectKey);
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            SortedSegmentFile segment = segments.get(i);
+            if (!segment.mightContain(objectKey)) {
+                continue;
+            }
+            try {
+                EntryIterator entries = segment.iterator(objectKey);
+                if (entries.next() && entries.key().equals(objectKey)) {
+                    return entries.value();
+                }
+            } catch (IOException e) {
+                throw new DatabaseException("IOException when reading segment " + segment.getName() + " by key " + objectKey, e);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Вызывается под {@link #appendLock}. Memtable сбрасывается, когда переполнена она или журнал:
+     * при частых записях немногих ключей растет только журнал
+     */
+    private void append(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        try {
+            writeAheadLog.append(objectKey, objectValue);
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when writing to write-ahead log of table " + tableName + " by key " + objectKey, e);
+        }
+        stateLock.writeLock().lock();
+        try {
+            memtable.put(objectKey, objectValue);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        long memtableSizeBytes = config.getSortedMemtableSizeBytes();
+        if (memtable.getSizeBytes() >= memtableSizeBytes || writeAheadLog.getSize() >= memtableSizeBytes) {
+            flushMemtable();
+        }
+    }
+
+    /**
+     * Сбрасывает memtable в новый сегмент и очищает журнал. Пока сегмент пишется, memtable никто не меняет,
+     * поэтому чтения блокируются только на подмену memtable сегментом
+     */
+    private void flushMemtable() throws DatabaseException {
+        lastSegmentId = SegmentImpl.nextSegmentId(lastSegmentId);
+        Path segmentPath = Paths.get(pathToTable.toString(), createSegmentName(lastSegmentId, 0));
+        try {
+            SortedSegmentFile.write(segmentPath, memtable.iterator(null), memtable.size());
+            SortedSegmentFile segment = SortedSegmentFile.open(segmentPath);
+            stateLock.writeLock().lock();
+            try {
+                segments.add(segment);
+                memtable.clear();
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+            writeAheadLog.reset();
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when flushing memtable of table " + tableName + " to segment " + segmentPath, e);
+        }
+    }
+
+    private String createSegmentName(long segmentId, long mergeGeneration) {
+        String name = SegmentImpl.createSegmentName(tableName, segmentId);
+        if (mergeGeneration > 0) {
+            name += "_" + mergeGeneration;
+        }
+        return name + SortedSegmentFile.SEGMENT_SUFFIX;
+    }
+
+    /**
+     * @return номер сегмента из имени вида "таблица_номер[_поколение].sst"
+     */
+    private static long segmentId(String tableName, String segmentName) {
+        String[] parts = nameParts(tableName, segmentName);
+        return parts.length > 0 ? parseOrZero(parts[0]) : 0;
+    }
+
+    /**
+     * @return сколько раз сегмент с этим номером был получен слиянием (0 - сегмент получен сбросом memtable),
+     * это же ярус сегмента при слиянии
+     */
+    private static long mergeGeneration(String tableName, String segmentName) {
+        String[] parts = nameParts(tableName, segmentName);
+        return parts.length > 1 ? parseOrZero(parts[1]) : 0;
+    }
+
+    private static String[] nameParts(String tableName, String segmentName) {
+        String prefix = tableName + "_";
+        if (!segmentName.startsWith(prefix)) {
+            return new String[0];
+        }
+        return segmentName.substring(prefix.length(), segmentName.length() - SortedSegmentFile.SEGMENT_SUFFIX.length())
+                .split("_");
+    }
+
+    private static long parseOrZero(String part) {
+        try {
+            return Long.parseLong(part);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static EntryIterator withoutTombstones(EntryIterator entries) {
+        return new EntryIterator() {
+            @Override
+            public boolean next() throws IOException {
+                while (entries.next()) {
+                    if (entries.value() != null) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public ObjectKey key() {
+                return entries.key();
+            }
+
+            @Override
+            public byte[] value() {
+                return entries.value();
+            }
+        };
+    }
+}
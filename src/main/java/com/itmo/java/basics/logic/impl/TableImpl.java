@@ -1,46 +1,162 @@
 package com.itmo.java.basics.logic.impl;
 
+import com.itmo.java.basics.config.DatabaseConfig;
 import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.index.RecordLocation;
+import com.itmo.java.basics.index.impl.BloomFilter;
+import com.itmo.java.basics.index.impl.BloomFilterStats;
 import com.itmo.java.basics.index.impl.TableIndex;
 import com.itmo.java.basics.initialization.TableInitializationContext;
+import com.itmo.java.basics.logic.ObjectKey;
 import com.itmo.java.basics.logic.Segment;
 import com.itmo.java.basics.logic.Table;
+import com.itmo.java.basics.logic.io.SegmentFilterFile;
+import com.itmo.java.basics.logic.io.SegmentHintFile;
+import com.itmo.java.basics.logic.io.WriteAheadLog;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Таблица журнального движка. Потокобезопасна: чтения по ключу и обходы идут параллельно друг с другом
+ * и с дозаписью в журнал, а изменения одновременно делает только один поток.
+ * <p>
+ * Изменения упорядочены {@link #appendLock}: журнал, активный сегмент и список сегментов меняет только ее владелец.
+ * Memtable, фильтр ключей и индекс читаются под {@link #stateLock} на чтение, а меняются под ней же на запись,
+ * которая берется только на время изменения памяти, публикации сброшенной memtable и подмены сегментов после сжатия.
+ * Запись memtable в сегменты и ожидание их сброса на диск идут без нее.
+ * Поэтому сегмент, найденный по индексу, не закрывается, пока запись из него читается.
+ * <p>
+ * Memtable с журналом включаются {@link DatabaseConfig#getMemtableSizeBytes()}. Без них каждое изменение
+ * сразу дописывается в активный сегмент и попадает в индекс: на диск оно пишется один раз, а не дважды,
+ * зато повторные записи одного ключа не схлопываются
+ */
 public class TableImpl implements Table {
+    private static final int MIN_FILTER_CAPACITY = 1024;
+    /**
+     * Изменения таблицы делает один поток за раз
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /**
+     * Защищает memtable, фильтр ключей, индекс и сегменты от изменения во время чтения
+     */
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
     private String tableName;
     private Path pathToTable;
     private TableIndex tableIndex;
     private Segment curSegment;
+    private List<Segment> segments = new ArrayList<>();
+    private final DatabaseConfig config;
+    private final GroupCommitWriter commitWriter;
+    /**
+     * Сколько сегментов в начале списка получено последним сжатием
+     */
+    private int compactedSegmentsCount = 0;
+    /**
+     * Номер последнего созданного сегмента таблицы
+     */
+    private long lastSegmentId = -1;
+    /**
+     * Фильтр Блума по всем ключам таблицы: отсекает запросы к отсутствующим ключам до обращения к индексу
+     */
+    private BloomFilter keyFilter = new BloomFilter(MIN_FILTER_CAPACITY);
+    /**
+     * Сколько новых ключей добавлено в фильтр. Когда их больше емкости фильтра, он перестраивается с большим размером
+     */
+    private long filterKeys = 0;
+    /**
+     * Что пришлось исправить в файлах таблицы при инициализации, пока не сообщено клиенту
+     */
+    private final AtomicReference<DatabaseException> recoveryFailure = new AtomicReference<>();
+    /**
+     * Журнал изменений, которые пока есть только в {@link #memtable}. Null, если memtable выключена
+     */
+    private WriteAheadLog writeAheadLog;
+    /**
+     * Последние изменения таблицы. Пишутся в сегменты пачкой, когда занимают больше
+     * {@link DatabaseConfig#getMemtableSizeBytes()}, повторные записи одного ключа до этого схлопываются
+     */
+    private final Memtable memtable = new Memtable();
 
     public static Table create(String tableName, Path pathToDatabaseRoot, TableIndex tableIndex) throws DatabaseException {
+        DatabaseConfig config = new DatabaseConfig();
+        return create(tableName, pathToDatabaseRoot, tableIndex, config, new GroupCommitWriter(config));
+    }
+
+    public static Table create(String tableName, Path pathToDatabaseRoot, TableIndex tableIndex, DatabaseConfig config,
+                               GroupCommitWriter commitWriter) throws DatabaseException {
         Path pathToTable = Paths.get(pathToDatabaseRoot.toString(), tableName);
         try {
             Files.createDirectory(pathToTable);
         } catch (IOException e) {
             throw new DatabaseException("IO exception when creating table " + tableName + " with path " + pathToTable.toString(), e);
         }
-        return new CachingTable(new TableImpl(tableName, pathToTable, tableIndex));
+        TableImpl table = new TableImpl(tableName, pathToTable, tableIndex, config, commitWriter);
+        table.openWriteAheadLog();
+        return new CachingTable(table);
     }
 
-    private TableImpl(String tableName, Path pathToTable, TableIndex tableIndex) {
+    private TableImpl(String tableName, Path pathToTable, TableIndex tableIndex, DatabaseConfig config,
+                      GroupCommitWriter commitWriter) {
         this.tableName = tableName;
         this.pathToTable = pathToTable;
         this.tableIndex = tableIndex;
+        this.config = config;
+        this.commitWriter = commitWriter;
     }
 
-    private TableImpl(TableInitializationContext context){
-        this(context.getTableName(), context.getTablePath(), context.getTableIndex());
+    private TableImpl(TableInitializationContext context, DatabaseConfig config, GroupCommitWriter commitWriter){
+        this(context.getTableName(), context.getTablePath(), context.getTableIndex(), config, commitWriter);
         this.curSegment = context.getCurrentSegment();
+        this.segments = new ArrayList<>(context.getSegments());
+        this.recoveryFailure.set(context.getRecoveryFailure());
+        rebuildKeyFilter();
+        for (Segment segment : segments) {
+            lastSegmentId = Math.max(lastSegmentId, SegmentImpl.parseSegmentId(tableName, segment.getName()));
+            if (segment != curSegment) {
+                try {
+                    segment.seal();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("IOException when sealing segment " + segment.getName(), e);
+                }
+            }
+        }
     }
 
-    public static Table initializeFromContext(TableInitializationContext context) {
-        return new CachingTable(new TableImpl(context));
+    public static Table initializeFromContext(TableInitializationContext context) throws DatabaseException {
+        DatabaseConfig config = new DatabaseConfig();
+        return initializeFromContext(context, config, new GroupCommitWriter(config));
+    }
+
+    /**
+     * Создает таблицу по проиндексированным сегментам и восстанавливает из журнала изменения, не попавшие в сегменты
+     *
+     * @throws DatabaseException если не удалось прочитать журнал
+     */
+    public static Table initializeFromContext(TableInitializationContext context, DatabaseConfig config,
+                                              GroupCommitWriter commitWriter) throws DatabaseException {
+        TableImpl table = new TableImpl(context, config, commitWriter);
+        table.openWriteAheadLog();
+        return new CachingTable(table);
     }
 
     @Override
@@ -49,58 +165,504 @@ public class TableImpl implements Table {
     }
 
     @Override
-    public void write(String objectKey, byte[] objectValue) throws DatabaseException {
+    public void write(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
         if (objectKey == null) {
             throw new DatabaseException("ObjectKey is null");
         }
-        if (curSegment == null) {
-            curSegment = SegmentImpl.create(SegmentImpl.createSegmentName(tableName), pathToTable);
-        }
+        throwRecoveryFailure();
+        appendLock.lock();
         try {
-            boolean result = curSegment.write(objectKey, objectValue);
-            if (!result) {
-                curSegment = SegmentImpl.create(SegmentImpl.createSegmentName(tableName), pathToTable);
-                curSegment.write(objectKey, objectValue);
-            }
-        } catch (IOException e) {
-            throw new DatabaseException("IOException when writing to segment " + curSegment.getName() + " by key " + objectKey, e);
+            append(objectKey, objectValue);
+        } finally {
+            appendLock.unlock();
         }
-        tableIndex.onIndexedEntityUpdated(objectKey, curSegment);
     }
 
     @Override
-    public Optional<byte[]> read(String objectKey) throws DatabaseException {
+    public Optional<byte[]> read(ObjectKey objectKey) throws DatabaseException {
         if (objectKey == null) {
             throw new DatabaseException("ObjectKey is null");
         }
-        Optional<Segment> segment = tableIndex.searchForKey(objectKey);
-        Optional<byte[]> objectValue = Optional.empty();
+        throwRecoveryFailure();
+        stateLock.readLock().lock();
         try {
-            if (segment.isPresent()) {
-                objectValue = segment.get().read(objectKey);
+            if (memtable.containsKey(objectKey)) {
+                return Optional.ofNullable(memtable.get(objectKey));
             }
-        } catch (IOException e) {
-            throw new DatabaseException("IOException when reading segment " + curSegment.getName() + " by key " + objectKey, e);
+            if (!keyFilter.mightContain(objectKey)) {
+                BloomFilterStats.recordRejected();
+                return Optional.empty();
+            }
+            BloomFilterStats.recordPassed();
+            Optional<RecordLocation> location = tableIndex.searchForLocation(objectKey);
+            if (location.isEmpty() && !tableIndex.containsKey(objectKey)) {
+                BloomFilterStats.recordFalsePositive();
+            }
+            return location.isPresent() ? readRecord(objectKey, location.get()) : Optional.empty();
+        } catch (IOException | UncheckedIOException e) {
+            throw new DatabaseException("IOException when reading table " + tableName + " by key " + objectKey, e);
+        } finally {
+            stateLock.readLock().unlock();
         }
-        return objectValue;
     }
 
+    /**
+     * Проверяет наличие ключа только под {@link #appendLock}: memtable, фильтр и индекс меняет лишь ее владелец
+     */
     @Override
-    public void delete(String objectKey) throws DatabaseException {
+    public void delete(ObjectKey objectKey) throws DatabaseException {
         if (objectKey == null) {
             throw new DatabaseException("ObjectKey is null");
         }
-        Optional<Segment> segment = tableIndex.searchForKey(objectKey);
-        if (segment.isEmpty()) {
+        throwRecoveryFailure();
+        appendLock.lock();
+        try {
+            checkKeyExists(objectKey);
+            append(objectKey, null);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Сообщает первой после инициализации команде, что файлы таблицы пришлось исправить с потерей данных.
+     * Следующие команды выполняются как обычно
+     */
+    private void throwRecoveryFailure() throws DatabaseException {
+        DatabaseException failure = recoveryFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Удалить можно только ключ, у которого есть значение: отсутствующий и уже удаленный ключ - ошибка
+     */
+    private void checkKeyExists(ObjectKey objectKey) throws DatabaseException {
+        if (memtable.containsKey(objectKey)) {
+            if (memtable.get(objectKey) == null) {
+                throw new DatabaseException("Segment by key " + objectKey + " not found");
+            }
+            return;
+        }
+        if (!keyFilter.mightContain(objectKey)) {
+            BloomFilterStats.recordRejected();
             throw new DatabaseException("Segment by key " + objectKey + " not found");
         }
+        Optional<byte[]> value;
+        stateLock.readLock().lock();
+        try {
+            Optional<RecordLocation> location = tableIndex.searchForLocation(objectKey);
+            value = location.isPresent() ? readRecord(objectKey, location.get()) : Optional.empty();
+        } catch (IOException | UncheckedIOException e) {
+            throw new DatabaseException("IOException when searching for key " + objectKey + " in table " + tableName, e);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        if (value.isEmpty()) {
+            throw new DatabaseException("Segment by key " + objectKey + " not found");
+        }
+    }
+
+    /**
+     * Ключи-кандидаты берутся из индекса таблицы и из memtable (до последнего кандидата из индекса),
+     * а ключи, последняя запись которых - отметка об удалении, отсеиваются чтением значения.
+     * Если из-за этого страница неполная, берутся следующие кандидаты
+     */
+    @Override
+    public Map<ObjectKey, byte[]> scan(ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix, int limit) throws DatabaseException {
+        throwRecoveryFailure();
+        Map<ObjectKey, byte[]> page = new LinkedHashMap<>();
+        ObjectKey from = fromInclusive == null || fromInclusive.compareTo(prefix) < 0 ? prefix : fromInclusive;
+        stateLock.readLock().lock();
         try {
-            boolean result = segment.get().delete(objectKey);
-            if (!result) {
-                throw new DatabaseException("Segment " + curSegment.getName() + " is readOnly. Can not delete");
+            while (page.size() < limit) {
+                int requested = limit - page.size();
+                List<ObjectKey> keys = tableIndex.nextKeys(from, toExclusive, prefix, requested);
+                boolean lastKeys = keys.size() < requested;
+                ObjectKey upTo = lastKeys ? null : keys.get(keys.size() - 1);
+                NavigableSet<ObjectKey> candidates = new TreeSet<>(TableIndex.KEY_ORDER);
+                candidates.addAll(keys);
+                int memtableValues = 0;
+                for (Map.Entry<ObjectKey, byte[]> entry : memtable.tailMap(from).entrySet()) {
+                    ObjectKey key = entry.getKey();
+                    if (memtableValues >= requested || !key.startsWith(prefix)
+                            || toExclusive != null && key.compareTo(toExclusive) >= 0
+                            || upTo != null && key.compareTo(upTo) > 0) {
+                        break;
+                    }
+                    candidates.add(key);
+                    if (entry.getValue() != null) {
+                        memtableValues++;
+                    }
+                }
+                for (ObjectKey key : candidates) {
+                    if (page.size() >= limit) {
+                        break;
+                    }
+                    if (memtable.containsKey(key)) {
+                        if (memtable.get(key) != null) {
+                            page.put(key, memtable.get(key));
+                        }
+                        continue;
+                    }
+                    Optional<RecordLocation> location = tableIndex.searchForLocation(key);
+                    if (location.isPresent()) {
+                        readRecord(key, location.get()).ifPresent(value -> page.put(key, value));
+                    }
+                }
+                if (lastKeys) {
+                    break;
+                }
+                from = upTo.successor();
             }
+        } catch (IOException | UncheckedIOException e) {
+            throw new DatabaseException("IOException when scanning keys of table " + tableName, e);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        return page;
+    }
+
+    /**
+     * Сжимает все read-only сегменты таблицы (кроме активного).
+     * Актуальные ключи собираются под {@link #appendLock}, ссылки в индексе подменяются еще и под записью
+     * {@link #stateLock}, а чтение старых сегментов и запись новых идут параллельно с обычными запросами.
+     * Новые сегменты сбрасываются на диск до удаления старых, старые удаляются от самого старого к новому,
+     * поэтому после сбоя на любом шаге инициализация восстанавливает те же данные.
+     */
+    @Override
+    public void compact() throws DatabaseException {
+        List<Segment> sealedSegments;
+        Map<ObjectKey, RecordLocation> liveKeys = new HashMap<>();
+        appendLock.lock();
+        try {
+            int sealedCount = curSegment == null ? segments.size() : segments.size() - 1;
+            if (sealedCount - compactedSegmentsCount < config.getCompactionMinSegments()) {
+                return;
+            }
+            sealedSegments = new ArrayList<>(segments.subList(0, sealedCount));
+            Set<Segment> sealedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            sealedSet.addAll(sealedSegments);
+            try {
+                tableIndex.forEachLocation((key, location) -> {
+                    if (location != null && sealedSet.contains(location.getSegment())) {
+                        liveKeys.put(key, location);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw new DatabaseException("IOException when collecting live keys of table " + tableName, e);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        Map<ObjectKey, RecordLocation> relocatedKeys = new HashMap<>();
+        List<Segment> compactedSegments = new ArrayList<>();
+        String newestSealedName = sealedSegments.get(sealedSegments.size() - 1).getName();
+        try {
+            Segment output = null;
+            for (Map.Entry<ObjectKey, RecordLocation> liveKey : liveKeys.entrySet()) {
+                Optional<byte[]> value = readRecord(liveKey.getKey(), liveKey.getValue());
+                if (value.isEmpty()) {
+                    relocatedKeys.put(liveKey.getKey(), null);
+                    continue;
+                }
+                Optional<RecordLocation> location = output == null ? Optional.empty() : output.writeRecord(liveKey.getKey(), value.get());
+                if (location.isEmpty()) {
+                    if (output != null) {
+                        output.seal();
+                    }
+                    output = SegmentImpl.create(SegmentImpl.createCompactedSegmentName(newestSealedName, compactedSegments.size()),
+                            pathToTable, config, commitWriter);
+                    compactedSegments.add(output);
+                    location = output.writeRecord(liveKey.getKey(), value.get());
+                }
+                relocatedKeys.put(liveKey.getKey(), location.orElseThrow());
+            }
+            if (output != null) {
+                output.seal();
+            }
+        } catch (IOException | DatabaseException e) {
+            deleteSegments(compactedSegments);
+            throw new DatabaseException("Exception when compacting segments of table " + tableName, e);
+        }
+
+        appendLock.lock();
+        stateLock.writeLock().lock();
+        try {
+            try {
+                relocatedKeys.forEach((key, location) -> {
+                    Optional<Segment> current = tableIndex.searchForKey(key);
+                    if (current.isPresent() && current.get() == liveKeys.get(key).getSegment()) {
+                        if (location == null) {
+                            tableIndex.onIndexedEntityUpdated(key, null);
+                        } else {
+                            tableIndex.onRecordLocated(key, location);
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // часть ключей уже ссылается на новые сегменты, а часть - на старые: оставляем и те, и другие
+                segments.addAll(sealedSegments.size(), compactedSegments);
+                throw new DatabaseException("IOException when relocating keys of table " + tableName, e);
+            }
+            segments.subList(0, sealedSegments.size()).clear();
+            segments.addAll(0, compactedSegments);
+            compactedSegmentsCount = compactedSegments.size();
+            tableIndex.releaseSegments(sealedSegments);
+        } finally {
+            stateLock.writeLock().unlock();
+            appendLock.unlock();
+        }
+        deleteSegments(sealedSegments);
+    }
+
+    /**
+     * Закрывает журнал и сегменты. Memtable не сбрасывается: при следующем открытии она восстанавливается из журнала
+     */
+    @Override
+    public void close() throws DatabaseException {
+        appendLock.lock();
+        stateLock.writeLock().lock();
+        try {
+            if (writeAheadLog != null) {
+                try {
+                    writeAheadLog.close();
+                } catch (IOException e) {
+                    throw new DatabaseException("IOException when closing write-ahead log of table " + tableName, e);
+                }
+            }
+            for (Segment segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    throw new DatabaseException("IOException when closing segment " + segment.getName() + " of table " + tableName, e);
+                }
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Читает запись по положению из индекса таблицы, а если смещение неизвестно - по индексу сегмента
+     */
+    private static Optional<byte[]> readRecord(ObjectKey objectKey, RecordLocation location) throws IOException {
+        if (location.getOffset() < 0) {
+            return location.getSegment().read(objectKey);
+        }
+        return location.getSegment().read(location);
+    }
+
+    /**
+     * Открывает журнал и восстанавливает из него memtable. Если memtable выключена, журнал остается только
+     * от запуска, когда она была включена: его изменения сразу сбрасываются в сегменты, а файл удаляется
+     */
+    private void openWriteAheadLog() throws DatabaseException {
+        Path pathToLog = Paths.get(pathToTable.toString(), WriteAheadLog.FILE_NAME);
+        boolean memtableEnabled = config.getMemtableSizeBytes() > 0;
+        if (!memtableEnabled && Files.notExists(pathToLog)) {
+            return;
+        }
+        try {
+            writeAheadLog = WriteAheadLog.open(pathToLog, commitWriter,
+                    (objectKey, objectValue) -> {
+                        memtable.put(objectKey, objectValue);
+                        addToKeyFilter(objectKey);
+                    });
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when opening write-ahead log of table " + tableName, e);
+        }
+        if (memtableEnabled) {
+            return;
+        }
+        flushMemtable();
+        try {
+            writeAheadLog.close();
+            Files.delete(pathToLog);
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when deleting write-ahead log of table " + tableName, e);
+        }
+        writeAheadLog = null;
+    }
+
+    /**
+     * Вызывается под {@link #appendLock}
+     *
+     * @param objectValue значение или null для отметки об удалении
+     */
+    private void append(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        if (writeAheadLog == null) {
+            appendToSegment(objectKey, objectValue);
+        } else {
+            appendToMemtable(objectKey, objectValue);
+        }
+    }
+
+    /**
+     * Дописывает изменение в активный сегмент и публикует его положение в индексе под записью {@link #stateLock}
+     *
+     * @param objectValue значение или null для отметки об удалении
+     */
+    private void appendToSegment(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        RecordLocation location = writeToSegment(objectKey, objectValue);
+        stateLock.writeLock().lock();
+        try {
+            tableIndex.onRecordLocated(objectKey, location);
+            if (objectValue != null) {
+                addToKeyFilter(objectKey);
+            }
+        } catch (UncheckedIOException e) {
+            throw new DatabaseException("IOException when indexing key " + objectKey + " of table " + tableName, e);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Пишет изменение в журнал и в memtable, а если memtable или журнал переполнены - сбрасывает memtable в сегменты.
+     * Журнал проверяется отдельно: при частых записях немногих ключей memtable не растет, а журнал растет.
+     * Вызывается под {@link #appendLock}. Запись в журнал и сброс memtable не мешают чтению,
+     * а сама memtable меняется под записью {@link #stateLock}
+     *
+     * @param objectValue значение или null для отметки об удалении
+     */
+    private void appendToMemtable(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        try {
+            writeAheadLog.append(objectKey, objectValue);
+        } catch (IOException e) {
+            throw new DatabaseException("IOException when writing to write-ahead log of table " + tableName + " by key " + objectKey, e);
+        }
+        stateLock.writeLock().lock();
+        try {
+            memtable.put(objectKey, objectValue);
+            if (objectValue != null) {
+                addToKeyFilter(objectKey);
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        if (memtable.getSizeBytes() >= config.getMemtableSizeBytes() || writeAheadLog.getSize() >= config.getMemtableSizeBytes()) {
+            flushMemtable();
+        }
+    }
+
+    /**
+     * Записывает memtable в сегменты и очищает журнал. Вызывается под {@link #appendLock}, поэтому memtable
+     * на время сброса заморожена и продолжает отвечать на чтения, а индекс таблицы еще ссылается на старые записи.
+     * Новые положения ключей попадают в индекс вместе с очисткой memtable под записью {@link #stateLock},
+     * так что чтения ждут только эту подмену, а не запись сегментов и сброс их на диск.
+     * Журнал очищается только после того, как записи в сегментах сброшены на диск по политике надежности,
+     * поэтому после сбоя они восстанавливаются хотя бы из журнала.
+     * Отметки об удалении ключей, которых нет в сегментах, не пишутся
+     */
+    private void flushMemtable() throws DatabaseException {
+        Map<ObjectKey, RecordLocation> locations = new HashMap<>();
+        for (Map.Entry<ObjectKey, byte[]> entry : memtable.tailMap(null).entrySet()) {
+            if (entry.getValue() != null || tableIndex.containsKey(entry.getKey())) {
+                locations.put(entry.getKey(), writeToSegment(entry.getKey(), entry.getValue()));
+            }
+        }
+        try {
+            GroupCommitWriter.takePendingCommit().join();
+        } catch (CompletionException e) {
+            throw new DatabaseException("IOException when flushing memtable of table " + tableName, e);
+        }
+        stateLock.writeLock().lock();
+        try {
+            locations.forEach(tableIndex::onRecordLocated);
+            memtable.clear();
+        } catch (UncheckedIOException e) {
+            throw new DatabaseException("IOException when indexing flushed memtable of table " + tableName, e);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            writeAheadLog.reset();
         } catch (IOException e) {
-            throw new DatabaseException("IOException when deleting object in segment " + curSegment.getName() + " by key " + objectKey, e);
+            throw new DatabaseException("IOException when resetting write-ahead log of table " + tableName, e);
+        }
+    }
+
+    /**
+     * Дописывает запись в активный сегмент, а если он заполнен - в новый. Индекс таблицы не меняется
+     *
+     * @return положение записи
+     */
+    private RecordLocation writeToSegment(ObjectKey objectKey, byte[] objectValue) throws DatabaseException {
+        if (curSegment == null) {
+            curSegment = createSegment();
+        }
+        try {
+            Optional<RecordLocation> location = writeRecord(curSegment, objectKey, objectValue);
+            if (location.isEmpty()) {
+                curSegment = createSegment();
+                location = writeRecord(curSegment, objectKey, objectValue);
+            }
+            return location.orElseThrow();
+        } catch (IOException | UncheckedIOException e) {
+            throw new DatabaseException("IOException when writing to segment " + curSegment.getName() + " by key " + objectKey, e);
+        }
+    }
+
+    private static Optional<RecordLocation> writeRecord(Segment segment, ObjectKey objectKey, byte[] objectValue) throws IOException {
+        return objectValue == null ? segment.deleteRecord(objectKey) : segment.writeRecord(objectKey, objectValue);
+    }
+
+    /**
+     * Вызывается после того, как ключ попал в memtable или индекс: перестроенный фильтр собирается по ним
+     */
+    private void addToKeyFilter(ObjectKey objectKey) {
+        if (keyFilter.mightContain(objectKey)) {
+            return;
+        }
+        keyFilter.put(objectKey);
+        if (++filterKeys > keyFilter.getCapacity()) {
+            rebuildKeyFilter();
+        }
+    }
+
+    /**
+     * Строит фильтр по ключам индекса таблицы и memtable с запасом по емкости в два раза
+     */
+    private void rebuildKeyFilter() {
+        BloomFilter newFilter = new BloomFilter(Math.max(MIN_FILTER_CAPACITY, 2L * tableIndex.size()));
+        tableIndex.forEach((key, segment) -> newFilter.put(key));
+        memtable.tailMap(null).keySet().forEach(newFilter::put);
+        keyFilter = newFilter;
+        filterKeys = tableIndex.size();
+    }
+
+    private Segment createSegment() throws DatabaseException {
+        if (curSegment != null) {
+            try {
+                curSegment.seal();
+            } catch (IOException e) {
+                throw new DatabaseException("IOException when sealing segment " + curSegment.getName(), e);
+            }
+        }
+        lastSegmentId = SegmentImpl.nextSegmentId(lastSegmentId);
+        Segment segment = SegmentImpl.create(SegmentImpl.createSegmentName(tableName, lastSegmentId), pathToTable, config, commitWriter);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Закрывает сегменты и удаляет их файлы в порядке создания
+     */
+    private void deleteSegments(List<Segment> segmentsToDelete) throws DatabaseException {
+        for (Segment segment : segmentsToDelete) {
+            try {
+                segment.close();
+                Path pathToSegment = Paths.get(pathToTable.toString(), segment.getName());
+                SegmentHintFile.delete(pathToSegment);
+                SegmentFilterFile.delete(pathToSegment);
+                Files.deleteIfExists(pathToSegment);
+            } catch (IOException e) {
+                throw new DatabaseException("IOException when deleting segment " + segment.getName() + " of table " + tableName, e);
+            }
         }
     }
 }
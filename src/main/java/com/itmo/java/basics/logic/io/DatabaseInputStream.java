@@ -9,6 +9,7 @@ import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 /**
@@ -16,28 +17,57 @@ import java.util.Optional;
  */
 public class DatabaseInputStream extends DataInputStream {
     private static final int REMOVED_OBJECT_SIZE = -1;
+    private static final int SIZE_OF_INT = 4;
+    private final SegmentFormat format;
 
     public DatabaseInputStream(InputStream inputStream) {
+        this(inputStream, SegmentFormat.LEGACY);
+    }
+
+    /**
+     * @param format формат записей. Стрим должен быть уже спозиционирован после заголовка сегмента
+     */
+    public DatabaseInputStream(InputStream inputStream, SegmentFormat format) {
         super(inputStream);
+        this.format = format;
     }
 
     /**
      * Читает следующую запись (см {@link DatabaseOutputStream#write(WritableDatabaseRecord)})
      *
      * @return следующую запись, если она существует. {@link Optional#empty()} - если конец файла достигнут
+     * (в том числе посреди недописанной записи)
+     * @throws IOException если контрольная сумма записи не сошлась или произошла ошибка ввода-вывода
      */
     public Optional<DatabaseRecord> readDbUnit() throws IOException {
         try {
+            int checksum = format.isChecksummed() ? readInt() : 0;
             int keySize = readInt();
-            byte[] key = readNBytes(keySize);
+            byte[] key = readFully(keySize);
             int valueSize = readInt();
+            byte[] value = valueSize == REMOVED_OBJECT_SIZE ? new byte[0] : readFully(valueSize);
+            if (format.isChecksummed()) {
+                byte[] record = ByteBuffer.allocate(SIZE_OF_INT + key.length + SIZE_OF_INT + value.length)
+                        .putInt(keySize).put(key).putInt(valueSize).put(value).array();
+                if (SegmentFormat.checksum(record, 0, record.length) != checksum) {
+                    throw new IOException("Checksum mismatch in database record");
+                }
+            }
             if (valueSize == REMOVED_OBJECT_SIZE) {
                 return Optional.of(new RemoveDatabaseRecord(keySize, key));
             }
-            byte[] value = readNBytes(valueSize);
             return Optional.of(new SetDatabaseRecord(keySize, key, valueSize, value));
         }catch (EOFException e){
             return Optional.empty();
         }
     }
+
+    private byte[] readFully(int size) throws IOException {
+        if (size < 0) {
+            throw new IOException("Negative size " + size + " in database record");
+        }
+        byte[] bytes = new byte[size];
+        readFully(bytes);
+        return bytes;
+    }
 }
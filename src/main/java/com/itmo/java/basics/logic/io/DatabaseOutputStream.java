@@ -5,38 +5,75 @@ import com.itmo.java.basics.logic.WritableDatabaseRecord;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
 
 /**
  * Записывает данные в БД
  */
 public class DatabaseOutputStream extends DataOutputStream {
+    private static final int SIZE_OF_INT = 4;
+    private final SegmentFormat format;
 
     public DatabaseOutputStream(OutputStream outputStream) {
+        this(outputStream, SegmentFormat.LEGACY);
+    }
+
+    /**
+     * @param format формат записей. Заголовок сегмента этот стрим не пишет
+     */
+    public DatabaseOutputStream(OutputStream outputStream, SegmentFormat format) {
         super(outputStream);
+        this.format = format;
     }
 
     /**
      * Записывает в БД в следующем формате:
+     * - CRC32C остальных байтов записи (только в формате {@link SegmentFormat#CHECKSUMMED})
      * - Размер ключа в байтахб используя {@link WritableDatabaseRecord#getKeySize()}
      * - Ключ
      * - Размер записи в байтах {@link WritableDatabaseRecord#getValueSize()}
      * - Запись
-     * Например при использовании UTF_8,
+     * Например при использовании UTF_8 и формата {@link SegmentFormat#LEGACY},
      * "key" : "value"
      * 3key5value
      * Метод вернет 10
+     * <p>
+     * Стрим может переиспользоваться для нескольких записей, поэтому возвращается размер только текущей записи.
      *
      * @param databaseRecord запись
      * @return размер записи
      * @throws IOException если запись не удалась
      */
     public int write(WritableDatabaseRecord databaseRecord) throws IOException {
+        int recordSize = SIZE_OF_INT + databaseRecord.getKey().length + SIZE_OF_INT;
+        if (databaseRecord.isValuePresented()) {
+            recordSize += databaseRecord.getValue().length;
+        }
+        if (format.isChecksummed()) {
+            writeInt(checksum(databaseRecord));
+            recordSize += format.getRecordPrefixSize();
+        }
         writeInt(databaseRecord.getKeySize());
         write(databaseRecord.getKey());
         writeInt(databaseRecord.getValueSize());
         if (databaseRecord.isValuePresented()) {
             write(databaseRecord.getValue());
         }
-        return size();
+        return recordSize;
+    }
+
+    /**
+     * @return CRC32C байтов записи в том виде, в котором они пишутся в файл
+     */
+    private static int checksum(WritableDatabaseRecord databaseRecord) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(SIZE_OF_INT).putInt(0, databaseRecord.getKeySize()));
+        crc.update(databaseRecord.getKey());
+        crc.update(ByteBuffer.allocate(SIZE_OF_INT).putInt(0, databaseRecord.getValueSize()));
+        if (databaseRecord.isValuePresented()) {
+            crc.update(databaseRecord.getValue());
+        }
+        return (int) crc.getValue();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.itmo.java.basics.logic.io;
+
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.io.IOException;
+
+/**
+ * Последовательный обход записей в порядке возрастания ключей
+ * ({@link com.itmo.java.basics.index.impl.TableIndex#KEY_ORDER})
+ */
+public interface EntryIterator {
+    /**
+     * Переходит к следующей записи
+     *
+     * @return {@code false} - если записи закончились
+     * @throws IOException если не удалось прочитать запись
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return ключ текущей записи
+     */
+    ObjectKey key();
+
+    /**
+     * @return значение текущей записи или null, если это отметка об удалении
+     */
+    byte[] value();
+}
@@ -0,0 +1,77 @@
+package com.itmo.java.basics.logic.io;
+
+import com.itmo.java.basics.index.impl.TableIndex;
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Слияние нескольких отсортированных обходов в один. Если ключ есть в нескольких источниках,
+ * берется запись из источника, стоящего в списке раньше (источники передаются от новых к старым)
+ */
+public class MergingEntryIterator implements EntryIterator {
+    private final List<EntryIterator> sources;
+    private final PriorityQueue<Source> heads = new PriorityQueue<>(Comparator
+            .comparing((Source source) -> source.iterator.key(), TableIndex.KEY_ORDER)
+            .thenComparingInt(source -> source.rank));
+    private boolean started = false;
+    private ObjectKey key;
+    private byte[] value;
+
+    /**
+     * @param sources обходы от самого нового к самому старому
+     */
+    public MergingEntryIterator(List<EntryIterator> sources) {
+        this.sources = sources;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (!started) {
+            for (int i = 0; i < sources.size(); i++) {
+                advance(new Source(sources.get(i), i));
+            }
+            started = true;
+        }
+        Source top = heads.poll();
+        if (top == null) {
+            return false;
+        }
+        key = top.iterator.key();
+        value = top.iterator.value();
+        advance(top);
+        while (!heads.isEmpty() && heads.peek().iterator.key().equals(key)) {
+            advance(heads.poll());
+        }
+        return true;
+    }
+
+    @Override
+    public ObjectKey key() {
+        return key;
+    }
+
+    @Override
+    public byte[] value() {
+        return value;
+    }
+
+    private void advance(Source source) throws IOException {
+        if (source.iterator.next()) {
+            heads.add(source);
+        }
+    }
+
+    private static class Source {
+        private final EntryIterator iterator;
+        private final int rank;
+
+        private Source(EntryIterator iterator, int rank) {
+            this.iterator = iterator;
+            this.rank = rank;
+        }
+    }
+}
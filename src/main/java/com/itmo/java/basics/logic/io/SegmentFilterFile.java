@@ -0,0 +1,121 @@
+package com.itmo.java.basics.logic.io;
+
+import com.itmo.java.basics.index.impl.BloomFilter;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Файл с фильтром Блума по ключам read-only сегмента, лежит рядом с сегментом.
+ * <p>
+ * Формат: magic, версия, размер сегмента в байтах, число хеш-функций, число слов фильтра, слова фильтра.
+ * В конце - CRC32 всего предыдущего содержимого.
+ */
+public class SegmentFilterFile {
+    private static final String FILTER_SUFFIX = ".bloom";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4B56424C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int TRAILER_SIZE = 8;
+
+    private SegmentFilterFile() {
+    }
+
+    /**
+     * @return путь до файла фильтра сегмента
+     */
+    public static Path pathFor(Path segmentPath) {
+        return Paths.get(segmentPath.toString() + FILTER_SUFFIX);
+    }
+
+    /**
+     * @return {@code true} - если файл с таким именем является фильтром (или его недописанной копией), а не сегментом
+     */
+    public static boolean isFilterFile(String fileName) {
+        return fileName.endsWith(FILTER_SUFFIX) || fileName.endsWith(FILTER_SUFFIX + TEMP_SUFFIX);
+    }
+
+    /**
+     * Записывает фильтр сегмента через временный файл с атомарным переименованием
+     *
+     * @param segmentPath путь до сегмента
+     * @param segmentSize размер сегмента в байтах
+     * @param filter      фильтр по ключам сегмента
+     * @throws IOException если не удалось записать файл
+     */
+    public static void write(Path segmentPath, long segmentSize, BloomFilter filter) throws IOException {
+        long[] bits = filter.getBits();
+        ByteBuffer content = ByteBuffer.allocate(HEADER_SIZE + bits.length * Long.BYTES + TRAILER_SIZE);
+        content.putInt(MAGIC);
+        content.putInt(VERSION);
+        content.putLong(segmentSize);
+        content.putInt(filter.getHashFunctions());
+        content.putInt(bits.length);
+        content.asLongBuffer().put(bits);
+        content.position(content.position() + bits.length * Long.BYTES);
+        CRC32 checksum = new CRC32();
+        checksum.update(content.array(), 0, content.position());
+        content.putLong(checksum.getValue());
+
+        Path filterPath = pathFor(segmentPath);
+        Path tempPath = Paths.get(filterPath.toString() + TEMP_SUFFIX);
+        Files.write(tempPath, content.array());
+        Files.move(tempPath, filterPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Читает фильтр сегмента
+     *
+     * @param segmentPath путь до сегмента
+     * @param segmentSize текущий размер файла сегмента
+     * @return фильтр или null, если файла нет, он поврежден или устарел
+     * @throws IOException если не удалось прочитать существующий файл
+     */
+    public static BloomFilter read(Path segmentPath, long segmentSize) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(pathFor(segmentPath));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (content.length < HEADER_SIZE + TRAILER_SIZE) {
+            return null;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(content, 0, content.length - TRAILER_SIZE);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (buffer.getLong(content.length - TRAILER_SIZE) != checksum.getValue()) {
+            return null;
+        }
+        buffer.limit(content.length - TRAILER_SIZE);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != segmentSize) {
+                return null;
+            }
+            int hashFunctions = buffer.getInt();
+            long[] bits = new long[buffer.getInt()];
+            if (hashFunctions <= 0 || bits.length == 0) {
+                return null;
+            }
+            buffer.asLongBuffer().get(bits);
+            return new BloomFilter(bits, hashFunctions);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Удаляет фильтр сегмента, если он есть
+     */
+    public static void delete(Path segmentPath) throws IOException {
+        Files.deleteIfExists(pathFor(segmentPath));
+    }
+}
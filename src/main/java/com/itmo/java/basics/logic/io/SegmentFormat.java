@@ -0,0 +1,98 @@
+package com.itmo.java.basics.logic.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * Формат записей в файле сегмента.
+ * <p>
+ * Сегменты в текущем формате начинаются с заголовка: magic и номер версии (по 4 байта).
+ * Magic отрицателен как int, поэтому не совпадает с размером ключа первой записи сегмента старого формата,
+ * у которого заголовка нет.
+ */
+public enum SegmentFormat {
+    /**
+     * Старый формат без заголовка: размер ключа, ключ, размер значения, значение
+     */
+    LEGACY(0, 0),
+    /**
+     * Перед каждой записью старого формата лежит CRC32C ее байтов
+     */
+    CHECKSUMMED(8, 4);
+
+    private static final int MAGIC = 0xCB5E6D00;
+    private static final int CHECKSUMMED_VERSION = 2;
+
+    private final int headerSize;
+    private final int recordPrefixSize;
+
+    SegmentFormat(int headerSize, int recordPrefixSize) {
+        this.headerSize = headerSize;
+        this.recordPrefixSize = recordPrefixSize;
+    }
+
+    /**
+     * @return формат, в котором создаются новые сегменты
+     */
+    public static SegmentFormat current() {
+        return CHECKSUMMED;
+    }
+
+    /**
+     * Определяет формат сегмента по его заголовку
+     *
+     * @throws IOException если сегмент записан в неизвестной версии формата или произошла ошибка ввода-вывода
+     */
+    public static SegmentFormat detect(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(CHECKSUMMED.headerSize);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                return LEGACY;
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            return LEGACY;
+        }
+        int version = header.getInt(4);
+        if (version != CHECKSUMMED_VERSION) {
+            throw new IOException("Unsupported segment format version " + version);
+        }
+        return CHECKSUMMED;
+    }
+
+    /**
+     * @return байты заголовка, с которых начинается файл сегмента
+     */
+    public byte[] header() {
+        if (this == LEGACY) {
+            return new byte[0];
+        }
+        return ByteBuffer.allocate(headerSize).putInt(MAGIC).putInt(CHECKSUMMED_VERSION).array();
+    }
+
+    public int getHeaderSize() {
+        return headerSize;
+    }
+
+    /**
+     * @return сколько байт перед каждой записью занимает контрольная сумма
+     */
+    public int getRecordPrefixSize() {
+        return recordPrefixSize;
+    }
+
+    public boolean isChecksummed() {
+        return recordPrefixSize > 0;
+    }
+
+    /**
+     * @return CRC32C байтов записи (без самой контрольной суммы)
+     */
+    static int checksum(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
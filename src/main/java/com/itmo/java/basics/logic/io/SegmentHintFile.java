@@ -0,0 +1,165 @@
+package com.itmo.java.basics.logic.io;
+
+import com.itmo.java.basics.index.SegmentOffsetInfo;
+import com.itmo.java.basics.index.impl.SegmentIndex;
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Файл-подсказка рядом с read-only сегментом. Хранит только ключи и смещения записей сегмента,
+ * поэтому индекс сегмента восстанавливается без чтения значений.
+ * <p>
+ * Формат: magic, версия, размер сегмента в байтах, количество записей, затем для каждой записи -
+ * размер ключа, ключ, признак удаления, смещение записи в сегменте. В конце - CRC32 всего предыдущего содержимого.
+ */
+public class SegmentHintFile {
+    private static final String HINT_SUFFIX = ".hint";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4B565348;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int TRAILER_SIZE = 8;
+    private static final byte LIVE = 0;
+    private static final byte REMOVED = 1;
+
+    /**
+     * Получатель записей подсказки
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * @param key     ключ записи
+         * @param offset  смещение записи в сегменте
+         * @param removed {@code true} - если запись является отметкой об удалении
+         */
+        void accept(ObjectKey key, long offset, boolean removed);
+    }
+
+    private SegmentHintFile() {
+    }
+
+    /**
+     * @return путь до подсказки сегмента
+     */
+    public static Path pathFor(Path segmentPath) {
+        return Paths.get(segmentPath.toString() + HINT_SUFFIX);
+    }
+
+    /**
+     * @return {@code true} - если файл с таким именем является подсказкой (или ее недописанной копией), а не сегментом
+     */
+    public static boolean isHintFile(String fileName) {
+        return fileName.endsWith(HINT_SUFFIX) || fileName.endsWith(HINT_SUFFIX + TEMP_SUFFIX);
+    }
+
+    /**
+     * Записывает подсказку по индексу сегмента. Файл сначала пишется во временный и затем атомарно переименовывается,
+     * поэтому подсказка либо отсутствует, либо записана целиком.
+     *
+     * @param segmentPath  путь до сегмента
+     * @param segmentSize  размер сегмента в байтах
+     * @param segmentIndex индекс сегмента. Ключи без смещения записываются как отметки об удалении
+     * @throws IOException если не удалось записать файл
+     */
+    public static void write(Path segmentPath, long segmentSize, SegmentIndex segmentIndex) throws IOException {
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entriesOutput = new DataOutputStream(entries);
+        int[] count = new int[1];
+        segmentIndex.forEach((key, offsetInfo) -> {
+            writeEntry(entriesOutput, key, offsetInfo);
+            count[0]++;
+        });
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream(HEADER_SIZE + entries.size() + TRAILER_SIZE);
+        DataOutputStream output = new DataOutputStream(content);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(segmentSize);
+        output.writeInt(count[0]);
+        entries.writeTo(output);
+        CRC32 checksum = new CRC32();
+        checksum.update(content.toByteArray());
+        output.writeLong(checksum.getValue());
+
+        Path hintPath = pathFor(segmentPath);
+        Path tempPath = Paths.get(hintPath.toString() + TEMP_SUFFIX);
+        Files.write(tempPath, content.toByteArray());
+        Files.move(tempPath, hintPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Читает подсказку сегмента и передает ее записи получателю. Записи передаются только после проверки
+     * контрольной суммы и размера сегмента.
+     *
+     * @param segmentPath путь до сегмента
+     * @param segmentSize текущий размер файла сегмента
+     * @param consumer    получатель записей
+     * @return {@code true} - если подсказка прочитана, {@code false} - если ее нет, она повреждена или устарела
+     * @throws IOException если не удалось прочитать существующий файл
+     */
+    public static boolean read(Path segmentPath, long segmentSize, EntryConsumer consumer) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(pathFor(segmentPath));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (content.length < TRAILER_SIZE) {
+            return false;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(content, 0, content.length - TRAILER_SIZE);
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        if (buffer.getLong(content.length - TRAILER_SIZE) != checksum.getValue()) {
+            return false;
+        }
+        buffer.limit(content.length - TRAILER_SIZE);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != segmentSize) {
+                return false;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                boolean removed = buffer.get() == REMOVED;
+                long offset = buffer.getLong();
+                consumer.accept(ObjectKey.wrap(key), offset, removed);
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Удаляет подсказку сегмента, если она есть
+     */
+    public static void delete(Path segmentPath) throws IOException {
+        Files.deleteIfExists(pathFor(segmentPath));
+    }
+
+    private static void writeEntry(DataOutputStream output, ObjectKey key, SegmentOffsetInfo offsetInfo) {
+        byte[] keyBytes = key.getBytes();
+        try {
+            output.writeInt(keyBytes.length);
+            output.write(keyBytes);
+            output.writeByte(offsetInfo == null ? REMOVED : LIVE);
+            output.writeLong(offsetInfo == null ? -1 : offsetInfo.getOffset());
+        } catch (IOException e) {
+            throw new UncheckedIOException("IOException when writing to memory buffer", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.itmo.java.basics.logic.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Последовательный просмотр записей сегмента для восстановления индекса.
+ * Читает файл большими блоками в один переиспользуемый буфер и отдает только байты ключа и смещение записи
+ * (формат записи см. {@link DatabaseOutputStream}). В сегментах старого формата значения не читаются, а пропускаются,
+ * в сегментах с контрольными суммами значения читаются только для проверки суммы
+ */
+public class SegmentScanner {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SIZE_OF_INT = 4;
+    private static final int REMOVED_OBJECT_SIZE = -1;
+
+    /**
+     * Получатель записей сегмента
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        /**
+         * @param keyBytes     массив, в котором лежит ключ. Действителен только во время вызова
+         * @param keyOffset    начало ключа в массиве
+         * @param keyLength    размер ключа
+         * @param recordOffset смещение записи в сегменте (на контрольную сумму, если она есть)
+         * @param removed      {@code true} - если запись является отметкой об удалении
+         */
+        void accept(byte[] keyBytes, int keyOffset, int keyLength, long recordOffset, boolean removed);
+    }
+
+    private SegmentScanner() {
+    }
+
+    /**
+     * Результат просмотра сегмента
+     */
+    public static final class Result {
+        private final SegmentFormat format;
+        private final long validSize;
+
+        private Result(SegmentFormat format, long validSize) {
+            this.format = format;
+            this.validSize = validSize;
+        }
+
+        public SegmentFormat getFormat() {
+            return format;
+        }
+
+        /**
+         * @return размер заголовка и всех целых записей. Меньше размера файла, если конец сегмента недописан или поврежден
+         */
+        public long getValidSize() {
+            return validSize;
+        }
+    }
+
+    /**
+     * Просматривает записи сегмента до конца файла или до первой недописанной записи
+     * (а в формате с контрольными суммами - до первой записи, сумма которой не сошлась).
+     * Эта и все последующие записи получателю не передаются
+     *
+     * @param segmentPath путь до сегмента
+     * @param consumer    получатель записей
+     * @return формат сегмента и размер его целой части
+     * @throws IOException если произошла ошибка ввода-вывода
+     */
+    public static Result scan(Path segmentPath, RecordConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+            SegmentFormat format = SegmentFormat.detect(channel);
+            long fileSize = channel.size();
+            long recordOffset = Math.min(format.getHeaderSize(), fileSize);
+            channel.position(recordOffset);
+            int prefixSize = format.getRecordPrefixSize();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            while (true) {
+                if (!fill(channel, buffer, prefixSize + SIZE_OF_INT)) {
+                    return new Result(format, recordOffset);
+                }
+                int keySize = buffer.getInt(buffer.position() + prefixSize);
+                if (keySize < 0 || recordOffset + prefixSize + SIZE_OF_INT + keySize + SIZE_OF_INT > fileSize) {
+                    return new Result(format, recordOffset);
+                }
+                int fixedSize = prefixSize + SIZE_OF_INT + keySize + SIZE_OF_INT;
+                buffer = ensureCapacity(buffer, fixedSize);
+                if (!fill(channel, buffer, fixedSize)) {
+                    return new Result(format, recordOffset);
+                }
+                int valueSize = buffer.getInt(buffer.position() + fixedSize - SIZE_OF_INT);
+                boolean removed = valueSize == REMOVED_OBJECT_SIZE;
+                if (!removed && valueSize < 0) {
+                    return new Result(format, recordOffset);
+                }
+                long recordSize = fixedSize + (removed ? 0 : (long) valueSize);
+                if (recordOffset + recordSize > fileSize) {
+                    return new Result(format, recordOffset);
+                }
+                if (format.isChecksummed()) {
+                    buffer = ensureCapacity(buffer, (int) recordSize);
+                    if (!fill(channel, buffer, (int) recordSize)) {
+                        return new Result(format, recordOffset);
+                    }
+                    int checksum = SegmentFormat.checksum(buffer.array(), buffer.position() + prefixSize, (int) recordSize - prefixSize);
+                    if (checksum != buffer.getInt(buffer.position())) {
+                        return new Result(format, recordOffset);
+                    }
+                }
+                consumer.accept(buffer.array(), buffer.position() + prefixSize + SIZE_OF_INT, keySize, recordOffset, removed);
+                skip(channel, buffer, recordSize);
+                recordOffset += recordSize;
+            }
+        }
+    }
+
+    /**
+     * Дочитывает в буфер (в режиме чтения) данные, пока в нем не окажется хотя бы required байт
+     *
+     * @return false, если файл закончился раньше
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int required) throws IOException {
+        if (buffer.remaining() >= required) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < required) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * Пропускает count байт: сначала уже прочитанные в буфер, остальные - перемещением позиции канала
+     */
+    private static void skip(FileChannel channel, ByteBuffer buffer, long count) throws IOException {
+        if (buffer.remaining() >= count) {
+            buffer.position(buffer.position() + (int) count);
+            return;
+        }
+        channel.position(channel.position() + count - buffer.remaining());
+        buffer.clear();
+        buffer.flip();
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int required) {
+        if (buffer.capacity() >= required) {
+            return buffer;
+        }
+        ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(required, buffer.capacity() * 2));
+        newBuffer.put(buffer);
+        newBuffer.flip();
+        return newBuffer;
+    }
+}
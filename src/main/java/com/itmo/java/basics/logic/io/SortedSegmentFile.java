@@ -0,0 +1,399 @@
+package com.itmo.java.basics.logic.io;
+
+import com.itmo.java.basics.index.impl.BloomFilter;
+import com.itmo.java.basics.index.impl.TableIndex;
+import com.itmo.java.basics.logic.ObjectKey;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Неизменяемый отсортированный сегмент (SSTable).
+ * <p>
+ * Формат: magic и версия, затем блоки записей (ключ, значение или -1 для отметки об удалении) примерно по
+ * {@link #BLOCK_SIZE} байт в порядке {@link TableIndex#KEY_ORDER}. За блоками - разреженный индекс
+ * (первый ключ, смещение, длина и CRC32C каждого блока) и фильтр Блума по ключам. В конце - смещения индекса
+ * и фильтра, число записей, CRC32C индекса и фильтра и magic.
+ * <p>
+ * В памяти держатся только разреженный индекс и фильтр, за записью читается один блок.
+ * В версии 1 фильтр строился по хешу символов ключа, а не его байтов, поэтому для таких файлов он не используется
+ */
+public class SortedSegmentFile implements Closeable {
+    public static final String SEGMENT_SUFFIX = ".sst";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x53535431;
+    private static final int VERSION = 2;
+    private static final int CHAR_HASH_FILTER_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int FOOTER_SIZE = 32;
+    private static final int BLOCK_SIZE = 4096;
+    private static final int SIZE_OF_INT = 4;
+    private static final int REMOVED_OBJECT_SIZE = -1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ObjectKey[] firstKeys;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockChecksums;
+    /**
+     * null - если фильтр файла нельзя использовать
+     */
+    private final BloomFilter keyFilter;
+    private final long entryCount;
+    private final long size;
+
+    private SortedSegmentFile(Path path, FileChannel channel, ObjectKey[] firstKeys, long[] blockOffsets, int[] blockLengths,
+                              int[] blockChecksums, BloomFilter keyFilter, long entryCount, long size) {
+        this.path = path;
+        this.channel = channel;
+        this.firstKeys = firstKeys;
+        this.blockOffsets = blockOffsets;
+        this.blockLengths = blockLengths;
+        this.blockChecksums = blockChecksums;
+        this.keyFilter = keyFilter;
+        this.entryCount = entryCount;
+        this.size = size;
+    }
+
+    /**
+     * @return {@code true} - если файл с таким именем является отсортированным сегментом
+     */
+    public static boolean isSegmentFile(String fileName) {
+        return fileName.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * @return {@code true} - если файл с таким именем является недописанной копией отсортированного сегмента
+     */
+    public static boolean isTempFile(String fileName) {
+        return fileName.endsWith(SEGMENT_SUFFIX + TEMP_SUFFIX);
+    }
+
+    /**
+     * Записывает отсортированный сегмент. Файл сначала пишется во временный, сбрасывается на диск и затем
+     * атомарно переименовывается, поэтому сегмент либо отсутствует, либо записан целиком. После переименования
+     * сбрасывается и директория, иначе после сбоя питания файл может пропасть, хотя WAL уже очищен.
+     *
+     * @param path            путь до сегмента
+     * @param entries         записи в порядке возрастания ключей без повторов
+     * @param expectedEntries оценка сверху числа записей (для размера фильтра Блума)
+     * @return сколько записей записано
+     * @throws IOException если не удалось записать файл
+     */
+    public static long write(Path path, EntryIterator entries, long expectedEntries) throws IOException {
+        Path tempPath = Paths.get(path.toString() + TEMP_SUFFIX);
+        BloomFilter keyFilter = new BloomFilter(Math.max(1, expectedEntries));
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOutput = new DataOutputStream(index);
+        ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE * 2);
+        DataOutputStream blockOutput = new DataOutputStream(block);
+        long entryCount = 0;
+        int blockCount = 0;
+        try (OutputStream fileStream = Files.newOutputStream(tempPath);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileStream, BLOCK_SIZE * 4))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            long offset = HEADER_SIZE;
+            ObjectKey firstKey = null;
+            while (entries.next()) {
+                ObjectKey key = entries.key();
+                if (firstKey == null) {
+                    firstKey = key;
+                }
+                blockOutput.writeInt(key.length());
+                blockOutput.write(key.getBytes());
+                byte[] value = entries.value();
+                if (value == null) {
+                    blockOutput.writeInt(REMOVED_OBJECT_SIZE);
+                } else {
+                    blockOutput.writeInt(value.length);
+                    blockOutput.write(value);
+                }
+                keyFilter.put(key);
+                entryCount++;
+                if (block.size() >= BLOCK_SIZE) {
+                    offset += writeBlock(output, block, firstKey, offset, indexOutput);
+                    blockCount++;
+                    firstKey = null;
+                }
+            }
+            if (block.size() > 0) {
+                offset += writeBlock(output, block, firstKey, offset, indexOutput);
+                blockCount++;
+            }
+
+            ByteArrayOutputStream meta = new ByteArrayOutputStream(index.size() + SIZE_OF_INT * 3);
+            DataOutputStream metaOutput = new DataOutputStream(meta);
+            metaOutput.writeInt(blockCount);
+            index.writeTo(metaOutput);
+            long filterOffset = offset + meta.size();
+            long[] bits = keyFilter.getBits();
+            metaOutput.writeInt(keyFilter.getHashFunctions());
+            metaOutput.writeInt(bits.length);
+            for (long word : bits) {
+                metaOutput.writeLong(word);
+            }
+            byte[] metaBytes = meta.toByteArray();
+            output.write(metaBytes);
+            output.writeLong(offset);
+            output.writeLong(filterOffset);
+            output.writeLong(entryCount);
+            output.writeInt(SegmentFormat.checksum(metaBytes, 0, metaBytes.length));
+            output.writeInt(MAGIC);
+        }
+        try (FileChannel tempChannel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            tempChannel.force(true);
+        }
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(path.toAbsolutePath().getParent());
+        return entryCount;
+    }
+
+    /**
+     * Сбрасывает на диск директорию, чтобы созданные, переименованные и удаленные в ней файлы пережили сбой.
+     * На Windows директорию нельзя открыть как файл, там сброс пропускается
+     *
+     * @throws IOException если не удалось сбросить директорию
+     */
+    public static void syncDirectory(Path directory) throws IOException {
+        if (File.separatorChar == '\\') {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Открывает отсортированный сегмент и читает в память его разреженный индекс и фильтр Блума
+     *
+     * @throws IOException если файл поврежден или его не удалось прочитать
+     */
+    public static SortedSegmentFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Sorted segment " + path + " is too short");
+            }
+            ByteBuffer footer = readFully(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            long filterOffset = footer.getLong();
+            long entryCount = footer.getLong();
+            int checksum = footer.getInt();
+            if (footer.getInt() != MAGIC || indexOffset < HEADER_SIZE || filterOffset < indexOffset
+                    || filterOffset > size - FOOTER_SIZE) {
+                throw new IOException("Sorted segment " + path + " has corrupted footer");
+            }
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic != MAGIC || version != VERSION && version != CHAR_HASH_FILTER_VERSION) {
+                throw new IOException("Sorted segment " + path + " has unsupported header");
+            }
+            int metaSize = (int) (size - FOOTER_SIZE - indexOffset);
+            ByteBuffer meta = readFully(channel, indexOffset, metaSize);
+            if (SegmentFormat.checksum(meta.array(), 0, metaSize) != checksum) {
+                throw new IOException("Checksum mismatch in index of sorted segment " + path);
+            }
+            int blockCount = meta.getInt();
+            ObjectKey[] firstKeys = new ObjectKey[blockCount];
+            long[] blockOffsets = new long[blockCount];
+            int[] blockLengths = new int[blockCount];
+            int[] blockChecksums = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                firstKeys[i] = readKey(meta);
+                blockOffsets[i] = meta.getLong();
+                blockLengths[i] = meta.getInt();
+                blockChecksums[i] = meta.getInt();
+            }
+            int hashFunctions = meta.getInt();
+            long[] bits = new long[meta.getInt()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = meta.getLong();
+            }
+            return new SortedSegmentFile(path, channel, firstKeys, blockOffsets, blockLengths, blockChecksums,
+                    version == VERSION ? new BloomFilter(bits, hashFunctions) : null, entryCount, size);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            channel.close();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException("Sorted segment " + path + " has corrupted index", e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getName() {
+        return path.getFileName().toString();
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return размер файла в байтах
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return {@code false} - если ключа в сегменте точно нет
+     */
+    public boolean mightContain(ObjectKey key) {
+        return keyFilter == null || keyFilter.mightContain(key);
+    }
+
+    /**
+     * Обходит записи сегмента, начиная с первой, ключ которой не меньше заданного.
+     * Читается только блок, в который попадает начальный ключ, и следующие за ним по мере обхода
+     *
+     * @param fromInclusive начальный ключ (null - с начала сегмента)
+     */
+    public EntryIterator iterator(ObjectKey fromInclusive) {
+        return new BlockIterator(fromInclusive == null ? 0 : findBlock(fromInclusive), fromInclusive);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Закрывает и удаляет файл сегмента
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * @return номер последнего блока, первый ключ которого не больше заданного (0, если таких нет)
+     */
+    private int findBlock(ObjectKey key) {
+        int low = 0;
+        int high = firstKeys.length - 1;
+        int result = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (firstKeys[middle].compareTo(key) <= 0) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    private ByteBuffer readBlock(int block) throws IOException {
+        ByteBuffer buffer = readFully(channel, blockOffsets[block], blockLengths[block]);
+        if (SegmentFormat.checksum(buffer.array(), 0, blockLengths[block]) != blockChecksums[block]) {
+            throw new IOException("Checksum mismatch in block " + block + " of sorted segment " + path);
+        }
+        return buffer;
+    }
+
+    private static int writeBlock(DataOutputStream output, ByteArrayOutputStream block, ObjectKey firstKey, long offset,
+                                  DataOutputStream indexOutput) throws IOException {
+        byte[] blockBytes = block.toByteArray();
+        output.write(blockBytes);
+        indexOutput.writeInt(firstKey.length());
+        indexOutput.write(firstKey.getBytes());
+        indexOutput.writeLong(offset);
+        indexOutput.writeInt(blockBytes.length);
+        indexOutput.writeInt(SegmentFormat.checksum(blockBytes, 0, blockBytes.length));
+        block.reset();
+        return blockBytes.length;
+    }
+
+    private static ObjectKey readKey(ByteBuffer buffer) {
+        byte[] key = new byte[buffer.getInt()];
+        buffer.get(key);
+        return ObjectKey.wrap(key);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of sorted segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Обход записей по блокам. Блок читается целиком при переходе к нему
+     */
+    private class BlockIterator implements EntryIterator {
+        private int nextBlock;
+        private final ObjectKey fromInclusive;
+        private ByteBuffer block;
+        private ObjectKey key;
+        private byte[] value;
+
+        private BlockIterator(int firstBlock, ObjectKey fromInclusive) {
+            this.nextBlock = firstBlock;
+            this.fromInclusive = fromInclusive;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            while (true) {
+                if (block == null || !block.hasRemaining()) {
+                    if (nextBlock >= firstKeys.length) {
+                        return false;
+                    }
+                    block = readBlock(nextBlock++);
+                }
+                try {
+                    key = readKey(block);
+                    int valueSize = block.getInt();
+                    if (valueSize == REMOVED_OBJECT_SIZE) {
+                        value = null;
+                    } else {
+                        value = new byte[valueSize];
+                        block.get(value);
+                    }
+                } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                    throw new IOException("Corrupted block in sorted segment " + path, e);
+                }
+                if (fromInclusive == null || key.compareTo(fromInclusive) >= 0) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public ObjectKey key() {
+            return key;
+        }
+
+        @Override
+        public byte[] value() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.itmo.java.basics.logic.io;
+
+import com.itmo.java.basics.config.TableEngine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Файл в директории таблицы, в котором записан способ ее хранения ({@link TableEngine}).
+ * Таблицы без этого файла хранятся как {@link TableEngine#LOG}, поэтому у таких таблиц файл не создается
+ */
+public class TableEngineFile {
+    public static final String FILE_NAME = "table.engine";
+
+    private TableEngineFile() {
+    }
+
+    /**
+     * @return способ хранения таблицы из ее директории
+     * @throws IOException если файл есть, но его не удалось прочитать или в нем записано неизвестное значение
+     */
+    public static TableEngine read(Path tablePath) throws IOException {
+        Path enginePath = Paths.get(tablePath.toString(), FILE_NAME);
+        if (!Files.exists(enginePath)) {
+            return TableEngine.LOG;
+        }
+        String engine = new String(Files.readAllBytes(enginePath), StandardCharsets.UTF_8).trim();
+        try {
+            return TableEngine.valueOf(engine);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown table engine " + engine + " in " + enginePath, e);
+        }
+    }
+
+    /**
+     * Записывает способ хранения в директорию только что созданной таблицы
+     */
+    public static void write(Path tablePath, TableEngine engine) throws IOException {
+        if (engine == TableEngine.LOG) {
+            return;
+        }
+        Files.write(Paths.get(tablePath.toString(), FILE_NAME), engine.name().getBytes(StandardCharsets.UTF_8));
+    }
+}
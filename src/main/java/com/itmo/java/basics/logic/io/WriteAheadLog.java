@@ -0,0 +1,177 @@
+package com.itmo.java.basics.logic.io;
+
+import com.itmo.java.basics.logic.DatabaseRecord;
+import com.itmo.java.basics.logic.ObjectKey;
+import com.itmo.java.basics.logic.WritableDatabaseRecord;
+import com.itmo.java.basics.logic.impl.GroupCommitWriter;
+import com.itmo.java.basics.logic.impl.RemoveDatabaseRecord;
+import com.itmo.java.basics.logic.impl.SetDatabaseRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Журнал изменений, которые пока хранятся только в памяти (в memtable).
+ * <p>
+ * Записи пишутся в формате сегмента {@link SegmentFormat#CHECKSUMMED} и сбрасываются на диск через
+ * {@link GroupCommitWriter} по политике надежности из настроек. После того как содержимое памяти
+ * сохранено в другом месте, журнал очищается ({@link #reset()})
+ */
+public class WriteAheadLog implements Closeable {
+    public static final String FILE_NAME = "memtable.wal";
+    private static final int APPEND_BUFFER_SIZE = 8192;
+    private static final int SIZE_OF_INT = 4;
+    private final Path path;
+    private final GroupCommitWriter commitWriter;
+    private final SegmentFormat format = SegmentFormat.CHECKSUMMED;
+    private final FileChannel channel;
+    private final DatabaseOutputStream output;
+    /**
+     * Размер журнала вместе с заголовком
+     */
+    private long size;
+
+    /**
+     * Получатель записей журнала при его чтении
+     */
+    public interface RecordConsumer {
+        /**
+         * @param key   ключ записи
+         * @param value значение или null, если это отметка об удалении
+         */
+        void accept(ObjectKey key, byte[] value);
+    }
+
+    /**
+     * @return {@code true} - если файл с таким именем является журналом таблицы, а не сегментом
+     */
+    public static boolean isLogFile(String fileName) {
+        return fileName.equals(FILE_NAME);
+    }
+
+    private WriteAheadLog(Path path, GroupCommitWriter commitWriter, FileChannel channel, long size) {
+        this.path = path;
+        this.commitWriter = commitWriter;
+        this.channel = channel;
+        this.size = size;
+        this.output = new DatabaseOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), APPEND_BUFFER_SIZE), format);
+    }
+
+    /**
+     * Открывает журнал (создает, если его нет) и передает получателю все целые записи по порядку.
+     * Недописанный или поврежденный хвост журнала (после сбоя посреди записи) отрезается
+     *
+     * @param path         путь до файла журнала
+     * @param commitWriter через кого сбрасываются на диск новые записи
+     * @param consumer     получатель записей
+     * @return журнал, готовый к дописыванию
+     * @throws IOException если не удалось прочитать или создать журнал
+     */
+    public static WriteAheadLog open(Path path, GroupCommitWriter commitWriter, RecordConsumer consumer) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < SegmentFormat.CHECKSUMMED.getHeaderSize()) {
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(SegmentFormat.CHECKSUMMED.header()), 0);
+            }
+            long validSize = replay(channel, consumer);
+            if (channel.size() > validSize) {
+                channel.truncate(validSize);
+            }
+            channel.position(validSize);
+            return new WriteAheadLog(path, commitWriter, channel, validSize);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Дописывает в журнал новое значение ключа
+     *
+     * @param value значение или null для отметки об удалении
+     * @throws IOException если не удалось записать
+     */
+    public void append(ObjectKey key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes();
+        WritableDatabaseRecord record = value == null
+                ? new RemoveDatabaseRecord(keyBytes.length, keyBytes)
+                : new SetDatabaseRecord(keyBytes.length, keyBytes, value.length, value);
+        size += output.write(record);
+        output.flush();
+        commitWriter.registerAppend(channel);
+    }
+
+    /**
+     * Очищает журнал. Вызывается, когда все его записи надежно сохранены в другом месте
+     *
+     * @throws IOException если не удалось обрезать файл
+     */
+    public void reset() throws IOException {
+        output.flush();
+        channel.truncate(format.getHeaderSize());
+        channel.position(format.getHeaderSize());
+        size = format.getHeaderSize();
+    }
+
+    /**
+     * @return размер журнала в байтах. Повторные записи одного ключа в нем не схлопываются,
+     * поэтому журнал бывает намного больше memtable
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            output.flush();
+            commitWriter.release(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return размер целой части журнала
+     */
+    private static long replay(FileChannel channel, RecordConsumer consumer) throws IOException {
+        channel.position(0);
+        if (SegmentFormat.detect(channel) != SegmentFormat.CHECKSUMMED) {
+            throw new IOException("Write-ahead log has unexpected format");
+        }
+        long validSize = SegmentFormat.CHECKSUMMED.getHeaderSize();
+        channel.position(validSize);
+        DatabaseInputStream input = new DatabaseInputStream(new BufferedInputStream(Channels.newInputStream(channel)),
+                SegmentFormat.CHECKSUMMED);
+        while (true) {
+            Optional<DatabaseRecord> record;
+            try {
+                record = input.readDbUnit();
+            } catch (IOException e) {
+                break;
+            }
+            if (record.isEmpty()) {
+                break;
+            }
+            DatabaseRecord databaseRecord = record.get();
+            consumer.accept(ObjectKey.wrap(databaseRecord.getKey()),
+                    databaseRecord.isValuePresented() ? databaseRecord.getValue() : null);
+            validSize += SegmentFormat.CHECKSUMMED.getRecordPrefixSize() + SIZE_OF_INT + databaseRecord.getKey().length
+                    + SIZE_OF_INT + (databaseRecord.isValuePresented() ? databaseRecord.getValue().length : 0);
+        }
+        return validSize;
+    }
+}
@@ -4,7 +4,6 @@ import com.itmo.java.basics.console.DatabaseCommand;
 import com.itmo.java.basics.console.DatabaseCommandArgPositions;
 import com.itmo.java.basics.console.DatabaseCommands;
 import com.itmo.java.basics.console.ExecutionEnvironment;
-import com.itmo.java.basics.console.impl.CreateDatabaseCommand;
 import com.itmo.java.protocol.RespReader;
 import com.itmo.java.protocol.model.RespArray;
 import com.itmo.java.protocol.model.RespBulkString;
@@ -35,7 +34,15 @@ public class CommandReader implements AutoCloseable {
      * @throws IllegalArgumentException если нет имени команды и id
      */
     public DatabaseCommand readCommand() throws IOException {
-        RespArray respArray = reader.readArray();
+        return toCommand(reader.readArray(), env);
+    }
+
+    /**
+     * Собирает команду из уже считанного массива
+     *
+     * @throws IllegalArgumentException если нет имени команды и id
+     */
+    public static DatabaseCommand toCommand(RespArray respArray, ExecutionEnvironment env) {
         if (respArray.getObjects().size() < DatabaseCommandArgPositions.DATABASE_NAME.getPositionIndex() + 1){
             throw new IllegalArgumentException("RespArray does not have enough size to have id, name and one object");
         }
@@ -10,9 +10,32 @@ public interface KvsClient {
 
     String createTable(String tableName) throws DatabaseExecutionException;
 
+    /**
+     * Создает таблицу с заданным способом хранения
+     *
+     * @param engine способ хранения таблицы на сервере ("log" или "sstable")
+     */
+    String createTable(String tableName, String engine) throws DatabaseExecutionException;
+
     String get(String tableName, String key) throws DatabaseExecutionException;
 
     String set(String tableName, String key, String value) throws DatabaseExecutionException;
 
     String delete(String tableName, String key) throws DatabaseExecutionException;
+
+    /**
+     * Обходит ключи таблицы из диапазона [fromInclusive, toExclusive) по возрастанию. Страницы запрашиваются по мере обхода
+     *
+     * @param fromInclusive нижняя граница ключей (null - без границы)
+     * @param toExclusive   верхняя граница ключей (null - без границы)
+     * @param withValues    получать ли вместе с ключами значения
+     */
+    KvsScanCursor scanKeys(String tableName, String fromInclusive, String toExclusive, boolean withValues);
+
+    /**
+     * Обходит ключи таблицы с заданным префиксом по возрастанию. Страницы запрашиваются по мере обхода
+     *
+     * @param withValues получать ли вместе с ключами значения
+     */
+    KvsScanCursor scanPrefix(String tableName, String prefix, boolean withValues);
 }
@@ -0,0 +1,74 @@
+package com.itmo.java.client.client;
+
+import com.itmo.java.client.exception.DatabaseExecutionException;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Потоковый обход ключей таблицы. Страницы запрашиваются у сервера по одной, когда закончилась предыдущая,
+ * так что в памяти клиента не бывает больше одной страницы
+ */
+public class KvsScanCursor {
+    /**
+     * Запрос страницы по курсору (последнему ключу предыдущей страницы, null - первая страница)
+     */
+    public interface PageRequest {
+        RespObject send(String cursor) throws DatabaseExecutionException;
+    }
+
+    private final PageRequest pageRequest;
+    private final boolean withValues;
+    private final Deque<Map.Entry<String, String>> page = new ArrayDeque<>();
+    private String cursor;
+    private boolean finished;
+
+    /**
+     * @param withValues отдает ли сервер значения вместе с ключами
+     */
+    public KvsScanCursor(PageRequest pageRequest, boolean withValues) {
+        this.pageRequest = pageRequest;
+        this.withValues = withValues;
+    }
+
+    /**
+     * Есть ли еще ключи? Если текущая страница закончилась, запрашивает следующую
+     */
+    public boolean hasNext() throws DatabaseExecutionException {
+        while (page.isEmpty() && !finished) {
+            fetchPage();
+        }
+        return !page.isEmpty();
+    }
+
+    /**
+     * @return следующий ключ и его значение (null, если значения не запрашивались)
+     * @throws NoSuchElementException если ключи закончились
+     */
+    public Map.Entry<String, String> next() throws DatabaseExecutionException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more keys to scan");
+        }
+        return page.poll();
+    }
+
+    private void fetchPage() throws DatabaseExecutionException {
+        RespObject result = pageRequest.send(cursor);
+        if (!(result instanceof RespArray) || ((RespArray) result).getObjects().isEmpty()) {
+            throw new DatabaseExecutionException("Unexpected scan result: " + result.asString());
+        }
+        List<RespObject> objects = ((RespArray) result).getObjects();
+        cursor = objects.get(0).asString();
+        finished = cursor == null;
+        int step = withValues ? 2 : 1;
+        for (int i = 1; i + step - 1 < objects.size(); i += step) {
+            page.add(new AbstractMap.SimpleImmutableEntry<>(objects.get(i).asString(), withValues ? objects.get(i + 1).asString() : null));
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.function.Supplier;
 
 public class SimpleKvsClient implements KvsClient {
+    private static final int SCAN_PAGE_SIZE = 100;
     private final String databaseName;
     private final KvsConnection kvsConnection;
 
@@ -36,6 +37,12 @@ public class SimpleKvsClient implements KvsClient {
         return tryToSend(command);
     }
 
+    @Override
+    public String createTable(String tableName, String engine) throws DatabaseExecutionException {
+        KvsCommand command = new CreateTableKvsCommand(databaseName, tableName, engine);
+        return tryToSend(command);
+    }
+
     @Override
     public String get(String tableName, String key) throws DatabaseExecutionException {
         KvsCommand command = new GetKvsCommand(databaseName, tableName, key);
@@ -54,13 +61,29 @@ public class SimpleKvsClient implements KvsClient {
         return tryToSend(command);
     }
 
+    @Override
+    public KvsScanCursor scanKeys(String tableName, String fromInclusive, String toExclusive, boolean withValues) {
+        return new KvsScanCursor(cursor -> send(new ScanKeysKvsCommand(databaseName, tableName, fromInclusive, toExclusive,
+                cursor, SCAN_PAGE_SIZE, withValues)), withValues);
+    }
+
+    @Override
+    public KvsScanCursor scanPrefix(String tableName, String prefix, boolean withValues) {
+        return new KvsScanCursor(cursor -> send(new ScanPrefixKvsCommand(databaseName, tableName, prefix,
+                cursor, SCAN_PAGE_SIZE, withValues)), withValues);
+    }
+
     private String tryToSend(KvsCommand command) throws DatabaseExecutionException {
+        return send(command).asString();
+    }
+
+    private RespObject send(KvsCommand command) throws DatabaseExecutionException {
         try {
             RespObject result = kvsConnection.send(command.getCommandId(), command.serialize());
             if (result.isError()) {
                 throw new DatabaseExecutionException(result.asString());
             }
-            return result.asString();
+            return result;
         } catch (ConnectionException e) {
             throw new DatabaseExecutionException(String.format("DatabaseExecutionException when try to send '%s' with kvsConnection",
                     command.serialize().asString()), e);
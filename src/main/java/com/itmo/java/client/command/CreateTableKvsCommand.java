@@ -13,11 +13,20 @@ public class CreateTableKvsCommand implements KvsCommand {
     private static final String COMMAND_NAME = "CREATE_TABLE";
     private final String databaseName;
     private final String tableName;
+    /**
+     * Способ хранения таблицы ("log" или "sstable"). null - способ по умолчанию из настроек сервера
+     */
+    private final String engine;
     private final int commandId;
 
     public CreateTableKvsCommand(String databaseName, String tableName) {
+        this(databaseName, tableName, null);
+    }
+
+    public CreateTableKvsCommand(String databaseName, String tableName, String engine) {
         this.databaseName = databaseName;
         this.tableName = tableName;
+        this.engine = engine;
         this.commandId = idGen.getAndIncrement();
     }
 
@@ -28,8 +37,13 @@ public class CreateTableKvsCommand implements KvsCommand {
      */
     @Override
     public RespArray serialize() {
+        if (engine == null) {
+            return new RespArray(new RespCommandId(commandId), new RespBulkString(COMMAND_NAME.getBytes(StandardCharsets.UTF_8)),
+                    new RespBulkString(databaseName.getBytes(StandardCharsets.UTF_8)), new RespBulkString(tableName.getBytes(StandardCharsets.UTF_8)));
+        }
         return new RespArray(new RespCommandId(commandId), new RespBulkString(COMMAND_NAME.getBytes(StandardCharsets.UTF_8)),
-                new RespBulkString(databaseName.getBytes(StandardCharsets.UTF_8)), new RespBulkString(tableName.getBytes(StandardCharsets.UTF_8)));
+                new RespBulkString(databaseName.getBytes(StandardCharsets.UTF_8)), new RespBulkString(tableName.getBytes(StandardCharsets.UTF_8)),
+                new RespBulkString(engine.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Override
@@ -0,0 +1,67 @@
+package com.itmo.java.client.command;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScanPrefixKvsCommand implements KvsCommand {
+
+    private static final String COMMAND_NAME = "SCAN_PREFIX";
+    private static final String WITH_VALUES = "WITH_VALUES";
+    private final String databaseName;
+    private final String tableName;
+    private final String prefix;
+    private final String cursor;
+    private final int pageSize;
+    private final boolean withValues;
+    private final int commandId;
+
+    /**
+     * @param cursor последний ключ предыдущей страницы (null - первая страница)
+     */
+    public ScanPrefixKvsCommand(String databaseName, String tableName, String prefix, String cursor, int pageSize, boolean withValues) {
+        this.databaseName = databaseName;
+        this.tableName = tableName;
+        this.prefix = prefix;
+        this.cursor = cursor;
+        this.pageSize = pageSize;
+        this.withValues = withValues;
+        this.commandId = idGen.getAndIncrement();
+    }
+
+    /**
+     * Возвращает RESP объект. {@link RespArray} с {@link RespCommandId}, именем команды, аргументами в виде {@link RespBulkString}.
+     * Отсутствующий курсор передается пустой строкой
+     *
+     * @return объект
+     */
+    @Override
+    public RespArray serialize() {
+        List<RespObject> objects = new ArrayList<>();
+        objects.add(new RespCommandId(commandId));
+        objects.add(bulkString(COMMAND_NAME));
+        objects.add(bulkString(databaseName));
+        objects.add(bulkString(tableName));
+        objects.add(bulkString(prefix));
+        objects.add(bulkString(cursor));
+        objects.add(bulkString(String.valueOf(pageSize)));
+        if (withValues) {
+            objects.add(bulkString(WITH_VALUES));
+        }
+        return new RespArray(objects.toArray(new RespObject[0]));
+    }
+
+    @Override
+    public int getCommandId() {
+        return commandId;
+    }
+
+    private static RespBulkString bulkString(String value) {
+        return new RespBulkString((value == null ? "" : value).getBytes(StandardCharsets.UTF_8));
+    }
+}
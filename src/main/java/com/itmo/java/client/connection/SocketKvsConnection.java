@@ -6,9 +6,9 @@ import com.itmo.java.protocol.RespWriter;
 import com.itmo.java.protocol.model.RespArray;
 import com.itmo.java.protocol.model.RespObject;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.Socket;
-import java.net.UnknownHostException;
 
 /**
  * С помощью {@link RespWriter} и {@link RespReader} читает/пишет в сокет
@@ -25,8 +25,9 @@ public class SocketKvsConnection implements KvsConnection {
         this.host = config.getHost();
         try {
             this.clientSocket = new Socket(host, port);
+            clientSocket.setTcpNoDelay(true);
             this.respReader = new RespReader(clientSocket.getInputStream());
-            respWriter = new RespWriter(clientSocket.getOutputStream());
+            respWriter = new RespWriter(new BufferedOutputStream(clientSocket.getOutputStream()));
         } catch (IOException e) {
             throw new RuntimeException("IOException when try to connect by " + host + " " + port, e);
         }
@@ -41,9 +42,7 @@ public class SocketKvsConnection implements KvsConnection {
     @Override
     public synchronized RespObject send(int commandId, RespArray command) throws ConnectionException {
         try {
-            RespWriter respWriter = new RespWriter(clientSocket.getOutputStream());
             respWriter.write(command);
-            RespReader respReader = new RespReader(clientSocket.getInputStream());
             return respReader.readObject();
         } catch (IOException e) {
             close();
@@ -0,0 +1,179 @@
+package com.itmo.java.protocol;
+
+import com.itmo.java.protocol.model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Разбирает RESP объекты из буфера, в котором может лежать только часть объекта - столько, сколько пришло
+ * из неблокирующего канала. Формат тот же, что читает {@link RespReader}.
+ * <p>
+ * Если объект в буфере еще не целиком, разбор откатывается и повторяется, когда придут остальные байты.
+ * Тело bulk строки копируется, только когда оно пришло целиком, а до этого проверяется одной длиной, так что
+ * повторный разбор стоит порядка числа элементов, а не числа байтов.
+ * <p>
+ * Байты приходят прямо из сети, поэтому размеры массивов и bulk строк и длина строки ошибки ограничены
+ * максимальным размером команды, а вложенность массивов - {@link #MAX_NESTING_DEPTH}: ни объявленный
+ * клиентом размер, ни глубина вложенности не должны ронять поток, который разбирает команды
+ */
+public final class RespBufferParser {
+    private static final int COMMAND_ID_SIZE = 4;
+    /**
+     * Длина строки с размером массива или bulk строки: число int со знаком
+     */
+    private static final int MAX_SIZE_LINE_LENGTH = 11;
+    /**
+     * Команда - массив из команды и ее аргументов, глубже массивы не вкладываются
+     */
+    private static final int MAX_NESTING_DEPTH = 8;
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private RespBufferParser() {
+    }
+
+    /**
+     * Разбирает массив с текущей позиции буфера. Если массив целиком в буфере, позиция сдвигается за него,
+     * иначе остается на месте
+     *
+     * @param maxSize наибольший допустимый размер массива, bulk строки и строки ошибки
+     * @return массив или null, если в буфере только его часть
+     * @throws IOException если байты не являются RESP массивом или объявленный размер больше maxSize
+     */
+    public static RespArray parseArray(ByteBuffer buffer, int maxSize) throws IOException {
+        int start = buffer.position();
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        if (buffer.get() != RespArray.CODE) {
+            throw new IOException("Code character is not correct, array expected");
+        }
+        RespArray array = parseArrayBody(buffer, maxSize, 1);
+        if (array == null) {
+            buffer.position(start);
+        }
+        return array;
+    }
+
+    /**
+     * @return объект или null, если буфер закончился раньше объекта. Позиция в этом случае не определена
+     */
+    private static RespObject parseObject(ByteBuffer buffer, int maxSize, int depth) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        byte code = buffer.get();
+        switch (code) {
+            case RespArray.CODE:
+                return parseArrayBody(buffer, maxSize, depth + 1);
+            case RespBulkString.CODE:
+                return parseBulkString(buffer, maxSize);
+            case RespCommandId.CODE:
+                return parseCommandId(buffer);
+            case RespError.CODE:
+                byte[] message = readLine(buffer, maxSize);
+                return message == null ? null : new RespError(message);
+            default:
+                throw new IOException("Code character is not correct");
+        }
+    }
+
+    private static RespArray parseArrayBody(ByteBuffer buffer, int maxSize, int depth) throws IOException {
+        if (depth > MAX_NESTING_DEPTH) {
+            throw new IOException("RespArray nesting is deeper than " + MAX_NESTING_DEPTH);
+        }
+        byte[] sizeLine = readLine(buffer, MAX_SIZE_LINE_LENGTH);
+        if (sizeLine == null) {
+            return null;
+        }
+        int arraySize = parseSize(sizeLine);
+        if (arraySize < 0) {
+            throw new IOException("Negative RespArray size " + arraySize);
+        }
+        if (arraySize > maxSize) {
+            throw new IOException("RespArray size " + arraySize + " is larger than " + maxSize);
+        }
+        if (arraySize > buffer.remaining()) {
+            return null;
+        }
+        RespObject[] objects = new RespObject[arraySize];
+        for (int i = 0; i < arraySize; i++) {
+            RespObject object = parseObject(buffer, maxSize, depth);
+            if (object == null) {
+                return null;
+            }
+            objects[i] = object;
+        }
+        return new RespArray(objects);
+    }
+
+    private static RespBulkString parseBulkString(ByteBuffer buffer, int maxSize) throws IOException {
+        byte[] sizeLine = readLine(buffer, MAX_SIZE_LINE_LENGTH);
+        if (sizeLine == null) {
+            return null;
+        }
+        int stringSize = parseSize(sizeLine);
+        if (stringSize == RespBulkString.NULL_STRING_SIZE) {
+            return RespBulkString.NULL_STRING;
+        }
+        if (stringSize < 0) {
+            throw new IOException("Negative StringBulk size " + stringSize);
+        }
+        if (stringSize > maxSize) {
+            throw new IOException("StringBulk size " + stringSize + " is larger than " + maxSize);
+        }
+        if (buffer.remaining() < (long) stringSize + 2) {
+            return null;
+        }
+        byte[] data = new byte[stringSize];
+        buffer.get(data);
+        readEndOfLine(buffer, "String length is not equal with StringBulk size");
+        return new RespBulkString(data);
+    }
+
+    private static RespCommandId parseCommandId(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < COMMAND_ID_SIZE + 2) {
+            return null;
+        }
+        int commandId = buffer.getInt();
+        readEndOfLine(buffer, "Command Id is not integer");
+        return new RespCommandId(commandId);
+    }
+
+    private static void readEndOfLine(ByteBuffer buffer, String errorMessage) throws IOException {
+        if (buffer.get() != CR || buffer.get() != LF) {
+            throw new IOException(errorMessage);
+        }
+    }
+
+    /**
+     * @return байты до '\r\n' (позиция сдвигается за '\r\n') или null, если '\r\n' в буфере еще нет
+     * @throws IOException если строка длиннее maxLength
+     */
+    private static byte[] readLine(ByteBuffer buffer, int maxLength) throws IOException {
+        int start = buffer.position();
+        for (int i = start; i < buffer.limit() - 1; i++) {
+            if (buffer.get(i) == CR && buffer.get(i + 1) == LF) {
+                byte[] line = new byte[i - start];
+                buffer.get(line);
+                buffer.position(i + 2);
+                return line;
+            }
+            if (i - start >= maxLength) {
+                throw new IOException("Line is longer than " + maxLength + " bytes");
+            }
+        }
+        return null;
+    }
+
+    private static int parseSize(byte[] sizeLine) throws IOException {
+        try {
+            return Integer.parseInt(new String(sizeLine, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new IOException("Size is not integer", e);
+        }
+    }
+}
@@ -4,12 +4,14 @@ import com.itmo.java.protocol.model.*;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
 
 public class RespReader implements AutoCloseable {
     private static final int READ_AHEAD_LIMIT = 1;
-    private final BufferedReader reader;
+    private static final int COMMAND_ID_SIZE = 4;
+    /**
+     * Читается побайтово: id команды и bulk строки могут содержать любые байты, в том числе CR и LF
+     */
+    private final BufferedInputStream reader;
 
     /**
      * Специальные символы окончания элемента
@@ -18,7 +20,7 @@ public class RespReader implements AutoCloseable {
     private static final byte LF = '\n';
 
     public RespReader(InputStream is) {
-        reader = new BufferedReader(new InputStreamReader(is));
+        reader = new BufferedInputStream(is);
     }
 
     /**
@@ -78,10 +80,11 @@ public class RespReader implements AutoCloseable {
         if (stringSize == RespBulkString.NULL_STRING_SIZE) {
             return RespBulkString.NULL_STRING;
         }
-        byte[] stringData = readBytesToEndOfLine();
-        if (stringData.length != stringSize) {
-            throw new IOException("String length is not equal with StringBulk size");
+        if (stringSize < 0) {
+            throw new IOException("Negative StringBulk size " + stringSize);
         }
+        byte[] stringData = readBytes(stringSize);
+        readEndOfLine("String length is not equal with StringBulk size");
         return new RespBulkString(stringData);
     }
 
@@ -108,10 +111,8 @@ public class RespReader implements AutoCloseable {
      * @throws IOException  при ошибке чтения
      */
     public RespCommandId readCommandId() throws IOException {
-        byte[] idBytes = readBytesToEndOfLine();
-        if (idBytes.length != 4) {
-            throw new IOException("Command Id is not integer");
-        }
+        byte[] idBytes = readBytes(COMMAND_ID_SIZE);
+        readEndOfLine("Command Id is not integer");
         return new RespCommandId(bytesToInt(idBytes));
     }
 
@@ -122,11 +123,30 @@ public class RespReader implements AutoCloseable {
     }
 
     private static int bytesToInt(byte[] bytes) {
-        return (bytes[0] << 24) | (bytes[1] << 16) | (bytes[2] << 8) | (bytes[3]);
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+
+    private byte[] readBytes(int size) throws IOException {
+        byte[] bytes = reader.readNBytes(size);
+        if (bytes.length != size) {
+            throw new EOFException("Stream is empty when try to read " + size + " bytes");
+        }
+        return bytes;
+    }
+
+    private void readEndOfLine(String errorMessage) throws IOException {
+        int cr = reader.read();
+        int lf = reader.read();
+        if (lf == -1) {
+            throw new EOFException("Stream is empty when try to read '\\r\\n'");
+        }
+        if (cr != CR || lf != LF) {
+            throw new IOException(errorMessage);
+        }
     }
 
     private byte[] readBytesToEndOfLine() throws IOException {
-        List<Byte> readingBytes = new ArrayList<>();
+        ByteArrayOutputStream readingBytes = new ByteArrayOutputStream();
         while (true) {
             int currentByte = reader.read();
             if (currentByte == -1) {
@@ -146,12 +166,8 @@ public class RespReader implements AutoCloseable {
                     reader.reset();
                 }
             }
-            readingBytes.add((byte) currentByte);
-        }
-        byte[] bytes = new byte[readingBytes.size()];
-        for (int i = 0; i < readingBytes.size(); i++) {
-            bytes[i] = readingBytes.get(i);
+            readingBytes.write(currentByte);
         }
-        return bytes;
+        return readingBytes.toByteArray();
     }
 }
@@ -4,7 +4,6 @@ import com.itmo.java.protocol.model.RespObject;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 
 public class RespWriter implements AutoCloseable{
     private final OutputStream os;
@@ -14,10 +13,14 @@ public class RespWriter implements AutoCloseable{
     }
 
     /**
-     * Записывает в output stream объект
+     * Записывает в output stream объект и сбрасывает поток один раз, когда объект записан целиком:
+     * сами объекты поток не сбрасывают (см {@link RespObject#write(OutputStream)}). Для сокета поток стоит
+     * буферизовать, тогда объект уходит одним пакетом, а не по пакету на каждую часть.
+     * Кто пишет объект в поток мимо RespWriter, должен сбросить поток сам
      */
     public void write(RespObject object) throws IOException {
         object.write(os);
+        os.flush();
     }
 
     @Override
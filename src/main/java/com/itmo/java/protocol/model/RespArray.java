@@ -52,7 +52,6 @@ public class RespArray implements RespObject {
         os.write(CODE);
         os.write(String.valueOf(objects.size()).getBytes(StandardCharsets.UTF_8));
         os.write(CRLF);
-        os.flush();
         for (RespObject object : objects) {
             object.write(os);
         }
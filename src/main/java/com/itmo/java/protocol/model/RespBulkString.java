@@ -46,6 +46,16 @@ public class RespBulkString implements RespObject {
         return new String(data, StandardCharsets.UTF_8);
     }
 
+    /**
+     * Байты строки без копирования
+     *
+     * @return данные, если они есть. Если нет - null
+     */
+    @Override
+    public byte[] asBytes() {
+        return data;
+    }
+
     @Override
     public void write(OutputStream os) throws IOException {
         os.write(CODE);
@@ -58,6 +68,5 @@ public class RespBulkString implements RespObject {
             os.write(data);
         }
         os.write(CRLF);
-        os.flush();
     }
 }
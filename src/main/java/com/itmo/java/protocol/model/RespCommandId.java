@@ -2,7 +2,6 @@ package com.itmo.java.protocol.model;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Id
@@ -39,7 +38,6 @@ public class RespCommandId implements RespObject {
         os.write(CODE);
         os.write(intToByteArray(commandId));
         os.write(CRLF);
-        os.flush();
     }
 
     static byte[] intToByteArray(int data) {
@@ -42,6 +42,5 @@ public class RespError implements RespObject {
         os.write(CODE);
         os.write(message);
         os.write(CRLF);
-        os.flush();
     }
 }
@@ -25,8 +25,18 @@ public interface RespObject {
      */
     String asString();
 
+    /**
+     * @return байты значения команды (не в RESP, без специальных символов). Например, для {@link RespBulkString} -
+     * байты строки в том виде, в каком они пришли, без перекодирования в строку и обратно. Null, если данных нет
+     */
+    default byte[] asBytes() {
+        String string = asString();
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Сериализует данный объект в RESP и записывает байты в переданный OutputStream.
+     * Поток не сбрасывается, чтобы объект целиком уходил одной записью (см {@link com.itmo.java.protocol.RespWriter})
      */
     void write(OutputStream os) throws IOException;
 }
\ No newline at end of file
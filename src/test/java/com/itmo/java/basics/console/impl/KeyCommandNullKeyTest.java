@@ -0,0 +1,92 @@
+package com.itmo.java.basics.console.impl;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.console.DatabaseCommandResult;
+import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
+import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
+import com.itmo.java.basics.initialization.impl.SegmentInitializer;
+import com.itmo.java.basics.initialization.impl.TableInitializer;
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ключ, пришедший null bulk строкой, дает результат с ошибкой, а не исключение при создании команды
+ */
+public class KeyCommandNullKeyTest {
+    private static final String DATABASE_NAME = "db";
+    private static final String TABLE_NAME = "table";
+
+    @Rule
+    public TemporaryFolder workingDirectory = new TemporaryFolder();
+
+    private DatabaseServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseConfig config = new DatabaseConfig(workingDirectory.getRoot().getAbsolutePath());
+        server = DatabaseServer.initialize(new ExecutionEnvironmentImpl(config),
+                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))));
+        assertTrue(execute(command("CREATE_DATABASE", DATABASE_NAME)).isSuccess());
+        assertTrue(execute(command("CREATE_TABLE", DATABASE_NAME, TABLE_NAME)).isSuccess());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void setWithNullKeyReturnsError() throws Exception {
+        assertError(execute(command("SET_KEY", DATABASE_NAME, TABLE_NAME, null, "value")));
+    }
+
+    @Test
+    public void getWithNullKeyReturnsError() throws Exception {
+        assertError(execute(command("GET_KEY", DATABASE_NAME, TABLE_NAME, null)));
+    }
+
+    @Test
+    public void deleteWithNullKeyReturnsError() throws Exception {
+        assertError(execute(command("DELETE_KEY", DATABASE_NAME, TABLE_NAME, null)));
+    }
+
+    private static void assertError(DatabaseCommandResult result) {
+        assertFalse(result.isSuccess());
+        assertTrue(result.getPayLoad(), result.getPayLoad().contains("by key null"));
+    }
+
+    private DatabaseCommandResult execute(RespArray command) throws Exception {
+        return server.executeNextCommand(command).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param args аргументы команды после ее имени. null передается null bulk строкой
+     */
+    private static RespArray command(String name, String... args) {
+        RespObject[] objects = new RespObject[args.length + 2];
+        objects[0] = new RespCommandId(1);
+        objects[1] = bulkString(name);
+        for (int i = 0; i < args.length; i++) {
+            objects[i + 2] = args[i] == null ? RespBulkString.NULL_STRING : bulkString(args[i]);
+        }
+        return new RespArray(objects);
+    }
+
+    private static RespBulkString bulkString(String value) {
+        return new RespBulkString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,104 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.TableEngine;
+import com.itmo.java.basics.exceptions.DatabaseException;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.ObjectKey;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Удаление отсутствующего или уже удаленного ключа - ошибка, лежит ли отметка об удалении в memtable или в сегменте,
+ * и у таблицы без memtable тоже
+ */
+public class TableDeleteTest {
+    private static final String DATABASE_NAME = "db";
+    private static final String TABLE_NAME = "table";
+    private static final long SMALL_MEMTABLE_BYTES = 4096;
+    private static final long LARGE_MEMTABLE_BYTES = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder workingDirectory = new TemporaryFolder();
+
+    private final List<Database> databases = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        for (Database database : databases) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void deleteOfAbsentKeyFails() throws Exception {
+        for (TableEngine engine : TableEngine.values()) {
+            Database database = create(engine, 0);
+            assertThrows(engine.name(), DatabaseException.class, () -> database.delete(TABLE_NAME, key("absent")));
+        }
+    }
+
+    @Test
+    public void secondDeleteFailsWithoutMemtable() throws Exception {
+        assertSecondDeleteFails(TableEngine.LOG, create(TableEngine.LOG, 0));
+    }
+
+    @Test
+    public void secondDeleteFailsInMemtable() throws Exception {
+        for (TableEngine engine : TableEngine.values()) {
+            assertSecondDeleteFails(engine, create(engine, LARGE_MEMTABLE_BYTES));
+        }
+    }
+
+    @Test
+    public void secondDeleteFailsAfterFlush() throws Exception {
+        for (TableEngine engine : TableEngine.values()) {
+            assertSecondDeleteFails(engine, create(engine, SMALL_MEMTABLE_BYTES));
+        }
+    }
+
+    private static void assertSecondDeleteFails(TableEngine engine, Database database) throws Exception {
+        database.write(TABLE_NAME, key("key"), bytes("value"));
+        database.delete(TABLE_NAME, key("key"));
+        // при маленькой memtable отметка об удалении уходит в сегмент
+        for (int i = 0; i < 500; i++) {
+            database.write(TABLE_NAME, key("other" + i), bytes("value" + i));
+        }
+        assertThrows(engine.name(), DatabaseException.class, () -> database.delete(TABLE_NAME, key("key")));
+
+        database.write(TABLE_NAME, key("key"), bytes("again"));
+        database.delete(TABLE_NAME, key("key"));
+        assertTrue(engine.name(), database.read(TABLE_NAME, key("key")).isEmpty());
+    }
+
+    private Database create(TableEngine engine, long memtableSizeBytes) throws Exception {
+        Path databaseRoot = workingDirectory.newFolder().toPath();
+        DatabaseConfig config = DatabaseConfig.builder()
+                .workingPath(databaseRoot.toString())
+                .tableEngine(engine)
+                .memtableSizeBytes(memtableSizeBytes)
+                .build();
+        Database database = DatabaseImpl.create(DATABASE_NAME, databaseRoot, config);
+        databases.add(database);
+        database.createTableIfNotExists(TABLE_NAME);
+        return database;
+    }
+
+    private static ObjectKey key(String value) {
+        return ObjectKey.wrap(bytes(value));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.itmo.java.basics.logic.impl;
+
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.IndexLayout;
+import com.itmo.java.basics.config.IndexMode;
+import com.itmo.java.basics.logic.Database;
+import com.itmo.java.basics.logic.ObjectKey;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Страницы SCAN при любом индексе видят записи и удаления, сделанные после первой страницы
+ */
+public class TableScanTest {
+    private static final String DATABASE_NAME = "db";
+    private static final String TABLE_NAME = "table";
+    private static final ObjectKey ANY_PREFIX = key("");
+
+    @Rule
+    public TemporaryFolder workingDirectory = new TemporaryFolder();
+
+    private final List<Database> databases = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        for (Database database : databases) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void pagesFollowChangesAfterFirstPage() throws Exception {
+        for (IndexMode mode : IndexMode.values()) {
+            for (IndexLayout layout : IndexLayout.values()) {
+                String name = mode + " " + layout;
+                Database database = create(mode, layout);
+                for (int i = 0; i < 20; i++) {
+                    database.write(TABLE_NAME, key(String.format("key%02d", i)), bytes("value" + i));
+                }
+                assertEquals(name, List.of("key00", "key01", "key02", "key03", "key04"), page(database, null, null, ANY_PREFIX, 5));
+
+                database.delete(TABLE_NAME, key("key01"));
+                database.write(TABLE_NAME, key("key02a"), bytes("new"));
+                database.write(TABLE_NAME, key("key03"), bytes("again"));
+                assertEquals(name, List.of("key00", "key02", "key02a", "key03", "key04"), page(database, null, null, ANY_PREFIX, 5));
+                assertEquals(name, List.of("key02a", "key03"), page(database, key("key02a"), key("key04"), ANY_PREFIX, 5));
+                assertEquals(name, List.of("key10", "key11", "key12"), page(database, key("key05"), null, key("key1"), 3));
+                assertEquals(name, List.of("key18", "key19"), page(database, key("key18"), null, ANY_PREFIX, 5));
+            }
+        }
+    }
+
+    private static List<String> page(Database database, ObjectKey fromInclusive, ObjectKey toExclusive, ObjectKey prefix,
+                                     int limit) throws Exception {
+        return database.scan(TABLE_NAME, fromInclusive, toExclusive, prefix, limit).keySet().stream()
+                .map(ObjectKey::toString)
+                .collect(Collectors.toList());
+    }
+
+    private Database create(IndexMode mode, IndexLayout layout) throws Exception {
+        Path databaseRoot = workingDirectory.newFolder().toPath();
+        DatabaseConfig config = DatabaseConfig.builder()
+                .workingPath(databaseRoot.toString())
+                .indexMode(mode)
+                .indexLayout(layout)
+                .build();
+        Database database = DatabaseImpl.create(DATABASE_NAME, databaseRoot, config);
+        databases.add(database);
+        database.createTableIfNotExists(TABLE_NAME);
+        return database;
+    }
+
+    private static ObjectKey key(String value) {
+        return ObjectKey.wrap(bytes(value));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,175 @@
+package com.itmo.java.bench;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.ConnectorMode;
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.config.DurabilityPolicy;
+import com.itmo.java.basics.config.ServerConfig;
+import com.itmo.java.basics.connector.ServerConnector;
+import com.itmo.java.basics.connector.VirtualThreads;
+import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
+import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
+import com.itmo.java.basics.initialization.impl.SegmentInitializer;
+import com.itmo.java.basics.initialization.impl.TableInitializer;
+import com.itmo.java.client.client.SimpleKvsClient;
+import com.itmo.java.client.connection.ConnectionConfig;
+import com.itmo.java.client.connection.KvsConnection;
+import com.itmo.java.client.connection.SocketKvsConnection;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Нагрузка на сервер по сокетам: N клиентов, у каждого свое соединение, попеременно шлют SET и GET своих ключей.
+ * Пока идет нагрузка, открыты соединения, которые ничего не шлют: они не должны задерживать остальных.
+ * Запуск:
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/classes:target/test-classes com.itmo.java.bench.SocketLoadBenchmark [-Dclients=1,4,16,64] [-Dops=40000]
+ *      [-Ddurability=NONE] [-Dconnector=SOCKET] [-Didle=1]
+ * </pre>
+ * ops - сколько команд шлют все клиенты вместе на каждом уровне нагрузки, durability - {@link DurabilityPolicy},
+ * connector - {@link ConnectorMode}, idle - сколько открыто молчащих соединений. Для сравнения платформенных
+ * и виртуальных потоков запускается с -Dconnector=SOCKET и -Dconnector=VIRTUAL_THREADS при большом idle;
+ * виртуальные потоки требуют Java 21 (сборка mvn -B -P java21 test-compile).
+ * Печатает, сколько потоков и памяти добавили сервер и молчащие соединения, команды в секунду для каждого
+ * числа клиентов и счетчики соединений сервера
+ */
+public class SocketLoadBenchmark {
+    private static final String DATABASE_NAME = "bench";
+    private static final String TABLE_NAME = "load";
+
+    public static void main(String[] args) throws Exception {
+        String[] clientCounts = System.getProperty("clients", "1,4,16,64").split(",");
+        int ops = Integer.getInteger("ops", 40_000);
+        DurabilityPolicy durability = DurabilityPolicy.valueOf(System.getProperty("durability", "NONE"));
+        ConnectorMode connectorMode = ConnectorMode.valueOf(System.getProperty("connector", "SOCKET"));
+        int idleConnections = Integer.getInteger("idle", 1);
+        int maxClients = Stream.of(clientCounts).mapToInt(count -> Integer.parseInt(count.trim())).max().orElse(0);
+        long threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        long heapBefore = usedHeap();
+        Path workingPath = Files.createTempDirectory("kvs-load-bench");
+        int port = freePort();
+
+        ThreadFactory commandThreadFactory = connectorMode == ConnectorMode.VIRTUAL_THREADS
+                ? VirtualThreads.threadFactory() : Executors.defaultThreadFactory();
+        DatabaseServer server = DatabaseServer.initialize(
+                new ExecutionEnvironmentImpl(DatabaseConfig.builder().workingPath(workingPath.toString()).durabilityPolicy(durability).build()),
+                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))),
+                commandThreadFactory);
+        ServerConnector connector = ServerConnector.create(server, ServerConfig.builder().port(port).connectorMode(connectorMode)
+                .maxConnections(idleConnections + maxClients + 1).build());
+        connector.start();
+        ConnectionConfig connectionConfig = new ConnectionConfig(ServerConfig.DEFAULT_HOST, port);
+        KvsConnection setupConnection = new SocketKvsConnection(connectionConfig);
+        SimpleKvsClient setup = new SimpleKvsClient(DATABASE_NAME, () -> setupConnection);
+        setup.createDatabase();
+        setup.createTable(TABLE_NAME);
+
+        List<Socket> idleClients = new ArrayList<>();
+        try {
+            for (int i = 0; i < idleConnections; i++) {
+                idleClients.add(new Socket(ServerConfig.DEFAULT_HOST, port));
+            }
+            // сервер принимает соединения асинхронно, ждем, пока он начнет обслуживать все молчащие
+            while (connector.getActiveConnections().size() < idleConnections + 1) {
+                Thread.sleep(10);
+            }
+            System.out.printf("connector %s, durability %s, %d commands per level, %d idle connections%n",
+                    connectorMode, durability, ops, idleConnections);
+            System.out.printf("server and idle connections: +%d threads, +%d MB heap%n",
+                    ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore, (usedHeap() - heapBefore) >> 20);
+            for (String clientCount : clientCounts) {
+                int clients = Integer.parseInt(clientCount.trim());
+                double opsPerSecond = runClients(connectionConfig, clients, ops / clients / 2);
+                System.out.printf("clients %d: %.0f ops/s%n", clients, opsPerSecond);
+            }
+        } finally {
+            for (Socket idleClient : idleClients) {
+                idleClient.close();
+            }
+        }
+        System.out.printf("accepted %d, rejected %d connections%n", connector.getAcceptedConnections(), connector.getRejectedConnections());
+        setupConnection.close();
+        connector.close();
+        server.close();
+        deleteRecursively(workingPath);
+        System.exit(0);
+    }
+
+    /**
+     * Каждый клиент pairsPerClient раз пишет новый ключ и читает его обратно
+     *
+     * @return сколько команд в секунду выполнили все клиенты вместе
+     */
+    private static double runClients(ConnectionConfig connectionConfig, int clients, int pairsPerClient) throws Exception {
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        CountDownLatch connected = new CountDownLatch(clients);
+        List<Future<?>> results = new ArrayList<>();
+        for (int client = 0; client < clients; client++) {
+            String keyPrefix = "c" + clients + "_" + client + "_";
+            results.add(clientThreads.submit(() -> {
+                KvsConnection connection = new SocketKvsConnection(connectionConfig);
+                try {
+                    SimpleKvsClient kvsClient = new SimpleKvsClient(DATABASE_NAME, () -> connection);
+                    kvsClient.get(TABLE_NAME, keyPrefix);
+                    connected.countDown();
+                    connected.await();
+                    for (int i = 0; i < pairsPerClient; i++) {
+                        String value = "v" + i;
+                        kvsClient.set(TABLE_NAME, keyPrefix + i, value);
+                        if (!value.equals(kvsClient.get(TABLE_NAME, keyPrefix + i))) {
+                            throw new IllegalStateException("Wrong value of key " + keyPrefix + i);
+                        }
+                    }
+                } finally {
+                    connection.close();
+                }
+                return null;
+            }));
+        }
+        connected.await();
+        long start = System.nanoTime();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        clientThreads.shutdown();
+        return clients * pairsPerClient * 2 * 1e9 / elapsed;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.itmo.java.bench;
+
+import com.itmo.java.basics.DatabaseServer;
+import com.itmo.java.basics.config.ConfigLoader;
+import com.itmo.java.basics.config.DatabaseConfig;
+import com.itmo.java.basics.console.impl.ExecutionEnvironmentImpl;
+import com.itmo.java.basics.initialization.impl.DatabaseInitializer;
+import com.itmo.java.basics.initialization.impl.DatabaseServerInitializer;
+import com.itmo.java.basics.initialization.impl.SegmentInitializer;
+import com.itmo.java.basics.initialization.impl.TableInitializer;
+import com.itmo.java.client.client.SimpleKvsClient;
+import com.itmo.java.client.connection.DirectReferenceKvsConnection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Пропускная способность SET в одном процессе, без сокетов: команды идут через {@link DirectReferenceKvsConnection}.
+ * Каждый раунд пишет keys ключей дважды: без повторов (чтение прошлого значения в SET_KEY промахивается по индексу,
+ * время уходит в основном на запись) и по кругу из hotKeys ключей (повторные записи одного ключа, которые
+ * memtable схлопывает). Кроме SET/s печатается, сколько байт на байт значений процесс записал в файлы
+ * (written, по wchar из /proc/self/io, вне Linux не печатается) и сколько занимают файлы таблицы после прогона
+ * (on disk, это потом перепишет сжатие).
+ * <p>
+ * Настройки передаются через {@link ConfigLoader}, а он пропускает незнакомые проперти, поэтому тот же класс
+ * можно собрать и на коммитах до длинных каналов записи и до memtable и сравнить результаты. Запуск:
+ * <pre>
+ * mvn -B test-compile
+ * java -cp target/classes:target/test-classes com.itmo.java.bench.WritePathBenchmark [-Dkeys=100000] [-DvalueSize=100]
+ *      [-DhotKeys=1000] [-Drounds=5] [-Dmemtable=1048576]
+ * </pre>
+ * memtable - kvs.memtable.sizeBytes, без него журнальные таблицы пишут прямо в сегменты.
+ * Печатает результаты каждого раунда и медианы. Каждый прогон пишет в свою таблицу во временной директории,
+ * которая в конце удаляется
+ */
+public class WritePathBenchmark {
+    private static final String DATABASE_NAME = "bench";
+    private static final Path PROCESS_IO = Paths.get("/proc/self/io");
+
+    public static void main(String[] args) throws Exception {
+        int keys = Integer.getInteger("keys", 100_000);
+        int valueSize = Integer.getInteger("valueSize", 100);
+        int hotKeys = Integer.getInteger("hotKeys", 1000);
+        int rounds = Integer.getInteger("rounds", 5);
+        String memtableSizeBytes = System.getProperty("memtable");
+        Path workingPath = Files.createTempDirectory("kvs-write-bench");
+        Path databasePath = workingPath.resolve(DATABASE_NAME);
+
+        DatabaseServer server = DatabaseServer.initialize(new ExecutionEnvironmentImpl(readConfig(workingPath, memtableSizeBytes)),
+                new DatabaseServerInitializer(new DatabaseInitializer(new TableInitializer(new SegmentInitializer()))));
+        SimpleKvsClient client = new SimpleKvsClient(DATABASE_NAME, () -> new DirectReferenceKvsConnection(server));
+        client.createDatabase();
+        char[] valueChars = new char[valueSize];
+        Arrays.fill(valueChars, 'v');
+        String value = new String(valueChars);
+
+        writeKeys(client, databasePath, "warmup", keys / 10, keys, value);
+        Run[] uniqueRuns = new Run[rounds];
+        Run[] hotRuns = new Run[rounds];
+        for (int round = 0; round < rounds; round++) {
+            uniqueRuns[round] = writeKeys(client, databasePath, "unique" + round, keys, keys, value);
+            hotRuns[round] = writeKeys(client, databasePath, "hot" + round, keys, hotKeys, value);
+            System.out.printf("round %d: unique keys %s, %d hot keys %s%n", round, uniqueRuns[round], hotKeys, hotRuns[round]);
+        }
+        System.out.printf("keys %d, value %d bytes, memtable %s: median unique keys %s, %d hot keys %s%n",
+                keys, valueSize, memtableSizeBytes == null ? "off" : memtableSizeBytes + " bytes",
+                median(uniqueRuns), hotKeys, median(hotRuns));
+        deleteRecursively(workingPath);
+        System.exit(0);
+    }
+
+    /**
+     * Пишет keys раз значение в ключи по кругу из distinctKeys
+     */
+    private static Run writeKeys(SimpleKvsClient client, Path databasePath, String tableName, int keys, int distinctKeys,
+                                 String value) throws Exception {
+        client.createTable(tableName);
+        long writtenBefore = writtenBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < keys; i++) {
+            client.set(tableName, "key" + i % distinctKeys, value);
+        }
+        long elapsed = System.nanoTime() - start;
+        long written = writtenBytes() - writtenBefore;
+        double valueBytes = (double) keys * value.length();
+        return new Run(keys * 1e9 / elapsed, writtenBefore < 0 ? -1 : written / valueBytes,
+                directorySize(databasePath.resolve(tableName)) / valueBytes);
+    }
+
+    private static long directorySize(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            long size = 0;
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * @return сколько байт процесс передал в write и похожие вызовы или -1, если это неизвестно
+     */
+    private static long writtenBytes() throws IOException {
+        if (Files.notExists(PROCESS_IO)) {
+            return -1;
+        }
+        List<String> lines = Files.readAllLines(PROCESS_IO);
+        for (String line : lines) {
+            if (line.startsWith("wchar:")) {
+                return Long.parseLong(line.substring("wchar:".length()).trim());
+            }
+        }
+        return -1;
+    }
+
+    private static DatabaseConfig readConfig(Path workingPath, String memtableSizeBytes) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("kvs.workingPath", workingPath.toString());
+        if (memtableSizeBytes != null) {
+            properties.setProperty("kvs.memtable.sizeBytes", memtableSizeBytes);
+        }
+        Path configPath = Files.createTempFile("kvs-write-bench", ".properties");
+        try (OutputStream output = Files.newOutputStream(configPath)) {
+            properties.store(output, null);
+        }
+        try {
+            return new ConfigLoader(configPath.toString()).readConfig().getDbConfig();
+        } finally {
+            Files.delete(configPath);
+        }
+    }
+
+    private static Run median(Run[] runs) {
+        double[] setsPerSecond = Arrays.stream(runs).mapToDouble(run -> run.setsPerSecond).sorted().toArray();
+        double[] amplification = Arrays.stream(runs).mapToDouble(run -> run.writeAmplification).sorted().toArray();
+        double[] onDisk = Arrays.stream(runs).mapToDouble(run -> run.onDisk).sorted().toArray();
+        return new Run(setsPerSecond[runs.length / 2], amplification[runs.length / 2], onDisk[runs.length / 2]);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static final class Run {
+        private final double setsPerSecond;
+        /**
+         * Байт записано в файлы на байт значений, отрицательное - неизвестно
+         */
+        private final double writeAmplification;
+        /**
+         * Байт в файлах таблицы на байт значений
+         */
+        private final double onDisk;
+
+        private Run(double setsPerSecond, double writeAmplification, double onDisk) {
+            this.setsPerSecond = setsPerSecond;
+            this.writeAmplification = writeAmplification;
+            this.onDisk = onDisk;
+        }
+
+        @Override
+        public String toString() {
+            String written = writeAmplification < 0 ? "" : String.format(" %.2f written,", writeAmplification);
+            return String.format("%.0f SET/s,%s %.2f on disk", setsPerSecond, written, onDisk);
+        }
+    }
+}
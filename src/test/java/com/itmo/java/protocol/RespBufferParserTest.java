@@ -0,0 +1,128 @@
+package com.itmo.java.protocol;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Команда разбирается, только когда пришла целиком, а размеры и вложенность, которые объявил клиент,
+ * не приводят к выделению памяти под них
+ */
+public class RespBufferParserTest {
+    private static final int MAX_SIZE = 1024;
+
+    @Test
+    public void parsesWholeCommand() throws IOException {
+        byte[] bytes = serialize(command());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        RespArray array = RespBufferParser.parseArray(buffer, MAX_SIZE);
+        assertEquals(command().asString(), array.asString());
+        assertEquals(bytes.length, buffer.position());
+    }
+
+    @Test
+    public void everyPrefixIsIncomplete() throws IOException {
+        byte[] bytes = serialize(command());
+        for (int length = 0; length < bytes.length; length++) {
+            ByteBuffer buffer = ByteBuffer.wrap(Arrays.copyOf(bytes, length));
+            assertNull("prefix of " + length + " bytes", RespBufferParser.parseArray(buffer, MAX_SIZE));
+            assertEquals("prefix of " + length + " bytes", 0, buffer.position());
+        }
+    }
+
+    @Test
+    public void parsesPipelinedCommandsOneByOne() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        command().write(bytes);
+        new RespArray(new RespCommandId(2), new RespBulkString(bytes("SECOND"))).write(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        assertEquals(command().asString(), RespBufferParser.parseArray(buffer, MAX_SIZE).asString());
+        RespArray second = RespBufferParser.parseArray(buffer, MAX_SIZE);
+        assertArrayEquals(bytes("SECOND"), second.getObjects().get(1).asBytes());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void nullBulkString() throws IOException {
+        RespArray array = RespBufferParser.parseArray(buffer("*1\r\n$-1\r\n"), MAX_SIZE);
+        assertSame(RespBulkString.NULL_STRING, array.getObjects().get(0));
+    }
+
+    @Test
+    public void bulkSizeNearIntMaxDoesNotOverflow() throws IOException {
+        assertNull(RespBufferParser.parseArray(buffer("*1\r\n$2147483647\r\n"), Integer.MAX_VALUE));
+        assertNull(RespBufferParser.parseArray(buffer("*1\r\n$2147483646\r\n"), Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void rejectsOversizedBulkString() {
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*1\r\n$2147483647\r\n"), MAX_SIZE));
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*1\r\n$1025\r\n"), MAX_SIZE));
+    }
+
+    @Test
+    public void rejectsOversizedArray() {
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*2147483647\r\n"), MAX_SIZE));
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*1025\r\n"), MAX_SIZE));
+    }
+
+    @Test
+    public void rejectsNegativeSizes() {
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*-1\r\n"), MAX_SIZE));
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*1\r\n$-5\r\n"), MAX_SIZE));
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*1\r\n$-2147483648\r\n"), MAX_SIZE));
+    }
+
+    @Test
+    public void rejectsSizeThatIsNotInt() {
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*1\r\n$99999999999\r\n"), MAX_SIZE));
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer("*1\r\n$abc\r\n"), MAX_SIZE));
+    }
+
+    @Test
+    public void rejectsLongErrorLine() {
+        byte[] message = new byte[MAX_SIZE * 2];
+        Arrays.fill(message, (byte) 'x');
+        String line = "*1\r\n-" + new String(message, StandardCharsets.US_ASCII);
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer(line), MAX_SIZE));
+    }
+
+    @Test
+    public void rejectsDeepNesting() {
+        String nested = "*1\r\n".repeat(100_000);
+        assertThrows(IOException.class, () -> RespBufferParser.parseArray(buffer(nested), MAX_SIZE));
+    }
+
+    private static RespArray command() {
+        return new RespArray(new RespCommandId(1), new RespBulkString(bytes("SET_KEY")), new RespBulkString(bytes("db")),
+                new RespBulkString(bytes("table")), new RespBulkString(bytes("key\r\n")), new RespBulkString(bytes("value")));
+    }
+
+    private static byte[] serialize(RespObject object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        object.write(bytes);
+        return bytes.toByteArray();
+    }
+
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
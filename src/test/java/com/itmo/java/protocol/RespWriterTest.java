@@ -0,0 +1,88 @@
+package com.itmo.java.protocol;
+
+import com.itmo.java.protocol.model.RespArray;
+import com.itmo.java.protocol.model.RespBulkString;
+import com.itmo.java.protocol.model.RespCommandId;
+import com.itmo.java.protocol.model.RespError;
+import com.itmo.java.protocol.model.RespObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Объект RESP сам поток не сбрасывает, а {@link RespWriter} сбрасывает его один раз, когда объект записан целиком
+ */
+public class RespWriterTest {
+
+    @Test
+    public void respObjectsDoNotFlush() throws IOException {
+        RespObject[] objects = {
+                new RespBulkString(bytes("value")),
+                RespBulkString.NULL_STRING,
+                new RespError(bytes("error")),
+                new RespCommandId(3338),
+                command()
+        };
+        for (RespObject object : objects) {
+            FlushRecordingStream stream = new FlushRecordingStream();
+            object.write(stream);
+            assertEquals("flushes of " + object.asString(), List.of(), stream.flushedSizes);
+        }
+    }
+
+    @Test
+    public void writerFlushesOnceAfterWholeObject() throws IOException {
+        FlushRecordingStream stream = new FlushRecordingStream();
+        new RespWriter(stream).write(command());
+        assertEquals(List.of(stream.size()), stream.flushedSizes);
+    }
+
+    @Test
+    public void writerFlushesEveryObject() throws IOException {
+        FlushRecordingStream stream = new FlushRecordingStream();
+        RespWriter writer = new RespWriter(stream);
+        writer.write(new RespBulkString(bytes("first")));
+        int firstSize = stream.size();
+        writer.write(new RespError(bytes("second")));
+        assertEquals(List.of(firstSize, stream.size()), stream.flushedSizes);
+    }
+
+    @Test
+    public void writerKeepsEncoding() throws IOException {
+        FlushRecordingStream stream = new FlushRecordingStream();
+        new RespWriter(stream).write(command());
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(bytes("*3\r\n!"));
+        // id 3338 = 0x0D0A, то есть CRLF внутри идентификатора
+        expected.write(new byte[]{0, 0, 0x0D, 0x0A});
+        expected.write(bytes("\r\n$3\r\nGET\r\n$-1\r\n"));
+        assertArrayEquals(expected.toByteArray(), stream.toByteArray());
+    }
+
+    private static RespArray command() {
+        return new RespArray(new RespCommandId(3338), new RespBulkString(bytes("GET")), RespBulkString.NULL_STRING);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Запоминает, сколько байт было записано к каждому сбросу
+     */
+    private static class FlushRecordingStream extends ByteArrayOutputStream {
+        private final List<Integer> flushedSizes = new ArrayList<>();
+
+        @Override
+        public void flush() {
+            flushedSizes.add(size());
+        }
+    }
+}